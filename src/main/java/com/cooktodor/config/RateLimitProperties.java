@@ -0,0 +1,94 @@
+package com.cooktodor.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Token bucket limits per public auth endpoint, e.g. rate-limit.rules.login.ip-capacity=20.
+ * A bucket holds up to capacity requests and refills at per-minute requests per minute.
+ */
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Upper bound on tracked buckets (IPs + accounts), to bound memory under a flood of distinct keys
+    private int maxBuckets = 100_000;
+
+    private long sweepIntervalSeconds = 60;
+
+    private Map<String, Rule> rules = new HashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxBuckets() {
+        return maxBuckets;
+    }
+
+    public void setMaxBuckets(int maxBuckets) {
+        this.maxBuckets = maxBuckets;
+    }
+
+    public long getSweepIntervalSeconds() {
+        return sweepIntervalSeconds;
+    }
+
+    public void setSweepIntervalSeconds(long sweepIntervalSeconds) {
+        this.sweepIntervalSeconds = sweepIntervalSeconds;
+    }
+
+    public Map<String, Rule> getRules() {
+        return rules;
+    }
+
+    public void setRules(Map<String, Rule> rules) {
+        this.rules = rules;
+    }
+
+    public static class Rule {
+        private int ipCapacity = 20;
+        private double ipPerMinute = 20;
+        private int accountCapacity = 5;
+        private double accountPerMinute = 5;
+
+        public int getIpCapacity() {
+            return ipCapacity;
+        }
+
+        public void setIpCapacity(int ipCapacity) {
+            this.ipCapacity = ipCapacity;
+        }
+
+        public double getIpPerMinute() {
+            return ipPerMinute;
+        }
+
+        public void setIpPerMinute(double ipPerMinute) {
+            this.ipPerMinute = ipPerMinute;
+        }
+
+        public int getAccountCapacity() {
+            return accountCapacity;
+        }
+
+        public void setAccountCapacity(int accountCapacity) {
+            this.accountCapacity = accountCapacity;
+        }
+
+        public double getAccountPerMinute() {
+            return accountPerMinute;
+        }
+
+        public void setAccountPerMinute(double accountPerMinute) {
+            this.accountPerMinute = accountPerMinute;
+        }
+    }
+}
@@ -3,10 +3,14 @@ package com.cooktodor.config;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
@@ -15,40 +19,58 @@ import java.util.List;
 @EnableConfigurationProperties(RazorpayProperties.class)
 public class RazorpayConfig {
 
+    /**
+     * One JDK HttpClient for both Razorpay APIs: it pools and keeps alive connections to the host
+     */
     @Bean
-    public RestTemplate razorpayRestTemplate(RazorpayProperties props) {
-        RestTemplate restTemplate = new RestTemplate();
+    public HttpClient razorpayHttpClient(RazorpayProperties props) {
+        return HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(props.getHttp().getConnectTimeoutMs()))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
 
-        // Interceptor that can be reused to add Basic Auth for Razorpay API calls.
-        ClientHttpRequestInterceptor authInterceptor = (request, body, execution) -> {
-            String creds = props.getRazorpay().getKeyId() + ":" + props.getRazorpay().getKeySecret();
-            String encoded = Base64.getEncoder().encodeToString(creds.getBytes(StandardCharsets.UTF_8));
-            request.getHeaders().add("Authorization", "Basic " + encoded);
-            return execution.execute(request, body);
-        };
+    @Bean
+    public ResilientHttpInterceptor razorpayResilience(RazorpayProperties props) {
+        return new ResilientHttpInterceptor("Razorpay", props.getHttp());
+    }
 
-        List<ClientHttpRequestInterceptor> interceptors = new ArrayList<>(restTemplate.getInterceptors());
-        interceptors.add(authInterceptor);
-        restTemplate.setInterceptors(interceptors);
-        return restTemplate;
+    @Bean
+    public ResilientHttpInterceptor razorpayXResilience(RazorpayProperties props) {
+        return new ResilientHttpInterceptor("RazorpayX", props.getHttp());
+    }
+
+    @Bean
+    public RestTemplate razorpayRestTemplate(RazorpayProperties props) {
+        return buildRestTemplate(props, props.getRazorpay().getKeyId(), props.getRazorpay().getKeySecret(),
+                razorpayResilience(props));
     }
 
     @Bean
     public RestTemplate razorpayXRestTemplate(RazorpayProperties props) {
-        RestTemplate restTemplate = new RestTemplate();
+        return buildRestTemplate(props, props.getRazorpayx().getKeyId(), props.getRazorpayx().getKeySecret(),
+                razorpayXResilience(props));
+    }
+
+    private RestTemplate buildRestTemplate(RazorpayProperties props, String keyId, String keySecret,
+            ResilientHttpInterceptor resilience) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(razorpayHttpClient(props));
+        requestFactory.setReadTimeout(Duration.ofMillis(props.getHttp().getReadTimeoutMs()));
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
 
+        // Basic Auth for Razorpay API calls; the header is encoded once, not per request
+        String authorization = "Basic " + Base64.getEncoder()
+                .encodeToString((keyId + ":" + keySecret).getBytes(StandardCharsets.UTF_8));
         ClientHttpRequestInterceptor authInterceptor = (request, body, execution) -> {
-            String creds = props.getRazorpayx().getKeyId() + ":" + props.getRazorpayx().getKeySecret();
-            String encoded = Base64.getEncoder().encodeToString(creds.getBytes(StandardCharsets.UTF_8));
-            request.getHeaders().add("Authorization", "Basic " + encoded);
+            request.getHeaders().set(HttpHeaders.AUTHORIZATION, authorization);
             return execution.execute(request, body);
         };
 
+        // Auth first, so each retry made by the resilience interceptor goes out with the header
         List<ClientHttpRequestInterceptor> interceptors = new ArrayList<>(restTemplate.getInterceptors());
         interceptors.add(authInterceptor);
+        interceptors.add(resilience);
         restTemplate.setInterceptors(interceptors);
         return restTemplate;
     }
 }
-
-
@@ -7,6 +7,7 @@ public class RazorpayProperties {
 
     private RazorpayConfig razorpay = new RazorpayConfig();
     private RazorpayXConfig razorpayx = new RazorpayXConfig();
+    private Http http = new Http();
 
     public RazorpayConfig getRazorpay() {
         return razorpay;
@@ -24,6 +25,14 @@ public class RazorpayProperties {
         this.razorpayx = razorpayx;
     }
 
+    public Http getHttp() {
+        return http;
+    }
+
+    public void setHttp(Http http) {
+        this.http = http;
+    }
+
     public static class RazorpayConfig {
         private String keyId;
         private String keySecret;
@@ -92,6 +101,77 @@ public class RazorpayProperties {
             this.webhookSecret = webhookSecret;
         }
     }
-}
 
+    /**
+     * HTTP client settings shared by the Razorpay and RazorpayX clients
+     */
+    public static class Http {
+        private int connectTimeoutMs = 2000;
+        private int readTimeoutMs = 10000;
+
+        // Retries after the first attempt; only for GETs, or when the connection was never made
+        private int maxRetries = 2;
+        private long retryBaseDelayMs = 200;
+        private long retryMaxDelayMs = 2000;
+
+        // Consecutive failures that open the circuit, and how long it stays open before a probe
+        private int circuitFailureThreshold = 5;
+        private long circuitOpenSeconds = 30;
+
+        public int getConnectTimeoutMs() {
+            return connectTimeoutMs;
+        }
+
+        public void setConnectTimeoutMs(int connectTimeoutMs) {
+            this.connectTimeoutMs = connectTimeoutMs;
+        }
+
+        public int getReadTimeoutMs() {
+            return readTimeoutMs;
+        }
+
+        public void setReadTimeoutMs(int readTimeoutMs) {
+            this.readTimeoutMs = readTimeoutMs;
+        }
+
+        public int getMaxRetries() {
+            return maxRetries;
+        }
+
+        public void setMaxRetries(int maxRetries) {
+            this.maxRetries = maxRetries;
+        }
+
+        public long getRetryBaseDelayMs() {
+            return retryBaseDelayMs;
+        }
+
+        public void setRetryBaseDelayMs(long retryBaseDelayMs) {
+            this.retryBaseDelayMs = retryBaseDelayMs;
+        }
+
+        public long getRetryMaxDelayMs() {
+            return retryMaxDelayMs;
+        }
+
+        public void setRetryMaxDelayMs(long retryMaxDelayMs) {
+            this.retryMaxDelayMs = retryMaxDelayMs;
+        }
 
+        public int getCircuitFailureThreshold() {
+            return circuitFailureThreshold;
+        }
+
+        public void setCircuitFailureThreshold(int circuitFailureThreshold) {
+            this.circuitFailureThreshold = circuitFailureThreshold;
+        }
+
+        public long getCircuitOpenSeconds() {
+            return circuitOpenSeconds;
+        }
+
+        public void setCircuitOpenSeconds(long circuitOpenSeconds) {
+            this.circuitOpenSeconds = circuitOpenSeconds;
+        }
+    }
+}
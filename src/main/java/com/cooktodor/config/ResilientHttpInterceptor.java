@@ -0,0 +1,198 @@
+package com.cooktodor.config;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Retries and a circuit breaker for calls to an external API, plus call counters.
+ *
+ * Requests are retried with full-jitter exponential backoff on I/O errors and 5xx/429 responses,
+ * but only when that is safe: GETs, or any request whose connection was never established.
+ * After a run of consecutive failures (I/O errors or 5xx) the circuit opens and calls fail fast
+ * with an IOException, which RestTemplate reports as a ResourceAccessException; once the open
+ * period has passed a single probe is let through, and its outcome closes or reopens the circuit.
+ */
+public class ResilientHttpInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResilientHttpInterceptor.class);
+
+    private final String name;
+
+    private final RazorpayProperties.Http settings;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    // System.nanoTime() until which the circuit is open; 0 while closed
+    private final AtomicLong openUntil = new AtomicLong();
+
+    private final AtomicBoolean probeInFlight = new AtomicBoolean();
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder attemptNanos = new LongAdder();
+    private final LongAdder attempts = new LongAdder();
+    private final AtomicLong maxAttemptNanos = new AtomicLong();
+
+    public ResilientHttpInterceptor(String name, RazorpayProperties.Http settings) {
+        this.name = name;
+        this.settings = settings;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        calls.increment();
+        boolean probe = acquirePermission();
+        boolean idempotent = request.getMethod() == HttpMethod.GET || request.getMethod() == HttpMethod.HEAD;
+        try {
+            for (int attempt = 0; ; attempt++) {
+                // A half-open probe gets exactly one attempt
+                boolean mayRetry = !probe && attempt < settings.getMaxRetries();
+                long start = System.nanoTime();
+                ClientHttpResponse response;
+                try {
+                    response = execution.execute(request, body);
+                } catch (IOException e) {
+                    recordAttempt(start);
+                    onFailure();
+                    if (!mayRetry || !(idempotent || neverConnected(e)) || isOpen()) {
+                        throw e;
+                    }
+                    logger.warn("{} {} {} failed ({}), retrying", name, request.getMethod(), request.getURI().getPath(),
+                            e.toString());
+                    backoff(attempt);
+                    continue;
+                }
+                recordAttempt(start);
+
+                int status = response.getStatusCode().value();
+                if (status >= 500) {
+                    onFailure();
+                } else {
+                    // 4xx and 429 mean the API is up and answering
+                    onSuccess();
+                }
+                if ((status >= 500 || status == 429) && idempotent && mayRetry && !isOpen()) {
+                    response.close();
+                    logger.warn("{} {} {} returned {}, retrying", name, request.getMethod(), request.getURI().getPath(),
+                            status);
+                    backoff(attempt);
+                    continue;
+                }
+                return response;
+            }
+        } finally {
+            if (probe) {
+                probeInFlight.set(false);
+            }
+        }
+    }
+
+    /**
+     * Counters since startup, for the admin dashboard
+     */
+    public Map<String, Object> snapshot() {
+        long attemptCount = attempts.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("circuit", openUntil.get() == 0 ? "CLOSED" : (isOpen() ? "OPEN" : "HALF_OPEN"));
+        stats.put("calls", calls.sum());
+        stats.put("attempts", attemptCount);
+        stats.put("retries", retries.sum());
+        stats.put("failures", failures.sum());
+        stats.put("rejectedWhileOpen", rejected.sum());
+        stats.put("avgLatencyMs", attemptCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(attemptNanos.sum() / attemptCount));
+        stats.put("maxLatencyMs", TimeUnit.NANOSECONDS.toMillis(maxAttemptNanos.get()));
+        return stats;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Returns true when the call is the half-open probe; throws when the circuit is open
+    private boolean acquirePermission() throws IOException {
+        long until = openUntil.get();
+        if (until == 0) {
+            return false;
+        }
+        if (System.nanoTime() - until < 0 || !probeInFlight.compareAndSet(false, true)) {
+            rejected.increment();
+            long waitSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(until - System.nanoTime()));
+            throw new IOException(name + " is unavailable (circuit open), retry in about " + waitSeconds + "s");
+        }
+        return true;
+    }
+
+    private boolean isOpen() {
+        long until = openUntil.get();
+        return until != 0 && System.nanoTime() - until < 0;
+    }
+
+    private void onSuccess() {
+        consecutiveFailures.set(0);
+        if (openUntil.getAndSet(0) != 0) {
+            logger.info("{} circuit closed", name);
+        }
+    }
+
+    private void onFailure() {
+        failures.increment();
+        boolean wasOpen = openUntil.get() != 0;
+        if (wasOpen || consecutiveFailures.incrementAndGet() >= settings.getCircuitFailureThreshold()) {
+            long until = System.nanoTime() + TimeUnit.SECONDS.toNanos(settings.getCircuitOpenSeconds());
+            openUntil.set(until == 0 ? 1 : until);
+            consecutiveFailures.set(0);
+            logger.warn("{} circuit {} for {}s", name, wasOpen ? "reopened" : "opened", settings.getCircuitOpenSeconds());
+        }
+    }
+
+    private void recordAttempt(long start) {
+        long elapsed = System.nanoTime() - start;
+        attempts.increment();
+        attemptNanos.add(elapsed);
+        maxAttemptNanos.accumulateAndGet(elapsed, Math::max);
+    }
+
+    // Nothing reached the server, so even a POST can be sent again
+    private static boolean neverConnected(IOException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof ConnectException || t instanceof HttpConnectTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Full jitter: a random delay up to the capped exponential backoff, so retries from many callers spread out
+    private void backoff(int attempt) throws IOException {
+        retries.increment();
+        long cap = Math.min(settings.getRetryMaxDelayMs(), settings.getRetryBaseDelayMs() << Math.min(attempt, 20));
+        long delay = ThreadLocalRandom.current().nextLong(cap + 1);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry " + name);
+        }
+    }
+}
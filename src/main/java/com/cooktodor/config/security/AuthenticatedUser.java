@@ -0,0 +1,85 @@
+package com.cooktodor.config.security;
+
+import java.util.Collection;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+
+import com.cooktodor.enums.Role;
+import com.cooktodor.exception.UnauthorizedException;
+
+/**
+ * Principal of an authenticated request. Carries the user id, role and the id of the user's
+ * customer / provider / delivery partner profile (null when unknown) so controllers don't have
+ * to look them up again.
+ */
+public class AuthenticatedUser extends User {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long userId;
+    private final Role role;
+    private final Long customerId;
+    private final Long providerId;
+    private final Long deliveryPartnerId;
+
+    public AuthenticatedUser(Long userId, String username, String password, Role role,
+                             Collection<? extends GrantedAuthority> authorities) {
+        this(userId, username, password, role, authorities, null, null, null);
+    }
+
+    public AuthenticatedUser(Long userId, String username, String password, Role role,
+                             Collection<? extends GrantedAuthority> authorities,
+                             Long customerId, Long providerId, Long deliveryPartnerId) {
+        super(username, password, authorities);
+        this.userId = userId;
+        this.role = role;
+        this.customerId = customerId;
+        this.providerId = providerId;
+        this.deliveryPartnerId = deliveryPartnerId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public Long getProviderId() {
+        return providerId;
+    }
+
+    public Long getDeliveryPartnerId() {
+        return deliveryPartnerId;
+    }
+
+    /**
+     * Principal of the current request, or null when the request is anonymous
+     */
+    public static AuthenticatedUser current() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getPrincipal() instanceof AuthenticatedUser) {
+            return (AuthenticatedUser) auth.getPrincipal();
+        }
+        return null;
+    }
+
+    /**
+     * Principal of the current request; fails when the request is anonymous
+     */
+    public static AuthenticatedUser requireCurrent() {
+        AuthenticatedUser principal = current();
+        if (principal == null) {
+            throw new UnauthorizedException();
+        }
+        return principal;
+    }
+}
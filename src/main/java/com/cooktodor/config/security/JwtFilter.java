@@ -10,6 +10,10 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.cooktodor.service.TokenRevocationService;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -22,6 +26,10 @@ public class JwtFilter extends OncePerRequestFilter {
     private JwtUtil jwtUtil;
 	@Autowired
     private UserDetailsService userDetailsService;
+	@Autowired
+    private PrincipalCache principalCache;
+	@Autowired
+    private TokenRevocationService tokenRevocationService;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
@@ -50,27 +58,30 @@ public class JwtFilter extends OncePerRequestFilter {
         String token = authHeader.substring(7);
 
         try {
-            // First check if token is expired without database query
-            if (jwtUtil.isExpired(token)) {
-                sendError(response, "Token expired");
-                return;
-            }
-            
-            String username = jwtUtil.extractUsername(token);
+            // Signature and expiry are verified once, here
+            Claims claims = jwtUtil.parseToken(token);
+            String username = claims.getSubject();
 
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-                if (jwtUtil.validateToken(token, userDetails)) {
-                    UsernamePasswordAuthenticationToken authToken =
-                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                    System.out.println("JWT Filter - Authentication successful for user: " + username);
-                } else {
-                    sendError(response, "Invalid or expired token");
+                // Tokens carry the identity; older ones without claims are resolved through the cache
+                UserDetails userDetails = jwtUtil.toPrincipal(claims);
+                if (userDetails == null) {
+                    userDetails = principalCache.get(username, userDetailsService::loadUserByUsername);
+                }
+                // The token itself, or every token of the user issued before a password reset or role change
+                Long userId = userDetails instanceof AuthenticatedUser ? ((AuthenticatedUser) userDetails).getUserId() : null;
+                if (tokenRevocationService.isRevoked(claims.getId(), userId, claims.getIssuedAt())) {
+                    sendError(response, "Token revoked");
                     return;
                 }
+                UsernamePasswordAuthenticationToken authToken =
+                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                SecurityContextHolder.getContext().setAuthentication(authToken);
+                System.out.println("JWT Filter - Authentication successful for user: " + username);
             }
+        } catch (ExpiredJwtException e) {
+            sendError(response, "Token expired");
+            return;
         } catch (Exception e) {
             sendError(response, "Authentication failed: " + e.getMessage());
             return;
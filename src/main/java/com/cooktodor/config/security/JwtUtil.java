@@ -2,17 +2,23 @@ package com.cooktodor.config.security;
 
 
 import java.security.Key;
+import java.util.Collections;
 import java.util.Date;
+import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import com.cooktodor.enums.Role;
 import com.cooktodor.model.User;
 import com.cooktodor.service.UserService;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -22,6 +28,13 @@ import jakarta.servlet.http.HttpServletRequest;
 @Component
 public class JwtUtil {
 
+    // Identity claims, so a request can be authenticated from the token alone
+    private static final String CLAIM_USER_ID = "userId";
+    private static final String CLAIM_ROLE = "role";
+    private static final String CLAIM_CUSTOMER_ID = "customerId";
+    private static final String CLAIM_PROVIDER_ID = "providerId";
+    private static final String CLAIM_DELIVERY_PARTNER_ID = "deliveryPartnerId";
+
     @Value("${jwt.secret}")
     private String secret;
 
@@ -33,56 +46,75 @@ public class JwtUtil {
 
     private Key key;
 
+    private JwtParser parser;
+
     @Autowired
     UserService  userService;
 
     @PostConstruct
     public void init() {
         this.key = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
     }
 
     public String generateToken(UserDetails userDetails) {
-        return Jwts.builder()
-                .setSubject(userDetails.getUsername())
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + tokenExpiration))
-                .signWith(key, SignatureAlgorithm.HS256)
-                .compact();
+        return buildToken(userDetails, tokenExpiration);
     }
 
     public String generateRefreshToken(UserDetails userDetails) {
-        return Jwts.builder()
-                .setSubject(userDetails.getUsername())
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + refreshTokenExpiration))
-                .signWith(key, SignatureAlgorithm.HS256)
-                .compact();
+        return buildToken(userDetails, refreshTokenExpiration);
     }
 
-    public String extractUsername(String token) {
-        return Jwts.parserBuilder().setSigningKey(key).build()
-                .parseClaimsJws(token).getBody().getSubject();
-    }
-
-    public boolean validateToken(String token, UserDetails userDetails) {
-        String username = extractUsername(token);
-        return username.equals(userDetails.getUsername()) && !isExpired(token);
+    private String buildToken(UserDetails userDetails, long expiration) {
+        JwtBuilder builder = Jwts.builder()
+                // jti, so a single token can be revoked
+                .setId(UUID.randomUUID().toString())
+                .setSubject(userDetails.getUsername())
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + expiration));
+        if (userDetails instanceof AuthenticatedUser) {
+            AuthenticatedUser principal = (AuthenticatedUser) userDetails;
+            builder.claim(CLAIM_USER_ID, principal.getUserId())
+                    .claim(CLAIM_ROLE, principal.getRole().name());
+            if (principal.getCustomerId() != null) {
+                builder.claim(CLAIM_CUSTOMER_ID, principal.getCustomerId());
+            }
+            if (principal.getProviderId() != null) {
+                builder.claim(CLAIM_PROVIDER_ID, principal.getProviderId());
+            }
+            if (principal.getDeliveryPartnerId() != null) {
+                builder.claim(CLAIM_DELIVERY_PARTNER_ID, principal.getDeliveryPartnerId());
+            }
+        }
+        return builder.signWith(key, SignatureAlgorithm.HS256).compact();
     }
 
-    public boolean isExpired(String token) {
-        Date expirationDate = Jwts.parserBuilder().setSigningKey(key).build()
-                .parseClaimsJws(token).getBody().getExpiration();
-        return expirationDate.before(new Date());
+    /**
+     * Verify signature and expiry once and return the claims; throws ExpiredJwtException / JwtException.
+     * The only place a token is parsed, so callers read everything they need from one result.
+     */
+    public Claims parseToken(String token) {
+        return parser.parseClaimsJws(token).getBody();
     }
 
-    public Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder().setSigningKey(key).build()
-                .parseClaimsJws(token).getBody();
+    /**
+     * Principal built from the identity claims, or null for tokens issued without them
+     */
+    public AuthenticatedUser toPrincipal(Claims claims) {
+        Long userId = claims.get(CLAIM_USER_ID, Long.class);
+        String role = claims.get(CLAIM_ROLE, String.class);
+        if (userId == null || role == null) {
+            return null;
+        }
+        return new AuthenticatedUser(userId, claims.getSubject(), "", Role.valueOf(role),
+                Collections.singletonList(new SimpleGrantedAuthority(role)),
+                claims.get(CLAIM_CUSTOMER_ID, Long.class),
+                claims.get(CLAIM_PROVIDER_ID, Long.class),
+                claims.get(CLAIM_DELIVERY_PARTNER_ID, Long.class));
     }
 
     public User getLoginUserDetailsByToken(String token) {
-        String username = Jwts.parserBuilder().setSigningKey(key).build()
-                .parseClaimsJws(token).getBody().getSubject();
+        String username = parseToken(token).getSubject();
 
         User user = userService.getUserDetailsByUsername(username);
         if (user == null) {
@@ -0,0 +1,75 @@
+package com.cooktodor.config.security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+/**
+ * Principals resolved by JwtFilter, kept for a short TTL so authenticated requests don't query users.
+ *
+ * Entries are dropped when a user's password, role or username changes on this node; the TTL bounds
+ * how long another node can keep serving the old principal.
+ */
+@Component
+public class PrincipalCache {
+
+    private final Map<String, Entry> principals = new ConcurrentHashMap<>();
+
+    private final long ttlMillis;
+
+    private final int maxEntries;
+
+    public PrincipalCache(@Value("${security.principal-cache.ttl-seconds:60}") long ttlSeconds,
+            @Value("${security.principal-cache.max-entries:10000}") int maxEntries) {
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Cached principal for the username, loaded when missing or expired
+     */
+    public UserDetails get(String username, Function<String, UserDetails> loader) {
+        long now = System.currentTimeMillis();
+        Entry entry = principals.get(username);
+        if (entry != null && entry.expiresAt > now) {
+            return entry.principal;
+        }
+        if (principals.size() >= maxEntries) {
+            // Everything can be reloaded, so a full reset is cheaper than tracking recency
+            principals.clear();
+        }
+        UserDetails loaded = loader.apply(username);
+        if (loaded instanceof AuthenticatedUser) {
+            // The cached copy only identifies the user; the password hash is not needed after login
+            ((AuthenticatedUser) loaded).eraseCredentials();
+        }
+        principals.put(username, new Entry(loaded, now + ttlMillis));
+        return loaded;
+    }
+
+    public void invalidate(String username) {
+        if (username != null) {
+            principals.remove(username);
+        }
+    }
+
+    public void invalidateUserId(Long userId) {
+        principals.values().removeIf(entry -> entry.principal instanceof AuthenticatedUser
+                && userId.equals(((AuthenticatedUser) entry.principal).getUserId()));
+    }
+
+    private static class Entry {
+        private final UserDetails principal;
+        private final long expiresAt;
+
+        Entry(UserDetails principal, long expiresAt) {
+            this.principal = principal;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.cooktodor.config.security;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Per-IP limit for the public auth endpoints, applied before the body is read so a rejected
+ * request costs one bucket lookup. Per-account limits are applied in AuthController once the
+ * username / email is known.
+ *
+ * The client IP is request.getRemoteAddr(). Behind a reverse proxy that is the proxy's address
+ * unless server.forward-headers-strategy resolves X-Forwarded-For first (see application.properties).
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String AUTH_PREFIX = "/api/auth/";
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !request.getRequestURI().startsWith(AUTH_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String endpoint = request.getRequestURI().substring(AUTH_PREFIX.length());
+        if (endpoint.endsWith("/")) {
+            endpoint = endpoint.substring(0, endpoint.length() - 1);
+        }
+        long retryAfter = rateLimiter.tryAcquireIp(endpoint, request.getRemoteAddr());
+        if (retryAfter > 0) {
+            response.setStatus(429);
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+            response.setContentType("application/json");
+            response.getWriter().write("{\"error\":\"Too Many Requests\",\"message\":\"Too many requests. Please try again later.\"}");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
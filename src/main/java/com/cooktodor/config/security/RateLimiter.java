@@ -0,0 +1,175 @@
+package com.cooktodor.config.security;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.cooktodor.config.RateLimitProperties;
+import com.cooktodor.exception.TooManyRequestsException;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * In-process token buckets for the public auth endpoints, keyed by client IP and by account.
+ *
+ * Each bucket is a single AtomicLong holding the time at which it will be full again (GCRA, the
+ * timestamp form of a token bucket), so taking a token is one CAS and needs no lock or allocation.
+ * Buckets live in a fixed number of independent map stripes; a full bucket is the same as a missing
+ * one, so a periodic sweep simply drops buckets that have refilled. IP and account buckets are kept in
+ * separate stripes, so a flood of source addresses can't push out the per-account limits.
+ */
+@Component
+public class RateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimiter.class);
+
+    private static final int STRIPES = 16;
+
+    private final RateLimitProperties properties;
+
+    private final ConcurrentHashMap<String, AtomicLong>[] ipStripes = newStripes();
+
+    private final ConcurrentHashMap<String, AtomicLong>[] accountStripes = newStripes();
+
+    private final int maxBucketsPerStripe;
+
+    private ScheduledExecutorService sweeper;
+
+    public RateLimiter(RateLimitProperties properties) {
+        this.properties = properties;
+        // Half of the budget for each kind
+        this.maxBucketsPerStripe = Math.max(1, properties.getMaxBuckets() / 2 / STRIPES);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ConcurrentHashMap<String, AtomicLong>[] newStripes() {
+        ConcurrentHashMap<String, AtomicLong>[] stripes = new ConcurrentHashMap[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+        return stripes;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "rate-limit-sweep");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = properties.getSweepIntervalSeconds();
+        sweeper.scheduleWithFixedDelay(this::evictIdle, interval, interval, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    /**
+     * Take a token from the IP bucket of the endpoint; returns 0 when allowed, else seconds to wait
+     */
+    public long tryAcquireIp(String endpoint, String ip) {
+        RateLimitProperties.Rule rule = rule(endpoint);
+        if (rule == null || ip == null) {
+            return 0;
+        }
+        return tryAcquire(ipStripes, endpoint + "|" + ip, rule.getIpCapacity(), rule.getIpPerMinute());
+    }
+
+    /**
+     * Take a token from the account bucket of the endpoint, or throw TooManyRequestsException
+     */
+    public void checkAccount(String endpoint, String account) {
+        RateLimitProperties.Rule rule = rule(endpoint);
+        if (rule == null || account == null || account.isBlank()) {
+            return;
+        }
+        String key = endpoint + "|" + account.trim().toLowerCase(Locale.ROOT);
+        long retryAfter = tryAcquire(accountStripes, key, rule.getAccountCapacity(), rule.getAccountPerMinute());
+        if (retryAfter > 0) {
+            throw new TooManyRequestsException("Too many attempts for this account. Please try again later.", retryAfter);
+        }
+    }
+
+    private RateLimitProperties.Rule rule(String endpoint) {
+        return properties.isEnabled() ? properties.getRules().get(endpoint) : null;
+    }
+
+    private long tryAcquire(ConcurrentHashMap<String, AtomicLong>[] stripes, String key, int capacity, double perMinute) {
+        if (capacity <= 0 || perMinute <= 0) {
+            return 0;
+        }
+        long intervalNanos = (long) (TimeUnit.MINUTES.toNanos(1) / perMinute);
+        long burstNanos = intervalNanos * capacity;
+        long now = System.nanoTime();
+
+        ConcurrentHashMap<String, AtomicLong> stripe = stripes[(key.hashCode() & 0x7fffffff) % STRIPES];
+        AtomicLong bucket = stripe.get(key);
+        if (bucket == null) {
+            if (stripe.size() >= maxBucketsPerStripe) {
+                evictIdle(stripe, now);
+                if (stripe.size() >= maxBucketsPerStripe) {
+                    logger.warn("Rate limit stripe full with {} active buckets, evicting the least used", stripe.size());
+                    evictNearlyFull(stripe, now);
+                }
+            }
+            bucket = stripe.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+
+        while (true) {
+            long fullAt = bucket.get();
+            long next = Math.max(fullAt, now) + intervalNanos;
+            long excess = next - now - burstNanos;
+            if (excess > 0) {
+                return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(excess) + 1);
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.nanoTime();
+        for (ConcurrentHashMap<String, AtomicLong> stripe : ipStripes) {
+            evictIdle(stripe, now);
+        }
+        for (ConcurrentHashMap<String, AtomicLong> stripe : accountStripes) {
+            evictIdle(stripe, now);
+        }
+    }
+
+    // A bucket whose refill time has passed is full, which is the same as not having one
+    private static void evictIdle(ConcurrentHashMap<String, AtomicLong> stripe, long now) {
+        stripe.values().removeIf(bucket -> bucket.get() - now <= 0);
+    }
+
+    /**
+     * Drops the quarter of the stripe that is closest to full. Those buckets lose the least state by
+     * being forgotten, while the ones under attack (furthest from full) are the last to go. Freeing a
+     * quarter at a time keeps the sort off the path of most inserts.
+     */
+    private static void evictNearlyFull(ConcurrentHashMap<String, AtomicLong> stripe, long now) {
+        // Relative to now, as nanoTime values are only comparable by difference
+        long[] untilFull = stripe.values().stream().mapToLong(bucket -> bucket.get() - now).sorted().toArray();
+        if (untilFull.length == 0) {
+            return;
+        }
+        long cutoff = untilFull[untilFull.length / 4];
+        stripe.values().removeIf(bucket -> bucket.get() - now <= cutoff);
+    }
+}
@@ -0,0 +1,32 @@
+package com.cooktodor.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.cooktodor.config.security.AuthenticatedUser;
+import com.cooktodor.dto.BroadcastDtos;
+import com.cooktodor.service.BroadcastService;
+
+@RestController
+@RequestMapping("/api/admin/broadcasts")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminBroadcastController {
+
+    @Autowired
+    private BroadcastService broadcastService;
+
+    /**
+     * Send a notification to every user of targetRole, or to everyone when targetRole is omitted
+     */
+    @PostMapping
+    public ResponseEntity<BroadcastDtos.BroadcastResponse> createBroadcast(
+            @RequestBody BroadcastDtos.CreateBroadcastRequest request) {
+        AuthenticatedUser admin = AuthenticatedUser.requireCurrent();
+        return ResponseEntity.ok(broadcastService.createBroadcast(admin.getUserId(), request));
+    }
+}
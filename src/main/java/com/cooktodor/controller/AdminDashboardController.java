@@ -1,5 +1,9 @@
 package com.cooktodor.controller;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -7,6 +11,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.cooktodor.config.ResilientHttpInterceptor;
 import com.cooktodor.dto.DashboardStatsDto;
 import com.cooktodor.service.DashboardService;
 
@@ -18,6 +23,9 @@ public class AdminDashboardController {
     @Autowired
     private DashboardService dashboardService;
 
+    @Autowired
+    private List<ResilientHttpInterceptor> gatewayClients;
+
     /**
      * Get comprehensive dashboard statistics for admin panel
      * 
@@ -28,5 +36,16 @@ public class AdminDashboardController {
         DashboardStatsDto stats = dashboardService.getDashboardStats();
         return ResponseEntity.ok(stats);
     }
-}
 
+    /**
+     * Call counters, latency and circuit state of the payment gateway clients since startup
+     */
+    @GetMapping("/payment-gateway")
+    public ResponseEntity<Map<String, Object>> getPaymentGatewayStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (ResilientHttpInterceptor client : gatewayClients) {
+            stats.put(client.getName(), client.snapshot());
+        }
+        return ResponseEntity.ok(stats);
+    }
+}
@@ -0,0 +1,30 @@
+package com.cooktodor.controller;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.cooktodor.service.ImageMigrationService;
+
+@RestController
+@RequestMapping("/api/admin/images")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminImageController {
+
+    @Autowired
+    private ImageMigrationService imageMigrationService;
+
+    /**
+     * Move images still stored as base64 in the database into the blob store
+     */
+    @PostMapping("/migrate-to-blob-store")
+    public ResponseEntity<Map<String, Integer>> migrateToBlobStore() {
+        int migrated = imageMigrationService.migrateInlineImages();
+        return ResponseEntity.ok(Map.of("migrated", migrated));
+    }
+}
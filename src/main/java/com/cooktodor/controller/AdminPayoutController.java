@@ -7,8 +7,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -17,10 +15,8 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.cooktodor.config.security.AuthenticatedUser;
 import com.cooktodor.dto.PayoutDtos;
-import com.cooktodor.exception.ResourceNotFoundException;
-import com.cooktodor.model.User;
-import com.cooktodor.repository.UserRepository;
 import com.cooktodor.service.PayoutService;
 
 @RestController
@@ -31,9 +27,6 @@ public class AdminPayoutController {
     @Autowired
     private PayoutService payoutService;
 
-    @Autowired
-    private UserRepository userRepository;
-
     @GetMapping("/providers")
     public ResponseEntity<List<PayoutDtos.ProviderPayoutDto>> getProvidersWithPendingAmounts() {
         return ResponseEntity.ok(payoutService.getProvidersWithPendingAmounts());
@@ -50,9 +43,7 @@ public class AdminPayoutController {
             @RequestBody PayoutDtos.ProcessPayoutRequest request) {
         
         // Get current admin user
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        User admin = userRepository.findByUsername(auth.getName())
-            .orElseThrow(() -> new ResourceNotFoundException("Admin user not found"));
+        AuthenticatedUser admin = AuthenticatedUser.requireCurrent();
         
         // Default to CASH if payment method not specified
         String paymentMethod = request.getPaymentMethod() != null ? 
@@ -62,7 +53,7 @@ public class AdminPayoutController {
             providerId, 
             request.getAmount(), 
             paymentMethod,
-            admin.getId()
+            admin.getUserId()
         );
         
         return ResponseEntity.ok(response);
@@ -78,4 +69,3 @@ public class AdminPayoutController {
     }
 }
 
-
@@ -1,11 +1,15 @@
 package com.cooktodor.controller;
 
+import com.cooktodor.config.security.AuthenticatedUser;
 import com.cooktodor.config.security.JwtUtil;
+import com.cooktodor.config.security.RateLimiter;
 import com.cooktodor.dto.PasswordResetDtos;
 import com.cooktodor.enums.Role;
 import com.cooktodor.exception.ResourceAlreadyExistsException;
 import com.cooktodor.model.User;
+import com.cooktodor.service.CustomUserDetailsService;
 import com.cooktodor.service.PasswordResetService;
+import com.cooktodor.service.TokenRevocationService;
 import com.cooktodor.service.UserService;
 import com.cooktodor.service.TiffinProviderService;
 import com.cooktodor.service.CustomerService;
@@ -13,6 +17,8 @@ import com.cooktodor.repository.TiffinProviderRepository;
 import com.cooktodor.repository.CustomerRepository;
 import com.cooktodor.repository.UserRepository;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,8 +27,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
@@ -41,7 +45,7 @@ public class AuthController {
     private AuthenticationManager authenticationManager;
 
     @Autowired
-    private UserDetailsService userDetailsService;
+    private CustomUserDetailsService userDetailsService;
 
     @Autowired
     private JwtUtil jwtUtil;
@@ -70,22 +74,30 @@ public class AuthController {
     @Autowired
     private PasswordResetService passwordResetService;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
     @PostMapping("/login")
     public ResponseEntity<Map<String, Object>> login(@RequestBody Map<String, String> loginRequest) {
         String username = loginRequest.get("username");
         String password = loginRequest.get("password");
+        // Before BCrypt runs
+        rateLimiter.checkAccount("login", username);
 
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(username, password)
         );
 
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-        String token = jwtUtil.generateToken(userDetails);
-        String refreshToken = jwtUtil.generateRefreshToken(userDetails);
+        // Token carries user id, role and profile id so later requests need no identity lookups
+        AuthenticatedUser principal = userDetailsService.loadPrincipalWithProfile(username);
+        String token = jwtUtil.generateToken(principal);
+        String refreshToken = jwtUtil.generateRefreshToken(principal);
 
         // Get role and format it for client (Android expects "Provider" not "ROLE_PROVIDER")
-        User user = userService.getUserDetailsByUsername(username);
-        Role userRole = user.getRole();
+        Role userRole = principal.getRole();
         String roleString = formatRoleForClient(userRole);
 
         Map<String, Object> response = new HashMap<>();
@@ -93,11 +105,42 @@ public class AuthController {
         response.put("refreshToken", refreshToken);
         response.put("username", username);
         response.put("role", roleString);
-        response.put("userId", user.getId()); // Include userId in login response
+        response.put("userId", principal.getUserId()); // Include userId in login response
 
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Logout - revokes the access token, and the refresh token when one is sent
+     * POST /api/auth/logout
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Map<String, Object>> logout(
+            AuthenticatedUser principal,
+            @RequestHeader("Authorization") String authHeader,
+            @RequestBody(required = false) Map<String, String> logoutRequest) {
+        Claims claims = jwtUtil.parseToken(authHeader.substring(7));
+        tokenRevocationService.revoke(claims.getId(), principal.getUserId(), claims.getExpiration());
+
+        String refreshToken = logoutRequest != null ? logoutRequest.get("refreshToken") : null;
+        if (refreshToken != null && !refreshToken.isBlank()) {
+            try {
+                Claims refreshClaims = jwtUtil.parseToken(refreshToken);
+                // Only the caller's own refresh token can be revoked here
+                if (principal.getUsername().equals(refreshClaims.getSubject())) {
+                    tokenRevocationService.revoke(refreshClaims.getId(), principal.getUserId(), refreshClaims.getExpiration());
+                }
+            } catch (JwtException e) {
+                // Expired or invalid refresh token - nothing to revoke
+            }
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Logged out successfully");
+        response.put("success", true);
+        return ResponseEntity.ok(response);
+    }
+
     @Transactional
     @PostMapping("/signup")
     public ResponseEntity<Map<String, Object>> signup(@RequestBody Map<String, String> signupRequest) {
@@ -166,6 +209,7 @@ public class AuthController {
     public ResponseEntity<Map<String, Object>> forgotPassword(
             @RequestBody PasswordResetDtos.ForgotPasswordRequest request) {
         
+        rateLimiter.checkAccount("forgot-password", accountKey(request.getUsername(), request.getEmail()));
         try {
             // Validate that at least one field is provided
             String username = request.getUsername();
@@ -206,6 +250,7 @@ public class AuthController {
     public ResponseEntity<Map<String, Object>> resendOtp(
             @RequestBody PasswordResetDtos.ResendOtpRequest request) {
         
+        rateLimiter.checkAccount("resend-otp", accountKey(request.getUsername(), request.getEmail()));
         try {
             // Validate that at least one field is provided
             String username = request.getUsername();
@@ -245,6 +290,7 @@ public class AuthController {
     public ResponseEntity<Map<String, Object>> verifyOtp(
             @RequestBody PasswordResetDtos.VerifyOtpRequest request) {
         
+        rateLimiter.checkAccount("verify-otp", accountKey(request.getUsername(), request.getEmail()));
         try {
             String username = request.getUsername();
             String email = request.getEmail();
@@ -292,6 +338,8 @@ public class AuthController {
     public ResponseEntity<Map<String, Object>> resetPassword(
             @RequestBody PasswordResetDtos.ResetPasswordRequest request) {
         
+        // Also checks the OTP, so it shares the OTP endpoints' protection against guessing
+        rateLimiter.checkAccount("reset-password", accountKey(request.getUsername(), request.getEmail()));
         try {
             String username = request.getUsername();
             String email = request.getEmail();
@@ -373,6 +421,16 @@ public class AuthController {
         }
     }
 
+    /**
+     * Rate limit key for endpoints that accept either username or email
+     */
+    private String accountKey(String username, String email) {
+        if (email != null && !email.trim().isEmpty()) {
+            return email;
+        }
+        return username;
+    }
+
     /**
      * Format Role enum to client-friendly string format
      * Converts ROLE_PROVIDER → "Provider", ROLE_CUSTOMER → "Customer", etc.
@@ -3,8 +3,6 @@ package com.cooktodor.controller;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -14,12 +12,11 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.cooktodor.config.security.AuthenticatedUser;
 import com.cooktodor.dto.CartDtos;
 import com.cooktodor.exception.ResourceNotFoundException;
 import com.cooktodor.model.Customer;
-import com.cooktodor.model.User;
 import com.cooktodor.repository.CustomerRepository;
-import com.cooktodor.repository.UserRepository;
 import com.cooktodor.service.CartService;
 
 @RestController
@@ -30,18 +27,16 @@ public class CartController {
     @Autowired
     private CartService cartService;
 
-    @Autowired
-    private UserRepository userRepository;
-
     @Autowired
     private CustomerRepository customerRepository;
 
     private Customer getCurrentCustomer() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = auth.getName();
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
-        return customerRepository.findByUser_IdAndIsDeletedFalse(user.getId())
+        AuthenticatedUser principal = AuthenticatedUser.requireCurrent();
+        if (principal.getCustomerId() != null) {
+            // Id from the token; nothing is loaded unless other fields are read
+            return customerRepository.getReferenceById(principal.getCustomerId());
+        }
+        return customerRepository.findByUser_IdAndIsDeletedFalse(principal.getUserId())
                 .orElseThrow(() -> new ResourceNotFoundException("Customer profile not found for user"));
     }
 
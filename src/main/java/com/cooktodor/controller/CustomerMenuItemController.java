@@ -1,7 +1,9 @@
 package com.cooktodor.controller;
 
 import java.util.DoubleSummaryStatistics;
-import java.util.Optional;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -9,8 +11,6 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -18,15 +18,17 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.cooktodor.config.security.AuthenticatedUser;
+import com.cooktodor.dto.ImageDtos;
 import com.cooktodor.dto.MenuItemDtos;
+import com.cooktodor.enums.ImageType;
 import com.cooktodor.enums.MealType;
-import com.cooktodor.exception.ResourceNotFoundException;
 import com.cooktodor.model.Customer;
 import com.cooktodor.model.MenuItem;
 import com.cooktodor.model.RatingReview;
 import com.cooktodor.model.User;
 import com.cooktodor.repository.CustomerRepository;
-import com.cooktodor.repository.UserRepository;
+import com.cooktodor.service.ImageService;
 import com.cooktodor.service.MenuItemService;
 import com.cooktodor.service.RatingReviewService;
 
@@ -41,21 +43,24 @@ public class CustomerMenuItemController {
     private RatingReviewService ratingReviewService;
 
     @Autowired
-    private UserRepository userRepository;
+    private CustomerRepository customerRepository;
 
     @Autowired
-    private CustomerRepository customerRepository;
+    private ImageService imageService;
 
     /**
      * Get all available menu items with pagination
-     * Query params: page (default 0), size (default 20), sort (default "id,asc")
+     * Query params: page (default 0), size (default 20), sort (default "id,asc"), lean (default false)
+     * lean=true returns image references (id, url, dimensions) instead of embedded base64 data;
+     * all listing endpoints below accept it
      */
     @GetMapping
     @Transactional(readOnly = true)
     public ResponseEntity<MenuItemDtos.PaginatedResponse<MenuItemDtos.CustomerResponse>> getAllMenuItems(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
-            @RequestParam(defaultValue = "id,asc") String sort) {
+            @RequestParam(defaultValue = "id,asc") String sort,
+            @RequestParam(defaultValue = "false") boolean lean) {
         
         String[] sortParams = sort.split(",");
         Sort.Direction direction = sortParams.length > 1 && "desc".equalsIgnoreCase(sortParams[1]) 
@@ -64,9 +69,9 @@ public class CustomerMenuItemController {
         Sort sortObj = Sort.by(direction, sortParams[0]);
         
         Pageable pageable = PageRequest.of(page, size, sortObj);
-        Page<MenuItem> menuItemsPage = menuItemService.getAvailableMenuItems(pageable);
+        Page<MenuItem> menuItemsPage = menuItemService.getAvailableMenuItems(pageable, !lean);
         
-        Page<MenuItemDtos.CustomerResponse> responsePage = menuItemsPage.map(this::toCustomerResponse);
+        Page<MenuItemDtos.CustomerResponse> responsePage = toCustomerResponsePage(menuItemsPage, lean);
         MenuItemDtos.PaginatedResponse<MenuItemDtos.CustomerResponse> paginatedResponse = 
             new MenuItemDtos.PaginatedResponse<>(responsePage);
         return ResponseEntity.ok(paginatedResponse);
@@ -81,7 +86,8 @@ public class CustomerMenuItemController {
             @PathVariable Long providerId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
-            @RequestParam(defaultValue = "id,asc") String sort) {
+            @RequestParam(defaultValue = "id,asc") String sort,
+            @RequestParam(defaultValue = "false") boolean lean) {
         
         String[] sortParams = sort.split(",");
         Sort.Direction direction = sortParams.length > 1 && "desc".equalsIgnoreCase(sortParams[1]) 
@@ -90,9 +96,9 @@ public class CustomerMenuItemController {
         Sort sortObj = Sort.by(direction, sortParams[0]);
         
         Pageable pageable = PageRequest.of(page, size, sortObj);
-        Page<MenuItem> menuItemsPage = menuItemService.getAvailableMenuItemsByProvider(providerId, pageable);
+        Page<MenuItem> menuItemsPage = menuItemService.getAvailableMenuItemsByProvider(providerId, pageable, !lean);
         
-        Page<MenuItemDtos.CustomerResponse> responsePage = menuItemsPage.map(this::toCustomerResponse);
+        Page<MenuItemDtos.CustomerResponse> responsePage = toCustomerResponsePage(menuItemsPage, lean);
         MenuItemDtos.PaginatedResponse<MenuItemDtos.CustomerResponse> paginatedResponse = 
             new MenuItemDtos.PaginatedResponse<>(responsePage);
         return ResponseEntity.ok(paginatedResponse);
@@ -107,7 +113,8 @@ public class CustomerMenuItemController {
             @PathVariable Long categoryId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
-            @RequestParam(defaultValue = "id,asc") String sort) {
+            @RequestParam(defaultValue = "id,asc") String sort,
+            @RequestParam(defaultValue = "false") boolean lean) {
         
         String[] sortParams = sort.split(",");
         Sort.Direction direction = sortParams.length > 1 && "desc".equalsIgnoreCase(sortParams[1]) 
@@ -116,9 +123,9 @@ public class CustomerMenuItemController {
         Sort sortObj = Sort.by(direction, sortParams[0]);
         
         Pageable pageable = PageRequest.of(page, size, sortObj);
-        Page<MenuItem> menuItemsPage = menuItemService.getAvailableMenuItemsByCategory(categoryId, pageable);
+        Page<MenuItem> menuItemsPage = menuItemService.getAvailableMenuItemsByCategory(categoryId, pageable, !lean);
         
-        Page<MenuItemDtos.CustomerResponse> responsePage = menuItemsPage.map(this::toCustomerResponse);
+        Page<MenuItemDtos.CustomerResponse> responsePage = toCustomerResponsePage(menuItemsPage, lean);
         MenuItemDtos.PaginatedResponse<MenuItemDtos.CustomerResponse> paginatedResponse = 
             new MenuItemDtos.PaginatedResponse<>(responsePage);
         return ResponseEntity.ok(paginatedResponse);
@@ -133,7 +140,8 @@ public class CustomerMenuItemController {
             @PathVariable MealType mealType,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
-            @RequestParam(defaultValue = "id,asc") String sort) {
+            @RequestParam(defaultValue = "id,asc") String sort,
+            @RequestParam(defaultValue = "false") boolean lean) {
         
         String[] sortParams = sort.split(",");
         Sort.Direction direction = sortParams.length > 1 && "desc".equalsIgnoreCase(sortParams[1]) 
@@ -142,9 +150,9 @@ public class CustomerMenuItemController {
         Sort sortObj = Sort.by(direction, sortParams[0]);
         
         Pageable pageable = PageRequest.of(page, size, sortObj);
-        Page<MenuItem> menuItemsPage = menuItemService.getAvailableMenuItemsByMealType(mealType, pageable);
+        Page<MenuItem> menuItemsPage = menuItemService.getAvailableMenuItemsByMealType(mealType, pageable, !lean);
         
-        Page<MenuItemDtos.CustomerResponse> responsePage = menuItemsPage.map(this::toCustomerResponse);
+        Page<MenuItemDtos.CustomerResponse> responsePage = toCustomerResponsePage(menuItemsPage, lean);
         MenuItemDtos.PaginatedResponse<MenuItemDtos.CustomerResponse> paginatedResponse = 
             new MenuItemDtos.PaginatedResponse<>(responsePage);
         return ResponseEntity.ok(paginatedResponse);
@@ -159,7 +167,8 @@ public class CustomerMenuItemController {
             @RequestParam String q,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
-            @RequestParam(defaultValue = "id,asc") String sort) {
+            @RequestParam(defaultValue = "id,asc") String sort,
+            @RequestParam(defaultValue = "false") boolean lean) {
         
         String[] sortParams = sort.split(",");
         Sort.Direction direction = sortParams.length > 1 && "desc".equalsIgnoreCase(sortParams[1]) 
@@ -168,9 +177,9 @@ public class CustomerMenuItemController {
         Sort sortObj = Sort.by(direction, sortParams[0]);
         
         Pageable pageable = PageRequest.of(page, size, sortObj);
-        Page<MenuItem> menuItemsPage = menuItemService.searchAvailableMenuItems(q, pageable);
+        Page<MenuItem> menuItemsPage = menuItemService.searchAvailableMenuItems(q, pageable, !lean);
         
-        Page<MenuItemDtos.CustomerResponse> responsePage = menuItemsPage.map(this::toCustomerResponse);
+        Page<MenuItemDtos.CustomerResponse> responsePage = toCustomerResponsePage(menuItemsPage, lean);
         MenuItemDtos.PaginatedResponse<MenuItemDtos.CustomerResponse> paginatedResponse = 
             new MenuItemDtos.PaginatedResponse<>(responsePage);
         return ResponseEntity.ok(paginatedResponse);
@@ -186,7 +195,8 @@ public class CustomerMenuItemController {
             @PathVariable Long categoryId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
-            @RequestParam(defaultValue = "id,asc") String sort) {
+            @RequestParam(defaultValue = "id,asc") String sort,
+            @RequestParam(defaultValue = "false") boolean lean) {
         
         String[] sortParams = sort.split(",");
         Sort.Direction direction = sortParams.length > 1 && "desc".equalsIgnoreCase(sortParams[1]) 
@@ -196,9 +206,9 @@ public class CustomerMenuItemController {
         
         Pageable pageable = PageRequest.of(page, size, sortObj);
         Page<MenuItem> menuItemsPage = menuItemService.getAvailableMenuItemsByProviderAndCategory(
-                providerId, categoryId, pageable);
+                providerId, categoryId, pageable, !lean);
         
-        Page<MenuItemDtos.CustomerResponse> responsePage = menuItemsPage.map(this::toCustomerResponse);
+        Page<MenuItemDtos.CustomerResponse> responsePage = toCustomerResponsePage(menuItemsPage, lean);
         MenuItemDtos.PaginatedResponse<MenuItemDtos.CustomerResponse> paginatedResponse = 
             new MenuItemDtos.PaginatedResponse<>(responsePage);
         return ResponseEntity.ok(paginatedResponse);
@@ -209,15 +219,60 @@ public class CustomerMenuItemController {
      */
     @GetMapping("/{id}")
     @Transactional(readOnly = true)
-    public ResponseEntity<MenuItemDtos.CustomerResponse> getMenuItemById(@PathVariable Long id) {
-        MenuItem menuItem = menuItemService.getAvailableMenuItemById(id);
-        return ResponseEntity.ok(toCustomerResponse(menuItem));
+    public ResponseEntity<MenuItemDtos.CustomerResponse> getMenuItemById(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "false") boolean lean) {
+        MenuItem menuItem = menuItemService.getAvailableMenuItemById(id, !lean);
+        List<Long> itemIds = List.of(menuItem.getId());
+        Set<Long> ratedItemIds = ratingReviewService.getCustomerRatedItemIds(getCurrentCustomerId(), itemIds);
+        Map<Long, List<ImageDtos.ImageRef>> imageRefs = lean
+            ? imageService.getImageRefs(ImageType.PRODUCT, itemIds)
+            : null;
+        return ResponseEntity.ok(toCustomerResponse(menuItem, ratedItemIds, imageRefs));
+    }
+
+    /**
+     * Convert a page of MenuItem entities to CustomerResponse DTOs.
+     * The current customer and their ratings for the page are resolved once, not per item.
+     * In lean mode the page's image references are fetched in one query without image data.
+     */
+    private Page<MenuItemDtos.CustomerResponse> toCustomerResponsePage(Page<MenuItem> menuItemsPage, boolean lean) {
+        List<Long> itemIds = menuItemsPage.getContent().stream()
+            .map(MenuItem::getId)
+            .toList();
+        Set<Long> ratedItemIds = itemIds.isEmpty()
+            ? Set.of()
+            : ratingReviewService.getCustomerRatedItemIds(getCurrentCustomerId(), itemIds);
+        Map<Long, List<ImageDtos.ImageRef>> imageRefs = lean
+            ? imageService.getImageRefs(ImageType.PRODUCT, itemIds)
+            : null;
+        return menuItemsPage.map(item -> toCustomerResponse(item, ratedItemIds, imageRefs));
+    }
+
+    /**
+     * Resolve the customer id of the authenticated user, or null for anonymous / non-customer users
+     */
+    private Long getCurrentCustomerId() {
+        try {
+            AuthenticatedUser principal = AuthenticatedUser.current();
+            if (principal == null) {
+                return null;
+            }
+            // Get customer from user using repository (User doesn't have direct Customer reference)
+            return customerRepository.findByUser_IdAndIsDeletedFalse(principal.getUserId())
+                .map(Customer::getId)
+                .orElse(null);
+        } catch (Exception e) {
+            // Not authenticated or error - treat as anonymous
+            return null;
+        }
     }
 
     /**
      * Convert MenuItem entity to CustomerResponse DTO
      */
-    private MenuItemDtos.CustomerResponse toCustomerResponse(MenuItem item) {
+    private MenuItemDtos.CustomerResponse toCustomerResponse(MenuItem item, Set<Long> ratedItemIds,
+            Map<Long, List<ImageDtos.ImageRef>> imageRefs) {
         MenuItemDtos.CustomerResponse response = new MenuItemDtos.CustomerResponse();
         response.setId(item.getId());
         response.setItemName(item.getItemName());
@@ -241,8 +296,11 @@ public class CustomerMenuItemController {
             }
         }
         
-        // Map images to base64 lists - access base64Data within transaction
-        if (item.getImages() != null && !item.getImages().isEmpty()) {
+        if (imageRefs != null) {
+            // Lean mode: image references only, clients load bytes from /images/view/{id}
+            response.setImages(imageRefs.getOrDefault(item.getId(), List.of()));
+        } else if (item.getImages() != null && !item.getImages().isEmpty()) {
+            // Map images to base64 lists - access base64Data within transaction
             java.util.List<String> base64List = new java.util.ArrayList<>();
             java.util.List<String> fileTypeList = new java.util.ArrayList<>();
             
@@ -272,34 +330,8 @@ public class CustomerMenuItemController {
             response.setRatingCount(0L);
         }
         
-        // Check if current user has rated (if authenticated)
-        try {
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            if (auth != null && auth.isAuthenticated() && !"anonymousUser".equals(auth.getName())) {
-                String username = auth.getName();
-                Optional<User> userOpt = userRepository.findByUsername(username);
-                if (userOpt.isPresent()) {
-                    User user = userOpt.get();
-                    // Get customer from user using repository (User doesn't have direct Customer reference)
-                    Optional<Customer> customerOpt = customerRepository.findByUser_IdAndIsDeletedFalse(user.getId());
-                    if (customerOpt.isPresent()) {
-                        Customer customer = customerOpt.get();
-                        Optional<RatingReview> userRating = ratingReviewService
-                            .getCustomerRatingForItem(customer.getId(), item.getId());
-                        response.setHasUserRated(userRating.isPresent());
-                    } else {
-                        response.setHasUserRated(false);
-                    }
-                } else {
-                    response.setHasUserRated(false);
-                }
-            } else {
-                response.setHasUserRated(false);
-            }
-        } catch (Exception e) {
-            // Not authenticated or error - set to false
-            response.setHasUserRated(false);
-        }
+        // Check if current user has rated (resolved once for the whole page)
+        response.setHasUserRated(ratedItemIds.contains(item.getId()));
         
         return response;
     }
@@ -6,8 +6,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -17,6 +15,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.cooktodor.config.security.AuthenticatedUser;
 import com.cooktodor.dto.DeliveryPartnerDtos;
 import com.cooktodor.enums.Role;
 import com.cooktodor.exception.ForbiddenException;
@@ -56,7 +55,7 @@ public class DeliveryPartnerCrudController {
     @Transactional
     public ResponseEntity<DeliveryPartnerDtos.Response> create(@RequestBody DeliveryPartnerDtos.CreateRequest req) {
         User currentUser = getCurrentUser();
-        Role currentRole = currentUser.getRole();
+        Role currentRole = AuthenticatedUser.requireCurrent().getRole();
         
         // Step 1: Validate and create User account for delivery partner
         validateUserCredentials(req.getUsername(), req.getEmail());
@@ -122,7 +121,7 @@ public class DeliveryPartnerCrudController {
     @PreAuthorize("hasAnyRole('ADMIN','DELIVERY_PARTNER','PROVIDER')")
     public ResponseEntity<DeliveryPartnerDtos.Response> update(@PathVariable Long id, @RequestBody DeliveryPartnerDtos.UpdateRequest req) {
         User currentUser = getCurrentUser();
-        Role currentRole = currentUser.getRole();
+        Role currentRole = AuthenticatedUser.requireCurrent().getRole();
         
         DeliveryPartner u = new DeliveryPartner();
         u.setFullName(req.getFullName());
@@ -161,7 +160,7 @@ public class DeliveryPartnerCrudController {
     @PreAuthorize("hasAnyRole('ADMIN','PROVIDER','DELIVERY_PARTNER')")
     public ResponseEntity<List<DeliveryPartnerDtos.Response>> list() {
         User currentUser = getCurrentUser();
-        Role currentRole = currentUser.getRole();
+        Role currentRole = AuthenticatedUser.requireCurrent().getRole();
         
         List<DeliveryPartner> partners;
         
@@ -190,7 +189,7 @@ public class DeliveryPartnerCrudController {
     @PreAuthorize("hasAnyRole('ADMIN','PROVIDER','DELIVERY_PARTNER')")
     public ResponseEntity<DeliveryPartnerDtos.Response> getById(@PathVariable Long id) {
         User currentUser = getCurrentUser();
-        Role currentRole = currentUser.getRole();
+        Role currentRole = AuthenticatedUser.requireCurrent().getRole();
         
         DeliveryPartner partner = service.getById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Delivery partner not found with id " + id));
@@ -218,7 +217,7 @@ public class DeliveryPartnerCrudController {
     @PreAuthorize("hasAnyRole('ADMIN','PROVIDER')")
     public ResponseEntity<Void> delete(@PathVariable Long id) {
         User currentUser = getCurrentUser();
-        Role currentRole = currentUser.getRole();
+        Role currentRole = AuthenticatedUser.requireCurrent().getRole();
         
         Long providerId = null;
         
@@ -247,10 +246,8 @@ public class DeliveryPartnerCrudController {
     }
     
     private User getCurrentUser() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = auth.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
+        // The principal carries the id; the reference is only loaded if other fields are read
+        return userRepository.getReferenceById(AuthenticatedUser.requireCurrent().getUserId());
     }
     
     private TiffinProvider getCurrentProvider() {
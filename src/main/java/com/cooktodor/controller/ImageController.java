@@ -1,16 +1,26 @@
 package com.cooktodor.controller;
 
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.cooktodor.dto.ImageDtos;
 import com.cooktodor.enums.ImageType;
+import com.cooktodor.enums.ImageVariant;
+import com.cooktodor.exception.BadRequestException;
 import com.cooktodor.model.Image;
 import com.cooktodor.service.ImageService;
 import com.cooktodor.utils.ImageResponse;
@@ -19,6 +29,10 @@ import com.cooktodor.utils.ImageResponse;
 @RequestMapping("/images")
 public class ImageController {
 
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    private static final int MAX_REF_OWNERS = 500;
+
     private final ImageService imageService;
 
     public ImageController(ImageService imageService) {
@@ -34,17 +48,74 @@ public class ImageController {
         return ResponseEntity.ok(imageService.saveImage(file, imageType, ownerId));
     }
 
+    /**
+     * Optional variant=thumb|card|full picks a resized JPEG; the original is served until it has been generated
+     */
     @GetMapping("/view/{id}")
-    public ResponseEntity<byte[]> viewImage(@PathVariable Long id) {
-        ImageResponse imageResponse = imageService.getImage(id);
+    public ResponseEntity<Resource> viewImage(
+            @PathVariable Long id,
+            @RequestParam(value = "variant", required = false) String variant,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        ImageVariant imageVariant = ImageVariant.fromParam(variant);
+        if (variant != null && imageVariant == null) {
+            throw new BadRequestException("Unknown image variant: " + variant);
+        }
+
+        // Revalidation of an image we have served before: answer from the hash cache, no DB or disk access
+        if (ifNoneMatch != null) {
+            String cachedHash = imageService.getCachedContentHash(id, imageVariant);
+            if (cachedHash != null && etagMatches(ifNoneMatch, cachedHash)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(cachedHash)
+                        .header(HttpHeaders.CACHE_CONTROL, IMMUTABLE_CACHE_CONTROL)
+                        .build();
+            }
+        }
+
+        ImageResponse imageResponse = imageService.getImage(id, imageVariant);
         MediaType mediaType;
         try {
             mediaType = MediaType.parseMediaType(imageResponse.getFileType());
         } catch (Exception e) {
             mediaType = MediaType.APPLICATION_OCTET_STREAM;
         }
+        // Spring answers 304 itself when the ETag matches If-None-Match
         return ResponseEntity.ok()
                 .contentType(mediaType)
-                .body(imageResponse.getData());
+                .eTag(imageResponse.getContentHash())
+                .header(HttpHeaders.CACHE_CONTROL,
+                        imageResponse.isImmutable() ? IMMUTABLE_CACHE_CONTROL : "no-cache")
+                .body(imageResponse.getResource());
+    }
+
+    /**
+     * Resolve image references for a whole list of owners in one call,
+     * e.g. GET /images/refs?imageType=PRODUCT&ownerIds=1,2,3 -> { "1": [...], "3": [...] }
+     * Owners without images are omitted.
+     */
+    @GetMapping("/refs")
+    public ResponseEntity<Map<Long, List<ImageDtos.ImageRef>>> getImageRefs(
+            @RequestParam("imageType") ImageType imageType,
+            @RequestParam("ownerIds") List<Long> ownerIds) {
+        if (ownerIds.size() > MAX_REF_OWNERS) {
+            throw new BadRequestException("At most " + MAX_REF_OWNERS + " owner ids can be resolved per request");
+        }
+        return ResponseEntity.ok(imageService.getImageRefs(imageType, ownerIds));
+    }
+
+    private static boolean etagMatches(String ifNoneMatch, String contentHash) {
+        if ("*".equals(ifNoneMatch.trim())) {
+            return true;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String value = tag.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("\"" + contentHash + "\"")) {
+                return true;
+            }
+        }
+        return false;
     }
 }
\ No newline at end of file
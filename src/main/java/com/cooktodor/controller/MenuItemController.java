@@ -6,8 +6,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -22,6 +20,7 @@ import org.springframework.web.multipart.MultipartFile;
 import org.springframework.transaction.annotation.Transactional;
 import jakarta.validation.Valid;
 
+import com.cooktodor.config.security.AuthenticatedUser;
 import com.cooktodor.dto.MenuItemDtos;
 import com.cooktodor.enums.ImageType;
 import com.cooktodor.exception.BadRequestException;
@@ -58,10 +57,8 @@ public class MenuItemController {
     private MenuItemService menuItemService;
 
     private User currentUser() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = auth.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
+        // The principal carries the id; the reference is only loaded if other fields are read
+        return userRepository.getReferenceById(AuthenticatedUser.requireCurrent().getUserId());
     }
 
     private TiffinProvider currentProviderOrThrow() {
@@ -1,14 +1,15 @@
 package com.cooktodor.controller;
 
+import com.cooktodor.config.security.AuthenticatedUser;
+import com.cooktodor.dto.BroadcastDtos;
 import com.cooktodor.model.Notification;
 import com.cooktodor.model.User;
 import com.cooktodor.repository.UserRepository;
+import com.cooktodor.service.BroadcastService;
 import com.cooktodor.service.NotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
@@ -23,6 +24,9 @@ public class NotificationController {
     @Autowired
     private NotificationService notificationService;
     
+    @Autowired
+    private BroadcastService broadcastService;
+    
     @Autowired
     private UserRepository userRepository;
     
@@ -41,6 +45,22 @@ public class NotificationController {
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * Cursor-paginated feed, newest first. Pass the returned nextCursor to get the following page.
+     */
+    @GetMapping("/notifications/feed")
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'PROVIDER', 'DELIVERY', 'ADMIN')")
+    @Transactional(readOnly = true)
+    public ResponseEntity<Map<String, Object>> getNotificationFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        User user = getCurrentUser();
+        int pageSize = Math.max(1, Math.min(limit, 100));
+        Map<String, Object> response = notificationService.getNotificationFeed(user.getId(), cursor, pageSize);
+        response.put("unreadCount", notificationService.getUnreadCount(user.getId()));
+        return ResponseEntity.ok(response);
+    }
+    
     @PutMapping("/notifications/{id}/read")
     @PreAuthorize("hasAnyRole('CUSTOMER', 'PROVIDER', 'DELIVERY', 'ADMIN')")
     public ResponseEntity<Map<String, String>> markAsRead(@PathVariable Long id) {
@@ -63,14 +83,35 @@ public class NotificationController {
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * Recent broadcasts addressed to the current user's role, with their read state
+     */
+    @GetMapping("/notifications/broadcasts")
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'PROVIDER', 'DELIVERY', 'ADMIN')")
+    public ResponseEntity<List<BroadcastDtos.BroadcastResponse>> getBroadcasts(
+            @RequestParam(defaultValue = "50") int limit) {
+        AuthenticatedUser principal = AuthenticatedUser.requireCurrent();
+        int pageSize = Math.max(1, Math.min(limit, 100));
+        return ResponseEntity.ok(broadcastService.getBroadcastsForUser(principal.getUserId(), principal.getRole(), pageSize));
+    }
+    
+    @PutMapping("/notifications/broadcasts/{id}/read")
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'PROVIDER', 'DELIVERY', 'ADMIN')")
+    public ResponseEntity<Map<String, String>> markBroadcastAsRead(@PathVariable Long id) {
+        AuthenticatedUser principal = AuthenticatedUser.requireCurrent();
+        broadcastService.markAsRead(principal.getUserId(), principal.getRole(), id);
+        
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Broadcast marked as read");
+        return ResponseEntity.ok(response);
+    }
+    
     /**
      * Get current user from security context
      */
     private User getCurrentUser() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = auth.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        // The principal carries the id; the reference is only loaded if other fields are read
+        return userRepository.getReferenceById(AuthenticatedUser.requireCurrent().getUserId());
     }
 }
 
@@ -3,13 +3,12 @@ package com.cooktodor.controller;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -19,7 +18,10 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.cooktodor.config.security.AuthenticatedUser;
 import com.cooktodor.dto.OrderDtos;
+import com.cooktodor.enums.OrderStatus;
+import com.cooktodor.enums.OtpPurpose;
 import com.cooktodor.exception.BadRequestException;
 import com.cooktodor.exception.ResourceNotFoundException;
 import com.cooktodor.model.Cart;
@@ -27,12 +29,11 @@ import com.cooktodor.model.Customer;
 import com.cooktodor.model.DeliveryPartner;
 import com.cooktodor.model.Order;
 import com.cooktodor.model.TiffinProvider;
-import com.cooktodor.model.User;
 import com.cooktodor.repository.CustomerRepository;
 import com.cooktodor.repository.DeliveryPartnerRepository;
 import com.cooktodor.repository.TiffinProviderRepository;
-import com.cooktodor.repository.UserRepository;
 import com.cooktodor.service.OrderService;
+import com.cooktodor.service.OtpService;
 
 @RestController
 @RequestMapping("/api")
@@ -42,7 +43,7 @@ public class OrderController {
     private OrderService orderService;
 
     @Autowired
-    private UserRepository userRepository;
+    private OtpService otpService;
 
     @Autowired
     private CustomerRepository customerRepository;
@@ -57,17 +58,17 @@ public class OrderController {
 
     @PostMapping("/customers/orders")
     @PreAuthorize("hasRole('CUSTOMER')")
-    public ResponseEntity<OrderDtos.Response> createOrder(@RequestBody OrderDtos.CreateRequest req) {
-        Customer customer = getCurrentCustomer();
-        Order order = orderService.createOrder(customer.getId(), req);
+    public ResponseEntity<OrderDtos.Response> createOrder(AuthenticatedUser principal, @RequestBody OrderDtos.CreateRequest req) {
+        Long customerId = currentCustomerId(principal);
+        Order order = orderService.createOrder(customerId, req);
         return ResponseEntity.ok(toResponse(order));
     }
 
     @GetMapping("/customers/orders")
     @PreAuthorize("hasRole('CUSTOMER')")
-    public ResponseEntity<List<OrderDtos.Response>> getCustomerOrders() {
-        Customer customer = getCurrentCustomer();
-        List<Order> orders = orderService.getCustomerOrders(customer.getId());
+    public ResponseEntity<List<OrderDtos.Response>> getCustomerOrders(AuthenticatedUser principal) {
+        Long customerId = currentCustomerId(principal);
+        List<Order> orders = orderService.getCustomerOrders(customerId);
         List<OrderDtos.Response> responses = orders.stream()
                 .map(this::toResponse)
                 .collect(Collectors.toList());
@@ -76,17 +77,17 @@ public class OrderController {
 
     @GetMapping("/customers/orders/{id}")
     @PreAuthorize("hasRole('CUSTOMER')")
-    public ResponseEntity<OrderDtos.Response> getCustomerOrder(@PathVariable Long id) {
-        Customer customer = getCurrentCustomer();
-        Order order = orderService.getOrderById(id, customer.getId());
+    public ResponseEntity<OrderDtos.Response> getCustomerOrder(AuthenticatedUser principal, @PathVariable Long id) {
+        Long customerId = currentCustomerId(principal);
+        Order order = orderService.getOrderById(id, customerId);
         return ResponseEntity.ok(toResponse(order));
     }
 
     @PostMapping("/customers/orders/{id}/cancel")
     @PreAuthorize("hasRole('CUSTOMER')")
-    public ResponseEntity<OrderDtos.Response> cancelOrder(@PathVariable Long id) {
-        Customer customer = getCurrentCustomer();
-        Order order = orderService.cancelOrder(id, customer.getId());
+    public ResponseEntity<OrderDtos.Response> cancelOrder(AuthenticatedUser principal, @PathVariable Long id) {
+        Long customerId = currentCustomerId(principal);
+        Order order = orderService.cancelOrder(id, customerId);
         return ResponseEntity.ok(toResponse(order));
     }
 
@@ -94,9 +95,9 @@ public class OrderController {
 
     @GetMapping("/providers/orders")
     @PreAuthorize("hasRole('PROVIDER')")
-    public ResponseEntity<List<OrderDtos.Response>> getProviderOrders() {
-        TiffinProvider provider = getCurrentProvider();
-        List<Order> orders = orderService.getProviderOrders(provider.getId());
+    public ResponseEntity<List<OrderDtos.Response>> getProviderOrders(AuthenticatedUser principal) {
+        Long providerId = currentProviderId(principal);
+        List<Order> orders = orderService.getProviderOrders(providerId);
         List<OrderDtos.Response> responses = orders.stream()
                 .map(this::toResponse)
                 .collect(Collectors.toList());
@@ -105,27 +106,28 @@ public class OrderController {
 
     @GetMapping("/providers/orders/{id}")
     @PreAuthorize("hasRole('PROVIDER')")
-    public ResponseEntity<OrderDtos.Response> getProviderOrder(@PathVariable Long id) {
-        TiffinProvider provider = getCurrentProvider();
-        Order order = orderService.getProviderOrderById(id, provider.getId());
+    public ResponseEntity<OrderDtos.Response> getProviderOrder(AuthenticatedUser principal, @PathVariable Long id) {
+        Long providerId = currentProviderId(principal);
+        Order order = orderService.getProviderOrderById(id, providerId);
         return ResponseEntity.ok(toResponse(order));
     }
 
     @PutMapping("/providers/orders/{id}/status")
     @PreAuthorize("hasRole('PROVIDER')")
     public ResponseEntity<OrderDtos.Response> updateOrderStatus(
+            AuthenticatedUser principal,
             @PathVariable Long id,
             @RequestBody OrderDtos.UpdateStatusRequest req) {
-        TiffinProvider provider = getCurrentProvider();
-        Order order = orderService.updateOrderStatus(id, provider.getId(), req);
+        Long providerId = currentProviderId(principal);
+        Order order = orderService.updateOrderStatus(id, providerId, req);
         return ResponseEntity.ok(toResponse(order));
     }
 
     @PostMapping("/providers/orders/{id}/cancel")
     @PreAuthorize("hasRole('PROVIDER')")
-    public ResponseEntity<OrderDtos.Response> cancelOrderByProvider(@PathVariable Long id) {
-        TiffinProvider provider = getCurrentProvider();
-        Order order = orderService.getProviderOrderById(id, provider.getId());
+    public ResponseEntity<OrderDtos.Response> cancelOrderByProvider(AuthenticatedUser principal, @PathVariable Long id) {
+        Long providerId = currentProviderId(principal);
+        Order order = orderService.getProviderOrderById(id, providerId);
         
         // Provider can cancel order if it's PENDING or CONFIRMED
         if (order.getOrderStatus() != com.cooktodor.enums.OrderStatus.PENDING && 
@@ -135,16 +137,16 @@ public class OrderController {
         
         com.cooktodor.dto.OrderDtos.UpdateStatusRequest cancelRequest = new com.cooktodor.dto.OrderDtos.UpdateStatusRequest();
         cancelRequest.setOrderStatus(com.cooktodor.enums.OrderStatus.CANCELLED);
-        Order cancelledOrder = orderService.updateOrderStatus(id, provider.getId(), cancelRequest);
+        Order cancelledOrder = orderService.updateOrderStatus(id, providerId, cancelRequest);
         return ResponseEntity.ok(toResponse(cancelledOrder));
     }
 
     // ==================== Delivery Partner Endpoints ====================
 
     @GetMapping("/delivery-partners/orders")
-    public ResponseEntity<List<OrderDtos.Response>> getDeliveryPartnerOrders() {
-        DeliveryPartner deliveryPartner = getCurrentDeliveryPartner();
-        List<Order> orders = orderService.getDeliveryPartnerOrders(deliveryPartner.getId());
+    public ResponseEntity<List<OrderDtos.Response>> getDeliveryPartnerOrders(AuthenticatedUser principal) {
+        Long deliveryPartnerId = currentDeliveryPartnerId(principal);
+        List<Order> orders = orderService.getDeliveryPartnerOrders(deliveryPartnerId);
         List<OrderDtos.Response> responses = orders.stream()
                 .map(this::toResponse)
                 .collect(Collectors.toList());
@@ -153,19 +155,20 @@ public class OrderController {
 
     @GetMapping("/delivery-partners/orders/{id}")
     // @PreAuthorize("hasRole('ROLE_DELIVERY')")
-    public ResponseEntity<OrderDtos.Response> getDeliveryPartnerOrder(@PathVariable Long id) {
-        DeliveryPartner deliveryPartner = getCurrentDeliveryPartner();
-        Order order = orderService.getDeliveryPartnerOrderById(id, deliveryPartner.getId());
+    public ResponseEntity<OrderDtos.Response> getDeliveryPartnerOrder(AuthenticatedUser principal, @PathVariable Long id) {
+        Long deliveryPartnerId = currentDeliveryPartnerId(principal);
+        Order order = orderService.getDeliveryPartnerOrderById(id, deliveryPartnerId);
         return ResponseEntity.ok(toResponse(order));
     }
 
     @PutMapping("/delivery-partners/orders/{id}/status")
     // @PreAuthorize("hasRole('DELIVERY')")
     public ResponseEntity<OrderDtos.Response> updateDeliveryStatus(
+            AuthenticatedUser principal,
             @PathVariable Long id,
             @RequestBody OrderDtos.UpdateStatusRequest req) {
-        DeliveryPartner deliveryPartner = getCurrentDeliveryPartner();
-        Order order = orderService.updateDeliveryStatus(id, deliveryPartner.getId(), req);
+        Long deliveryPartnerId = currentDeliveryPartnerId(principal);
+        Order order = orderService.updateDeliveryStatus(id, deliveryPartnerId, req);
         return ResponseEntity.ok(toResponse(order));
     }
     
@@ -181,42 +184,55 @@ public class OrderController {
     
     @PostMapping("/delivery-partners/orders/{id}/accept")
     // @PreAuthorize("hasRole('DELIVERY')")
-    public ResponseEntity<OrderDtos.Response> acceptOrder(@PathVariable Long id) {
-        DeliveryPartner deliveryPartner = getCurrentDeliveryPartner();
-        Order order = orderService.acceptOrderByDeliveryPartner(id, deliveryPartner.getId());
+    public ResponseEntity<OrderDtos.Response> acceptOrder(AuthenticatedUser principal, @PathVariable Long id) {
+        Long deliveryPartnerId = currentDeliveryPartnerId(principal);
+        Order order = orderService.acceptOrderByDeliveryPartner(id, deliveryPartnerId);
         return ResponseEntity.ok(toResponse(order));
     }
     
     @PostMapping("/delivery-partners/orders/{id}/pickup")
     // @PreAuthorize("hasRole('DELIVERY')")
-    public ResponseEntity<OrderDtos.Response> pickupOrder(@PathVariable Long id) {
-        DeliveryPartner deliveryPartner = getCurrentDeliveryPartner();
-        Order order = orderService.pickupOrderByDeliveryPartner(id, deliveryPartner.getId());
+    public ResponseEntity<OrderDtos.Response> pickupOrder(AuthenticatedUser principal, @PathVariable Long id) {
+        Long deliveryPartnerId = currentDeliveryPartnerId(principal);
+        Order order = orderService.pickupOrderByDeliveryPartner(id, deliveryPartnerId);
         return ResponseEntity.ok(toResponse(order));
     }
     
     @PostMapping("/delivery-partners/orders/{id}/deliver")
     // @PreAuthorize("hasRole('DELIVERY')")
     public ResponseEntity<OrderDtos.Response> deliverOrder(
+            AuthenticatedUser principal,
             @PathVariable Long id,
             @RequestBody OrderDtos.DeliveryOTPRequest otpRequest) {
-        DeliveryPartner deliveryPartner = getCurrentDeliveryPartner();
+        Long deliveryPartnerId = currentDeliveryPartnerId(principal);
         
         if (otpRequest.getOtp() == null || otpRequest.getOtp().trim().isEmpty()) {
             throw new BadRequestException("OTP is required for delivery confirmation");
         }
         
-        Order order = orderService.deliverOrderByDeliveryPartner(id, deliveryPartner.getId(), otpRequest.getOtp());
+        Order order = orderService.deliverOrderByDeliveryPartner(id, deliveryPartnerId, otpRequest.getOtp());
         return ResponseEntity.ok(toResponse(order));
     }
     
+    @PostMapping("/delivery-partners/orders/{id}/resend-otp")
+    // @PreAuthorize("hasRole('DELIVERY')")
+    public ResponseEntity<Map<String, Object>> resendOTP(AuthenticatedUser principal, @PathVariable Long id) {
+        Long deliveryPartnerId = currentDeliveryPartnerId(principal);
+        orderService.resendDeliveryOTP(id, deliveryPartnerId);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "A new OTP has been sent to the customer");
+        return ResponseEntity.ok(response);
+    }
+    
     @PostMapping("/delivery-partners/orders/{id}/verify-otp")
     // @PreAuthorize("hasRole('DELIVERY')")
     public ResponseEntity<Map<String, Object>> verifyOTP(
+            AuthenticatedUser principal,
             @PathVariable Long id,
             @RequestBody OrderDtos.DeliveryOTPRequest otpRequest) {
-        DeliveryPartner deliveryPartner = getCurrentDeliveryPartner();
-        Order order = orderService.getDeliveryPartnerOrderById(id, deliveryPartner.getId());
+        Long deliveryPartnerId = currentDeliveryPartnerId(principal);
+        Order order = orderService.getDeliveryPartnerOrderById(id, deliveryPartnerId);
         
         boolean isValid = orderService.verifyDeliveryOTP(id, otpRequest.getOtp());
         
@@ -255,45 +271,47 @@ public class OrderController {
     @PostMapping("/providers/orders/{orderId}/assign-delivery/{deliveryPartnerId}")
     @PreAuthorize("hasRole('PROVIDER')")
     public ResponseEntity<OrderDtos.Response> assignDeliveryPartnerByProvider(
+            AuthenticatedUser principal,
             @PathVariable Long orderId,
             @PathVariable Long deliveryPartnerId) {
-        TiffinProvider provider = getCurrentProvider();
-        Order order = orderService.assignDeliveryPartner(orderId, deliveryPartnerId, provider.getId());
+        Long providerId = currentProviderId(principal);
+        Order order = orderService.assignDeliveryPartner(orderId, deliveryPartnerId, providerId);
         return ResponseEntity.ok(toResponse(order));
     }
 
     // ==================== Helper Methods ====================
 
-    private User getCurrentUser() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = auth.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
-    }
-
-    private Customer getCurrentCustomer() {
-        User user = getCurrentUser();
-        return customerRepository.findByUser_IdAndIsDeletedFalse(user.getId())
+    // Profile ids come from the token; tokens issued before the profile existed fall back to a lookup
+    private Long currentCustomerId(AuthenticatedUser principal) {
+        if (principal.getCustomerId() != null) {
+            return principal.getCustomerId();
+        }
+        return customerRepository.findByUser_IdAndIsDeletedFalse(principal.getUserId())
+                .map(Customer::getId)
                 .orElseThrow(() -> new ResourceNotFoundException("Customer profile not found for user"));
     }
 
-    private TiffinProvider getCurrentProvider() {
-        User user = getCurrentUser();
-        TiffinProvider provider = tiffinProviderRepository.findByUser_Id(user.getId());
+    private Long currentProviderId(AuthenticatedUser principal) {
+        if (principal.getProviderId() != null) {
+            return principal.getProviderId();
+        }
+        TiffinProvider provider = tiffinProviderRepository.findByUser_Id(principal.getUserId());
         if (provider == null) {
             throw new ResourceNotFoundException("Provider profile not found for user");
         }
-        return provider;
+        return provider.getId();
     }
 
-    private DeliveryPartner getCurrentDeliveryPartner() {
-        User user = getCurrentUser();
-        List<DeliveryPartner> partners = deliveryPartnerRepository.findByUser_IdAndIsDeletedFalse(user.getId());
+    private Long currentDeliveryPartnerId(AuthenticatedUser principal) {
+        if (principal.getDeliveryPartnerId() != null) {
+            return principal.getDeliveryPartnerId();
+        }
+        List<DeliveryPartner> partners = deliveryPartnerRepository.findByUser_IdAndIsDeletedFalse(principal.getUserId());
         if (partners.isEmpty()) {
             throw new ResourceNotFoundException("Delivery partner profile not found for user");
         }
         // Return the first delivery partner (or you can add logic to select specific one)
-        return partners.get(0);
+        return partners.get(0).getId();
     }
 
     private OrderDtos.Response toResponse(Order order) {
@@ -317,10 +335,15 @@ public class OrderController {
         response.setEstimatedDeliveryTime(order.getEstimatedDeliveryTime());
         response.setDeliveryTime(order.getDeliveryTime());
         
-        // Add OTP information (only if OTP exists and not expired)
-        if (order.getOtp() != null && !order.getOtp().isEmpty()) {
+        // Add OTP information (only if OTP exists and not expired). Codes are only issued once an order
+        // is READY and used up on delivery, so list pages don't look them up for every other order
+        OrderStatus status = order.getOrderStatus();
+        Optional<OtpService.Otp> deliveryOtp = status == OrderStatus.READY || status == OrderStatus.OUT_FOR_DELIVERY
+                ? otpService.find(OtpPurpose.DELIVERY, order.getId())
+                : Optional.empty();
+        if (deliveryOtp.isPresent()) {
             response.setHasOTP(true);
-            response.setOtpExpiresAt(order.getOtpExpiresAt());
+            response.setOtpExpiresAt(deliveryOtp.get().getExpiresAt());
         } else {
             response.setHasOTP(false);
             response.setOtpExpiresAt(null);
@@ -5,8 +5,6 @@ import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -14,15 +12,14 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.cooktodor.config.security.AuthenticatedUser;
 import com.cooktodor.dto.OrderDtos;
 import com.cooktodor.dto.PaymentDtos;
 import com.cooktodor.exception.ResourceNotFoundException;
 import com.cooktodor.model.Customer;
 import com.cooktodor.model.Order;
-import com.cooktodor.model.User;
 import com.cooktodor.repository.CustomerRepository;
 import com.cooktodor.repository.OrderRepository;
-import com.cooktodor.repository.UserRepository;
 import com.cooktodor.service.PaymentService;
 
 @RestController
@@ -32,9 +29,6 @@ public class PaymentController {
     @Autowired
     private PaymentService paymentService;
 
-    @Autowired
-    private UserRepository userRepository;
-
     @Autowired
     private CustomerRepository customerRepository;
 
@@ -105,18 +99,14 @@ public class PaymentController {
         return ResponseEntity.ok(response);
     }
 
-    private User getCurrentUser() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = auth.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
-    }
-
     private Customer getCurrentCustomer() {
-        User user = getCurrentUser();
-        return customerRepository.findByUser_IdAndIsDeletedFalse(user.getId())
+        AuthenticatedUser principal = AuthenticatedUser.requireCurrent();
+        if (principal.getCustomerId() != null) {
+            // Id from the token; nothing is loaded unless other fields are read
+            return customerRepository.getReferenceById(principal.getCustomerId());
+        }
+        return customerRepository.findByUser_IdAndIsDeletedFalse(principal.getUserId())
                 .orElseThrow(() -> new ResourceNotFoundException("Customer profile not found for user"));
     }
 }
 
-
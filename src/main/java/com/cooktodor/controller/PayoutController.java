@@ -6,12 +6,11 @@ import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.cooktodor.config.security.AuthenticatedUser;
 import com.cooktodor.exception.ResourceNotFoundException;
 import com.cooktodor.model.TiffinProvider;
 import com.cooktodor.model.User;
@@ -58,10 +57,8 @@ public class PayoutController {
     }
 
     private User getCurrentUser() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = auth.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
+        // The principal carries the id; the reference is only loaded if other fields are read
+        return userRepository.getReferenceById(AuthenticatedUser.requireCurrent().getUserId());
     }
 
     private TiffinProvider getCurrentProvider() {
@@ -1,19 +1,18 @@
 package com.cooktodor.controller;
 
+import com.cooktodor.config.security.AuthenticatedUser;
 import com.cooktodor.enums.ImageType;
 import com.cooktodor.exception.ResourceNotFoundException;
 import com.cooktodor.model.MenuItem;
 import com.cooktodor.model.TiffinProvider;
 import com.cooktodor.model.User;
-import com.cooktodor.repository.ImageRepository;
 import com.cooktodor.repository.MenuItemRepository;
 import com.cooktodor.repository.TiffinProviderRepository;
 import com.cooktodor.repository.UserRepository;
+import com.cooktodor.service.ImageService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -46,7 +45,7 @@ public class ProductController {
     private MenuItemRepository menuItemRepository;
 
     @Autowired
-    private ImageRepository imageRepository;
+    private ImageService imageService;
 
     /**
      * Backward-compatible endpoint for Android apps
@@ -70,6 +69,10 @@ public class ProductController {
         // Use a query that eagerly loads category to avoid LazyInitializationException
         List<MenuItem> menuItems = menuItemRepository.findAllByProvider_IdAndIsDeletedFalseWithCategory(provider.getId());
         
+        // Resolve product images for all items in one query
+        Map<Long, List<Long>> imageIdsByItem = imageService.getImageIds(ImageType.PRODUCT,
+                menuItems.stream().map(MenuItem::getId).toList());
+        
         // Convert to Android-compatible format with null safety
         List<Map<String, Object>> products = menuItems.stream().map(item -> {
             Map<String, Object> product = new HashMap<>();
@@ -112,17 +115,12 @@ public class ProductController {
             product.put("providerId", provider.getId() != null ? String.valueOf(provider.getId()) : "0");
             
             // Get image ID if exists - construct full URL for Android
-            try {
-                Long imageId = imageRepository.findIdByImageTypeAndOwnerId(ImageType.PRODUCT, item.getId());
-                if (imageId != null) {
-                    // Construct relative image URL - Android will prepend base URL
-                    product.put("imageUrl", "/images/view/" + imageId);
-                } else {
-                    // Use empty string instead of null to prevent crashes
-                    product.put("imageUrl", "");
-                }
-            } catch (Exception e) {
-                // If image lookup fails, set to empty string
+            List<Long> imageIds = imageIdsByItem.get(item.getId());
+            if (imageIds != null && !imageIds.isEmpty()) {
+                // Construct relative image URL - Android will prepend base URL
+                product.put("imageUrl", "/images/view/" + imageIds.get(0));
+            } else {
+                // Use empty string instead of null to prevent crashes
                 product.put("imageUrl", "");
             }
             
@@ -136,10 +134,8 @@ public class ProductController {
      * Get current authenticated user from security context
      */
     private User getCurrentUser() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = auth.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
+        // The principal carries the id; the reference is only loaded if other fields are read
+        return userRepository.getReferenceById(AuthenticatedUser.requireCurrent().getUserId());
     }
 }
 
@@ -1,5 +1,6 @@
 package com.cooktodor.controller;
 
+import com.cooktodor.config.security.AuthenticatedUser;
 import com.cooktodor.dto.TiffinProviderRequest;
 import com.cooktodor.enums.AddressType;
 import com.cooktodor.exception.ResourceNotFoundException;
@@ -10,7 +11,7 @@ import com.cooktodor.repository.AddressRepository;
 import com.cooktodor.repository.TiffinProviderRepository;
 import com.cooktodor.repository.UserRepository;
 import com.cooktodor.repository.MenuItemRepository;
-import com.cooktodor.repository.ImageRepository;
+import com.cooktodor.service.ImageService;
 import com.cooktodor.service.TiffinProviderService;
 import com.cooktodor.model.MenuItem;
 import com.cooktodor.enums.ImageType;
@@ -19,8 +20,6 @@ import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -47,7 +46,7 @@ public class ProviderController {
     private MenuItemRepository menuItemRepository;
 
     @Autowired
-    private ImageRepository imageRepository;
+    private ImageService imageService;
 
     /**
      * Check if provider profile is complete (onboarding status)
@@ -238,6 +237,10 @@ public class ProviderController {
         // Use a query that eagerly loads category to avoid LazyInitializationException
         List<MenuItem> menuItems = menuItemRepository.findAllByProvider_IdAndIsDeletedFalseWithCategory(provider.getId());
         
+        // Resolve product images for all items in one query
+        Map<Long, List<Long>> imageIdsByItem = imageService.getImageIds(ImageType.PRODUCT,
+                menuItems.stream().map(MenuItem::getId).toList());
+        
         // Convert to Android-compatible format with null safety
         List<Map<String, Object>> products = menuItems.stream().map(item -> {
             Map<String, Object> product = new HashMap<>();
@@ -280,17 +283,12 @@ public class ProviderController {
             product.put("providerId", provider.getId() != null ? String.valueOf(provider.getId()) : "0");
             
             // Get image ID if exists - construct full URL for Android
-            try {
-                Long imageId = imageRepository.findIdByImageTypeAndOwnerId(ImageType.PRODUCT, item.getId());
-                if (imageId != null) {
-                    // Construct relative image URL - Android will prepend base URL
-                    product.put("imageUrl", "/images/view/" + imageId);
-                } else {
-                    // Use empty string instead of null to prevent crashes
-                    product.put("imageUrl", "");
-                }
-            } catch (Exception e) {
-                // If image lookup fails, set to empty string
+            List<Long> imageIds = imageIdsByItem.get(item.getId());
+            if (imageIds != null && !imageIds.isEmpty()) {
+                // Construct relative image URL - Android will prepend base URL
+                product.put("imageUrl", "/images/view/" + imageIds.get(0));
+            } else {
+                // Use empty string instead of null to prevent crashes
                 product.put("imageUrl", "");
             }
             
@@ -301,10 +299,8 @@ public class ProviderController {
     }
 
     private User getCurrentUser() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = auth.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
+        // The principal carries the id; the reference is only loaded if other fields are read
+        return userRepository.getReferenceById(AuthenticatedUser.requireCurrent().getUserId());
     }
 }
 
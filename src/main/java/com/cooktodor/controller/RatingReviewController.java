@@ -5,8 +5,6 @@ import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -15,13 +13,12 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.cooktodor.config.security.AuthenticatedUser;
 import com.cooktodor.enums.RatingType;
 import com.cooktodor.exception.ResourceNotFoundException;
 import com.cooktodor.model.Customer;
 import com.cooktodor.model.RatingReview;
-import com.cooktodor.model.User;
 import com.cooktodor.repository.CustomerRepository;
-import com.cooktodor.repository.UserRepository;
 import com.cooktodor.service.RatingReviewService;
 
 @RestController
@@ -31,9 +28,6 @@ public class RatingReviewController {
     @Autowired
     private RatingReviewService service;
 
-    @Autowired
-    private UserRepository userRepository;
-
     @Autowired
     private CustomerRepository customerRepository;
 
@@ -114,20 +108,15 @@ public class RatingReviewController {
         return ResponseEntity.ok(service.getRateableOrdersForMenuItem(customerId, menuItemId));
     }
 
-
     private Long getCurrentCustomerId() {
-        User user = getCurrentUser();
-        Customer customer = customerRepository.findByUser_IdAndIsDeletedFalse(user.getId())
+        AuthenticatedUser principal = AuthenticatedUser.requireCurrent();
+        if (principal.getCustomerId() != null) {
+            return principal.getCustomerId();
+        }
+        Customer customer = customerRepository.findByUser_IdAndIsDeletedFalse(principal.getUserId())
                 .orElseThrow(() -> new ResourceNotFoundException("Customer profile not found for user"));
         return customer.getId();
     }
 
-    private User getCurrentUser() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = auth.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
-    }
 }
 
-
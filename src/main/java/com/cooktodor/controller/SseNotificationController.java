@@ -1,5 +1,6 @@
 package com.cooktodor.controller;
 
+import com.cooktodor.config.security.AuthenticatedUser;
 import com.cooktodor.model.User;
 import com.cooktodor.repository.UserRepository;
 import com.cooktodor.service.NotificationService;
@@ -10,8 +11,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
@@ -37,19 +36,21 @@ public class SseNotificationController {
     /**
      * SSE endpoint for real-time notifications
      * Client connects to this endpoint and receives events
+     * On reconnect the browser sends Last-Event-ID, and only the events missed since then are replayed
      * Uses read-only transaction to optimize connection usage
      */
     @GetMapping(value = "/notifications/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     @PreAuthorize("hasAnyRole('CUSTOMER', 'PROVIDER', 'DELIVERY', 'ADMIN')")
     @Transactional(readOnly = true)
-    public SseEmitter streamNotifications() {
+    public SseEmitter streamNotifications(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader) {
         User user = getCurrentUser();
         logger.info("SSE connection request from user: {}", user.getId());
         
         // Get unread count before creating emitter to minimize transaction time
         Long unreadCount = notificationService.getUnreadCount(user.getId());
         
-        SseEmitter emitter = sseEventService.createConnection(user.getId());
+        SseEmitter emitter = sseEventService.createConnection(user.getId(), parseLastEventId(lastEventIdHeader));
         
         if (emitter == null) {
             logger.error("Failed to create SSE connection for user: {}", user.getId());
@@ -86,18 +87,29 @@ public class SseNotificationController {
         
         Map<String, Object> response = new HashMap<>();
         response.put("connected", hasConnection);
+        response.put("sessions", sseEventService.getSessionCount(user.getId()));
         response.put("totalActiveConnections", totalConnections);
         return ResponseEntity.ok(response);
     }
     
+    private Long parseLastEventId(String header) {
+        if (header == null || header.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            logger.debug("Ignoring malformed Last-Event-ID: {}", header);
+            return null;
+        }
+    }
+    
     /**
      * Get current user from security context
      */
     private User getCurrentUser() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = auth.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found: " + username));
+        // The principal carries the id; the reference is only loaded if other fields are read
+        return userRepository.getReferenceById(AuthenticatedUser.requireCurrent().getUserId());
     }
 }
 
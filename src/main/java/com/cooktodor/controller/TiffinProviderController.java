@@ -3,6 +3,7 @@ package com.cooktodor.controller;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -57,7 +58,7 @@ public class TiffinProviderController {
     }
 
     @GetMapping("/{id}/PROVIDER_PROFILE")
-    public ResponseEntity<byte[]> getProviderProfileImage(@PathVariable Long id) {
+    public ResponseEntity<Resource> getProviderProfileImage(@PathVariable Long id) {
         
         ImageResponse imageResponse = imageService.getProviderProfileImage(id);
         MediaType mediaType;
@@ -68,7 +69,7 @@ public class TiffinProviderController {
         }
         return ResponseEntity.ok()
                 .contentType(mediaType)
-                .body(imageResponse.getData());
+                .body(imageResponse.getResource());
     }
     
 
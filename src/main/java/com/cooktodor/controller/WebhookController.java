@@ -9,6 +9,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.cooktodor.service.PaymentService;
+import com.cooktodor.service.WebhookInboxService;
 
 @RestController
 @RequestMapping("/api/webhooks")
@@ -17,10 +18,18 @@ public class WebhookController {
     @Autowired
     private PaymentService paymentService;
 
+    @Autowired
+    private WebhookInboxService webhookInboxService;
+
+    /**
+     * Verify and store the event, then acknowledge; it is processed asynchronously by WebhookInboxService
+     */
     @PostMapping("/razorpay")
     public ResponseEntity<Void> handleRazorpay(@RequestHeader("X-Razorpay-Signature") String signature,
+                                               @RequestHeader(value = "X-Razorpay-Event-Id", required = false) String eventId,
                                                @RequestBody String payload) {
-        paymentService.verifyAndProcessWebhook(payload, signature);
+        paymentService.verifyWebhookSignature(payload, signature);
+        webhookInboxService.receive(eventId, payload);
         return ResponseEntity.ok().build();
     }
 
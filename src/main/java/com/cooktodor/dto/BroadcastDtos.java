@@ -0,0 +1,42 @@
+package com.cooktodor.dto;
+
+import java.time.LocalDateTime;
+
+import com.cooktodor.enums.Role;
+
+public class BroadcastDtos {
+
+    public static class CreateBroadcastRequest {
+        private String title;
+        private String message;
+        // null sends to every user
+        private Role targetRole;
+        public String getTitle() { return title; }
+        public void setTitle(String title) { this.title = title; }
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
+        public Role getTargetRole() { return targetRole; }
+        public void setTargetRole(Role targetRole) { this.targetRole = targetRole; }
+    }
+
+    public static class BroadcastResponse {
+        private Long id;
+        private String title;
+        private String message;
+        private Role targetRole;
+        private LocalDateTime createdAt;
+        private Boolean isRead;
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+        public String getTitle() { return title; }
+        public void setTitle(String title) { this.title = title; }
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
+        public Role getTargetRole() { return targetRole; }
+        public void setTargetRole(Role targetRole) { this.targetRole = targetRole; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+        public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+        public Boolean getIsRead() { return isRead; }
+        public void setIsRead(Boolean isRead) { this.isRead = isRead; }
+    }
+}
@@ -0,0 +1,40 @@
+package com.cooktodor.dto;
+
+public class ImageDtos {
+
+    // Lightweight image reference: clients fetch the bytes from /images/view/{id}
+    public static class ImageRef {
+        private Long id;
+        private Long ownerId;
+        private String url;
+        private String fileType;
+        private Integer width;
+        private Integer height;
+
+        public ImageRef() {
+        }
+
+        // Used by JPQL constructor expressions - never touches the image data column
+        public ImageRef(Long id, Long ownerId, String fileType, Integer width, Integer height) {
+            this.id = id;
+            this.ownerId = ownerId;
+            this.url = "/images/view/" + id;
+            this.fileType = fileType;
+            this.width = width;
+            this.height = height;
+        }
+
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+        public Long getOwnerId() { return ownerId; }
+        public void setOwnerId(Long ownerId) { this.ownerId = ownerId; }
+        public String getUrl() { return url; }
+        public void setUrl(String url) { this.url = url; }
+        public String getFileType() { return fileType; }
+        public void setFileType(String fileType) { this.fileType = fileType; }
+        public Integer getWidth() { return width; }
+        public void setWidth(Integer width) { this.width = width; }
+        public Integer getHeight() { return height; }
+        public void setHeight(Integer height) { this.height = height; }
+    }
+}
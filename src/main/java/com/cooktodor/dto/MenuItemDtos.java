@@ -153,6 +153,7 @@ public class MenuItemDtos {
         private String providerBusinessName;
         private java.util.List<String> imageBase64List;
         private java.util.List<String> imageFileTypeList;
+        private java.util.List<ImageDtos.ImageRef> images; // lean mode: references instead of base64 data
         private Double averageRating;
         private Long ratingCount;
         private Boolean hasUserRated;
@@ -183,6 +184,8 @@ public class MenuItemDtos {
         public void setImageBase64List(java.util.List<String> imageBase64List) { this.imageBase64List = imageBase64List; }
         public java.util.List<String> getImageFileTypeList() { return imageFileTypeList; }
         public void setImageFileTypeList(java.util.List<String> imageFileTypeList) { this.imageFileTypeList = imageFileTypeList; }
+        public java.util.List<ImageDtos.ImageRef> getImages() { return images; }
+        public void setImages(java.util.List<ImageDtos.ImageRef> images) { this.images = images; }
         public Double getUnitsOfMeasurement() { return unitsOfMeasurement; }
         public void setUnitsOfMeasurement(Double unitsOfMeasurement) { this.unitsOfMeasurement = unitsOfMeasurement; }
         public Integer getMaxQuantity() { return maxQuantity; }
@@ -0,0 +1,33 @@
+package com.cooktodor.enums;
+
+/**
+ * Re-encoded sizes generated for every uploaded image.
+ * Each variant is bounded by maxDimension on its longest side (originals are never upscaled).
+ */
+public enum ImageVariant {
+    THUMB(200),
+    CARD(640),
+    FULL(1600);
+
+    private final int maxDimension;
+
+    ImageVariant(int maxDimension) {
+        this.maxDimension = maxDimension;
+    }
+
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    // Accepts "thumb", "THUMB", ... as used in ?variant= query params; null if not a known variant
+    public static ImageVariant fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return ImageVariant.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.cooktodor.enums;
+
+public enum OtpPurpose {
+    DELIVERY,        // subject is the order id
+    PASSWORD_RESET   // subject is the user id
+}
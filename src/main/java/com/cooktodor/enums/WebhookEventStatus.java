@@ -0,0 +1,8 @@
+package com.cooktodor.enums;
+
+public enum WebhookEventStatus {
+    PENDING,     // stored, waiting for (another) processing attempt
+    PROCESSING,  // claimed by a worker until locked_until
+    PROCESSED,
+    FAILED       // gave up after the maximum number of attempts
+}
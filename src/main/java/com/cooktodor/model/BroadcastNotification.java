@@ -0,0 +1,65 @@
+package com.cooktodor.model;
+
+import com.cooktodor.enums.Role;
+import jakarta.persistence.*;
+
+/**
+ * A notification addressed to every user of a role (or to everyone when targetRole is null).
+ * Stored once; who has read it is tracked in BroadcastReadMarker.
+ */
+@Entity
+@Table(name = "broadcast_notifications", indexes = {
+        @Index(name = "idx_broadcasts_role_created", columnList = "target_role, created_at")
+})
+@AttributeOverride(name = "id", column = @Column(name = "broadcast_id"))
+public class BroadcastNotification extends BaseEntity {
+
+    @Column(nullable = false, length = 255)
+    private String title;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String message;
+
+    @Convert(converter = com.cooktodor.enums.RoleConverter.class)
+    @Column(name = "target_role")
+    private Role targetRole;
+
+    @Column(name = "created_by_user_id", nullable = false)
+    private Long createdByUserId;
+
+    // Constructors
+    public BroadcastNotification() {}
+
+    // Getters and Setters
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Role getTargetRole() {
+        return targetRole;
+    }
+
+    public void setTargetRole(Role targetRole) {
+        this.targetRole = targetRole;
+    }
+
+    public Long getCreatedByUserId() {
+        return createdByUserId;
+    }
+
+    public void setCreatedByUserId(Long createdByUserId) {
+        this.createdByUserId = createdByUserId;
+    }
+}
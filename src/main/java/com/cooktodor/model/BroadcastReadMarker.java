@@ -0,0 +1,60 @@
+package com.cooktodor.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Records that a user has read a broadcast. Rows exist only for reads, so a broadcast
+ * costs nothing per recipient until it is opened.
+ */
+@Entity
+@Table(name = "broadcast_read_markers", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_broadcast_read_marker", columnNames = {"user_id", "broadcast_id"})
+})
+public class BroadcastReadMarker {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "broadcast_id", nullable = false)
+    private Long broadcastId;
+
+    @Column(name = "read_at", nullable = false)
+    private LocalDateTime readAt;
+
+    // Constructors
+    public BroadcastReadMarker() {}
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getBroadcastId() {
+        return broadcastId;
+    }
+
+    public void setBroadcastId(Long broadcastId) {
+        this.broadcastId = broadcastId;
+    }
+
+    public LocalDateTime getReadAt() {
+        return readAt;
+    }
+
+    public void setReadAt(LocalDateTime readAt) {
+        this.readAt = readAt;
+    }
+}
@@ -1,6 +1,8 @@
 package com.cooktodor.model;
 
 import com.cooktodor.enums.ImageType;
+import com.cooktodor.enums.ImageVariant;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import jakarta.persistence.*;
 
@@ -14,11 +16,33 @@ public class Image extends BaseEntity {
     @Column(name = "file_type")
     private String fileType;
 
+    // Legacy inline storage; new uploads live in the blob store and only keep contentHash here
     @Lob
     @Basic(fetch = FetchType.EAGER)
     @Column(columnDefinition = "TEXT")
     private String base64Data;
 
+    // SHA-256 of the image bytes, key into ImageBlobStore
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "file_size")
+    private Long fileSize;
+
+    // blob store hashes of the generated variants (null until generated); variants are always JPEG
+    @Column(name = "thumb_hash", length = 64)
+    private String thumbHash;
+
+    @Column(name = "card_hash", length = 64)
+    private String cardHash;
+
+    @Column(name = "full_hash", length = 64)
+    private String fullHash;
+
+    // base64 read back from the blob store for responses that still embed image data (never persisted)
+    @Transient
+    private String loadedBase64Data;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "image_type", nullable = false)
     private ImageType imageType;  // PROFILE / PRODUCT / PLACE / DL
@@ -27,6 +51,13 @@ public class Image extends BaseEntity {
     @Column(name = "owner_id")
     private Long ownerId;
 
+    // pixel dimensions, captured on upload (null for images stored before they were tracked)
+    @Column(name = "width")
+    private Integer width;
+
+    @Column(name = "height")
+    private Integer height;
+
     public Image() {
     }
 
@@ -55,13 +86,70 @@ public class Image extends BaseEntity {
     }
 
     public String getBase64Data() {
-        return base64Data;
+        return base64Data != null ? base64Data : loadedBase64Data;
     }
 
     public void setBase64Data(String base64Data) {
         this.base64Data = base64Data;
     }
 
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public Long getFileSize() {
+        return fileSize;
+    }
+
+    public void setFileSize(Long fileSize) {
+        this.fileSize = fileSize;
+    }
+
+    public String getThumbHash() {
+        return thumbHash;
+    }
+
+    public void setThumbHash(String thumbHash) {
+        this.thumbHash = thumbHash;
+    }
+
+    public String getCardHash() {
+        return cardHash;
+    }
+
+    public void setCardHash(String cardHash) {
+        this.cardHash = cardHash;
+    }
+
+    public String getFullHash() {
+        return fullHash;
+    }
+
+    public void setFullHash(String fullHash) {
+        this.fullHash = fullHash;
+    }
+
+    public String getVariantHash(ImageVariant variant) {
+        return switch (variant) {
+            case THUMB -> thumbHash;
+            case CARD -> cardHash;
+            case FULL -> fullHash;
+        };
+    }
+
+    @JsonIgnore
+    public boolean isStoredInline() {
+        return base64Data != null;
+    }
+
+    public void setLoadedBase64Data(String loadedBase64Data) {
+        this.loadedBase64Data = loadedBase64Data;
+    }
+
     public ImageType getImageType() {
         return imageType;
     }
@@ -78,5 +166,21 @@ public class Image extends BaseEntity {
         this.ownerId = ownerId;
     }
 
+    public Integer getWidth() {
+        return width;
+    }
+
+    public void setWidth(Integer width) {
+        this.width = width;
+    }
+
+    public Integer getHeight() {
+        return height;
+    }
+
+    public void setHeight(Integer height) {
+        this.height = height;
+    }
+
     
 }
\ No newline at end of file
@@ -5,7 +5,12 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+        // feed keyset pagination
+        @Index(name = "idx_notifications_user_created", columnList = "user_id, created_at, notification_id"),
+        // retention purge
+        @Index(name = "idx_notifications_read_created", columnList = "is_read, created_at")
+})
 @AttributeOverride(name = "id", column = @Column(name = "notification_id"))
 public class Notification extends BaseEntity {
 
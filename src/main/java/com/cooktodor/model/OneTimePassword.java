@@ -0,0 +1,97 @@
+package com.cooktodor.model;
+
+import com.cooktodor.enums.OtpPurpose;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * The current OTP for one subject (an order or a user) and purpose. Issuing a new code replaces
+ * the row, and rows are deleted once used, exhausted or expired.
+ */
+@Entity
+@Table(name = "one_time_passwords", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_otp_purpose_subject", columnNames = {"purpose", "subject_id"})
+}, indexes = {
+        @Index(name = "idx_otp_expires_at", columnList = "expires_at")
+})
+public class OneTimePassword {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private OtpPurpose purpose;
+
+    @Column(name = "subject_id", nullable = false)
+    private Long subjectId;
+
+    @Column(nullable = false, length = 6)
+    private String code;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Constructors
+    public OneTimePassword() {}
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public OtpPurpose getPurpose() {
+        return purpose;
+    }
+
+    public void setPurpose(OtpPurpose purpose) {
+        this.purpose = purpose;
+    }
+
+    public Long getSubjectId() {
+        return subjectId;
+    }
+
+    public void setSubjectId(Long subjectId) {
+        this.subjectId = subjectId;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
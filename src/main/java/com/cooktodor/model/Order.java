@@ -56,6 +56,7 @@ public class Order extends BaseEntity {
     @Column(name = "delivery_time")
     private LocalDateTime deliveryTime;
 
+    // Legacy: delivery OTPs are kept by OtpService; these columns are only read once to migrate old codes
     @Column(name = "otp", length = 6)
     private String otp; // 6-digit OTP for delivery verification
 
@@ -55,7 +55,7 @@ public class User extends BaseEntity implements UserDetails {
     @Transient
     private Long profileImageId;
     
-    // Password Reset OTP fields
+    // Password Reset OTP fields (legacy: reset OTPs are kept by OtpService; only read once to migrate old codes)
     @Column(name = "password_reset_otp", length = 6)
     private String passwordResetOtp;
 
@@ -0,0 +1,75 @@
+package com.cooktodor.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Every token of a user issued at or before revokedBefore must no longer be accepted, e.g. after a
+ * password reset or role change. Rows are only needed until the longest-lived token issued before the
+ * cutoff would have expired anyway, and are purged after that.
+ */
+@Entity
+@Table(name = "user_token_revocations", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_user_token_revocation_user", columnNames = {"user_id"})
+}, indexes = {
+        @Index(name = "idx_user_token_revocations_revoked_at", columnList = "revoked_at"),
+        @Index(name = "idx_user_token_revocations_expires_at", columnList = "expires_at")
+})
+public class UserTokenRevocation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "revoked_before", nullable = false)
+    private LocalDateTime revokedBefore;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+
+    // Constructors
+    public UserTokenRevocation() {}
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public LocalDateTime getRevokedBefore() {
+        return revokedBefore;
+    }
+
+    public void setRevokedBefore(LocalDateTime revokedBefore) {
+        this.revokedBefore = revokedBefore;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public LocalDateTime getRevokedAt() {
+        return revokedAt;
+    }
+
+    public void setRevokedAt(LocalDateTime revokedAt) {
+        this.revokedAt = revokedAt;
+    }
+}
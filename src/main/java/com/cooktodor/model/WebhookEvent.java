@@ -0,0 +1,155 @@
+package com.cooktodor.model;
+
+import com.cooktodor.enums.WebhookEventStatus;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A payment gateway webhook as received, stored before it is acknowledged and processed later
+ * by WebhookInboxService. Events for the same gateway order (order_key) are processed in the
+ * order they arrived.
+ */
+@Entity
+@Table(name = "webhook_events", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_webhook_event_id", columnNames = {"event_id"})
+}, indexes = {
+        @Index(name = "idx_webhook_events_status_next", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_webhook_events_order_key", columnList = "order_key, id")
+})
+public class WebhookEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_id", nullable = false, length = 100)
+    private String eventId;
+
+    @Column(name = "event_type", length = 64)
+    private String eventType;
+
+    // Razorpay order id the event is about, if any
+    @Column(name = "order_key", length = 64)
+    private String orderKey;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private WebhookEventStatus status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    // Constructors
+    public WebhookEvent() {}
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public String getOrderKey() {
+        return orderKey;
+    }
+
+    public void setOrderKey(String orderKey) {
+        this.orderKey = orderKey;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public WebhookEventStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(WebhookEventStatus status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getReceivedAt() {
+        return receivedAt;
+    }
+
+    public void setReceivedAt(LocalDateTime receivedAt) {
+        this.receivedAt = receivedAt;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public LocalDateTime getLockedUntil() {
+        return lockedUntil;
+    }
+
+    public void setLockedUntil(LocalDateTime lockedUntil) {
+        this.lockedUntil = lockedUntil;
+    }
+
+    public LocalDateTime getProcessedAt() {
+        return processedAt;
+    }
+
+    public void setProcessedAt(LocalDateTime processedAt) {
+        this.processedAt = processedAt;
+    }
+}
@@ -0,0 +1,21 @@
+package com.cooktodor.repository;
+
+import com.cooktodor.enums.Role;
+import com.cooktodor.model.BroadcastNotification;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface BroadcastNotificationRepository extends JpaRepository<BroadcastNotification, Long> {
+
+    @Query("SELECT b FROM BroadcastNotification b WHERE (b.targetRole IS NULL OR b.targetRole = :role) " +
+           "AND b.createdAt >= :since ORDER BY b.createdAt DESC, b.id DESC")
+    List<BroadcastNotification> findVisibleToRole(@Param("role") Role role, @Param("since") LocalDateTime since,
+                                                  Pageable pageable);
+}
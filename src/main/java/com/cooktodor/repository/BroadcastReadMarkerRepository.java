@@ -0,0 +1,24 @@
+package com.cooktodor.repository;
+
+import com.cooktodor.model.BroadcastReadMarker;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BroadcastReadMarkerRepository extends JpaRepository<BroadcastReadMarker, Long> {
+
+    @Query("SELECT m.broadcastId FROM BroadcastReadMarker m WHERE m.userId = :userId AND m.broadcastId IN :broadcastIds")
+    List<Long> findReadBroadcastIds(@Param("userId") Long userId, @Param("broadcastIds") Collection<Long> broadcastIds);
+
+    // Idempotent: reading twice keeps the first read time
+    @Modifying
+    @Query(value = "INSERT INTO broadcast_read_markers (user_id, broadcast_id, read_at) VALUES (:userId, :broadcastId, now()) " +
+                   "ON CONFLICT (user_id, broadcast_id) DO NOTHING", nativeQuery = true)
+    int markRead(@Param("userId") Long userId, @Param("broadcastId") Long broadcastId);
+}
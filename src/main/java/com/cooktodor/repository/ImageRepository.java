@@ -1,9 +1,11 @@
 package com.cooktodor.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import com.cooktodor.dto.ImageDtos;
 import com.cooktodor.enums.ImageType;
 import com.cooktodor.model.Image;
 
@@ -21,4 +23,24 @@ public interface ImageRepository extends JpaRepository<Image, Long> {
 
     @Query("SELECT i FROM Image i WHERE i.imageType = :imageType AND i.ownerId = :ownerId")
     java.util.List<Image> findAllByImageTypeAndOwnerId(@Param("imageType") ImageType imageType, @Param("ownerId") Long ownerId);
-}
\ No newline at end of file
+
+    // Image references (no image data) for many owners at once, grouped by owner
+    @Query("SELECT new com.cooktodor.dto.ImageDtos$ImageRef(i.id, i.ownerId, i.fileType, i.width, i.height) "
+            + "FROM Image i WHERE i.imageType = :imageType AND i.ownerId IN :ownerIds ORDER BY i.ownerId, i.id")
+    java.util.List<ImageDtos.ImageRef> findImageRefsByImageTypeAndOwnerIds(@Param("imageType") ImageType imageType,
+            @Param("ownerIds") java.util.Collection<Long> ownerIds);
+
+    // (ownerId, imageId) pairs for many owners at once, grouped by owner
+    @Query("SELECT i.ownerId, i.id FROM Image i WHERE i.imageType = :imageType AND i.ownerId IN :ownerIds ORDER BY i.ownerId, i.id")
+    java.util.List<Object[]> findOwnerIdsAndIdsByImageTypeAndOwnerIds(@Param("imageType") ImageType imageType,
+            @Param("ownerIds") java.util.Collection<Long> ownerIds);
+
+    // Legacy rows that still hold base64 data inline, in id order (for batched migration to the blob store)
+    @Query("SELECT i.id FROM Image i WHERE i.base64Data IS NOT NULL AND i.id > :afterId ORDER BY i.id")
+    java.util.List<Long> findInlineImageIdsAfter(@Param("afterId") Long afterId, org.springframework.data.domain.Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Image i SET i.thumbHash = :thumbHash, i.cardHash = :cardHash, i.fullHash = :fullHash WHERE i.id = :id")
+    int updateVariantHashes(@Param("id") Long id, @Param("thumbHash") String thumbHash,
+            @Param("cardHash") String cardHash, @Param("fullHash") String fullHash);
+}
@@ -2,10 +2,12 @@ package com.cooktodor.repository;
 
 import com.cooktodor.model.Notification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -17,6 +19,25 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     
     Long countByUser_IdAndIsReadFalseAndIsDeletedFalse(Long userId);
     
+    List<Notification> findAllByUser_IdAndIsDeletedFalseAndCreatedAtAfterOrderByCreatedAtAsc(
+            Long userId, LocalDateTime createdAfter, org.springframework.data.domain.Pageable pageable);
+    
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true, n.readAt = :readAt, n.updatedAt = :readAt " +
+           "WHERE n.user.id = :userId AND n.isRead = false AND n.isDeleted = false")
+    int markAllAsRead(@Param("userId") Long userId, @Param("readAt") LocalDateTime readAt);
+    
+    // Keyset pagination for the feed: newest first, ties on createdAt broken by id
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId AND n.isDeleted = false " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findFeedFirstPage(@Param("userId") Long userId, org.springframework.data.domain.Pageable pageable);
+    
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId AND n.isDeleted = false " +
+           "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findFeedPageAfter(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                                         @Param("id") Long id, org.springframework.data.domain.Pageable pageable);
+    
     @Query("SELECT n FROM Notification n WHERE n.user.id = :userId AND n.isDeleted = false ORDER BY n.createdAt DESC")
     List<Notification> findRecentNotifications(@Param("userId") Long userId, org.springframework.data.domain.Pageable pageable);
 }
@@ -0,0 +1,47 @@
+package com.cooktodor.repository;
+
+import com.cooktodor.enums.OtpPurpose;
+import com.cooktodor.model.OneTimePassword;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface OneTimePasswordRepository extends JpaRepository<OneTimePassword, Long> {
+
+    Optional<OneTimePassword> findByPurposeAndSubjectId(OtpPurpose purpose, Long subjectId);
+
+    // A new code replaces the previous one for the same subject and resets its attempts
+    @Modifying
+    @Query(value = "INSERT INTO one_time_passwords (purpose, subject_id, code, attempts, created_at, expires_at) " +
+                   "VALUES (:purpose, :subjectId, :code, 0, :createdAt, :expiresAt) " +
+                   "ON CONFLICT (purpose, subject_id) DO UPDATE SET code = EXCLUDED.code, attempts = 0, " +
+                   "created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at", nativeQuery = true)
+    int upsert(@Param("purpose") String purpose, @Param("subjectId") Long subjectId, @Param("code") String code,
+               @Param("createdAt") LocalDateTime createdAt, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("UPDATE OneTimePassword o SET o.attempts = o.attempts + 1 " +
+           "WHERE o.purpose = :purpose AND o.subjectId = :subjectId AND o.code = :code")
+    int incrementAttempts(@Param("purpose") OtpPurpose purpose, @Param("subjectId") Long subjectId,
+                          @Param("code") String code);
+
+    // Only deletes the code that was checked, so a code issued meanwhile by another node survives
+    @Modifying
+    @Query("DELETE FROM OneTimePassword o WHERE o.purpose = :purpose AND o.subjectId = :subjectId AND o.code = :code")
+    int deleteByCode(@Param("purpose") OtpPurpose purpose, @Param("subjectId") Long subjectId,
+                     @Param("code") String code);
+
+    @Modifying
+    @Query("DELETE FROM OneTimePassword o WHERE o.purpose = :purpose AND o.subjectId = :subjectId")
+    int deleteBySubject(@Param("purpose") OtpPurpose purpose, @Param("subjectId") Long subjectId);
+
+    @Modifying
+    @Query("DELETE FROM OneTimePassword o WHERE o.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
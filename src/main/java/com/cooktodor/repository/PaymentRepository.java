@@ -4,15 +4,31 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.cooktodor.model.Order;
 import com.cooktodor.model.Payment;
 
+import jakarta.persistence.LockModeType;
+
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     List<Payment> findAllByIsDeletedFalse();
     
     Optional<Payment> findTopByOrderOrderByCreatedAtDesc(Order order);
     Optional<Payment> findByTransactionId(String transactionId);
+
+    // A Razorpay payment holds the order id until captured and the payment id after, so look for either
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Payment p WHERE p.transactionId IN :transactionIds")
+    List<Payment> findForUpdateByTransactionIdIn(@Param("transactionIds") List<String> transactionIds);
+
+    // Same row as above, for client-side verification which only knows the order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Payment p WHERE p.order.id = :orderId AND p.isDeleted = false")
+    Optional<Payment> findForUpdateByOrderId(@Param("orderId") Long orderId);
+
     Optional<Payment> findByOrder_IdAndIsDeletedFalse(Long orderId);
 }
 
@@ -1,5 +1,6 @@
 package com.cooktodor.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,6 +20,11 @@ public interface RatingReviewRepository extends JpaRepository<RatingReview, Long
     Optional<RatingReview> findByCustomer_IdAndRatingTypeAndTargetIdAndIsDeletedFalse(
         Long customerId, RatingType ratingType, Long targetId);
     
+    // Target ids (out of the given ones) the customer has already rated - one query for a whole page
+    @Query("SELECT rr.targetId FROM RatingReview rr WHERE rr.customer.id = :customerId AND rr.ratingType = :type AND rr.targetId IN :targetIds AND rr.isDeleted = false")
+    List<Long> findRatedTargetIds(@Param("customerId") Long customerId, @Param("type") RatingType type,
+            @Param("targetIds") Collection<Long> targetIds);
+    
     // Get all reviews with customer info (excluding deleted)
     @Query("SELECT rr FROM RatingReview rr JOIN FETCH rr.customer WHERE rr.ratingType = :type AND rr.targetId = :targetId AND rr.isDeleted = false ORDER BY rr.createdAt DESC")
     List<RatingReview> findReviewsWithCustomer(@Param("type") RatingType type, @Param("targetId") Long targetId);
@@ -0,0 +1,30 @@
+package com.cooktodor.repository;
+
+import com.cooktodor.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+
+    List<RevokedToken> findAllByExpiresAtAfter(LocalDateTime now);
+
+    List<RevokedToken> findAllByRevokedAtAfterAndExpiresAtAfter(LocalDateTime since, LocalDateTime now);
+
+    // Idempotent: revoking twice keeps the first row
+    @Modifying
+    @Query(value = "INSERT INTO revoked_tokens (jti, user_id, expires_at, revoked_at) VALUES (:jti, :userId, :expiresAt, :revokedAt) " +
+                   "ON CONFLICT (jti) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("jti") String jti, @Param("userId") Long userId, @Param("expiresAt") LocalDateTime expiresAt,
+                       @Param("revokedAt") LocalDateTime revokedAt);
+
+    @Modifying
+    @Query("DELETE FROM RevokedToken t WHERE t.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
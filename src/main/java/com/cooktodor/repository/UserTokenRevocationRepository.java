@@ -0,0 +1,34 @@
+package com.cooktodor.repository;
+
+import com.cooktodor.model.UserTokenRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UserTokenRevocationRepository extends JpaRepository<UserTokenRevocation, Long> {
+
+    List<UserTokenRevocation> findAllByExpiresAtAfter(LocalDateTime now);
+
+    List<UserTokenRevocation> findAllByRevokedAtAfterAndExpiresAtAfter(LocalDateTime since, LocalDateTime now);
+
+    // The cutoff only ever moves forward
+    @Modifying
+    @Query(value = "INSERT INTO user_token_revocations (user_id, revoked_before, expires_at, revoked_at) " +
+                   "VALUES (:userId, :revokedBefore, :expiresAt, :revokedAt) " +
+                   "ON CONFLICT (user_id) DO UPDATE SET " +
+                   "revoked_before = GREATEST(user_token_revocations.revoked_before, EXCLUDED.revoked_before), " +
+                   "expires_at = GREATEST(user_token_revocations.expires_at, EXCLUDED.expires_at), " +
+                   "revoked_at = EXCLUDED.revoked_at", nativeQuery = true)
+    int upsert(@Param("userId") Long userId, @Param("revokedBefore") LocalDateTime revokedBefore,
+               @Param("expiresAt") LocalDateTime expiresAt, @Param("revokedAt") LocalDateTime revokedAt);
+
+    @Modifying
+    @Query("DELETE FROM UserTokenRevocation r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,44 @@
+package com.cooktodor.repository;
+
+import com.cooktodor.model.WebhookEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface WebhookEventRepository extends JpaRepository<WebhookEvent, Long> {
+
+    // Gateways redeliver events; a repeated event id is ignored (returns 0)
+    @Modifying
+    @Query(value = "INSERT INTO webhook_events (event_id, event_type, order_key, payload, status, attempts, received_at, next_attempt_at) " +
+                   "VALUES (:eventId, :eventType, :orderKey, :payload, 'PENDING', 0, :now, :now) " +
+                   "ON CONFLICT (event_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("eventId") String eventId, @Param("eventType") String eventType,
+                       @Param("orderKey") String orderKey, @Param("payload") String payload,
+                       @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE WebhookEvent e SET e.status = com.cooktodor.enums.WebhookEventStatus.PROCESSED, " +
+           "e.processedAt = :now, e.lockedUntil = null, e.lastError = null WHERE e.id = :id")
+    int markProcessed(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE WebhookEvent e SET e.status = com.cooktodor.enums.WebhookEventStatus.PENDING, " +
+           "e.nextAttemptAt = :nextAttemptAt, e.lockedUntil = null, e.lastError = :error WHERE e.id = :id")
+    int scheduleRetry(@Param("id") Long id, @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                      @Param("error") String error);
+
+    @Modifying
+    @Query("UPDATE WebhookEvent e SET e.status = com.cooktodor.enums.WebhookEventStatus.FAILED, " +
+           "e.processedAt = :now, e.lockedUntil = null, e.lastError = :error WHERE e.id = :id")
+    int markFailed(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("error") String error);
+
+    @Modifying
+    @Query("DELETE FROM WebhookEvent e WHERE e.status = com.cooktodor.enums.WebhookEventStatus.PROCESSED " +
+           "AND e.processedAt < :cutoff")
+    int deleteProcessedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
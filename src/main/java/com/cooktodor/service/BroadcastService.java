@@ -0,0 +1,235 @@
+package com.cooktodor.service;
+
+import com.cooktodor.dto.BroadcastDtos;
+import com.cooktodor.enums.Role;
+import com.cooktodor.exception.BadRequestException;
+import com.cooktodor.exception.ResourceNotFoundException;
+import com.cooktodor.model.BroadcastNotification;
+import com.cooktodor.repository.BroadcastNotificationRepository;
+import com.cooktodor.repository.BroadcastReadMarkerRepository;
+import com.cooktodor.utils.TransactionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Notifications for every user of a role (or everyone), e.g. "kitchens closing early due to rain".
+ *
+ * A broadcast is one row; users who read it get a read marker. After commit, each node walks the
+ * recipients with a server-side JDBC cursor in chunks and pushes the broadcast to the ones connected
+ * to it over SSE, so neither the user base nor per-user notification rows are ever materialized.
+ */
+@Service
+public class BroadcastService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BroadcastService.class);
+
+    private static final String ACTIVE_USER_IDS_SQL = "SELECT id FROM users WHERE is_active = true";
+
+    // Roles may be stored with or without the ROLE_ prefix (see RoleConverter)
+    private static final String ACTIVE_USER_IDS_BY_ROLE_SQL = ACTIVE_USER_IDS_SQL + " AND role IN (?, ?)";
+
+    private final BroadcastNotificationRepository broadcastRepository;
+    private final BroadcastReadMarkerRepository readMarkerRepository;
+    private final SseEventService sseEventService;
+    private final SseClusterBus clusterBus;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ThreadPoolExecutor pushExecutor;
+
+    @Value("${notifications.broadcast.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${notifications.broadcast.visible-days:30}")
+    private int visibleDays;
+
+    public BroadcastService(BroadcastNotificationRepository broadcastRepository,
+            BroadcastReadMarkerRepository readMarkerRepository, SseEventService sseEventService,
+            SseClusterBus clusterBus, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.broadcastRepository = broadcastRepository;
+        this.readMarkerRepository = readMarkerRepository;
+        this.sseEventService = sseEventService;
+        this.clusterBus = clusterBus;
+        this.jdbcTemplate = jdbcTemplate;
+        // PostgreSQL only streams with a cursor inside a transaction
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.pushExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(100), r -> {
+            Thread t = new Thread(r, "broadcast-push");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PostConstruct
+    void init() {
+        clusterBus.subscribeBroadcasts(this::pushAnnouncedBroadcast);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pushExecutor.shutdownNow();
+    }
+
+    /**
+     * Store a broadcast and push it to connected recipients once committed
+     */
+    @Transactional
+    public BroadcastDtos.BroadcastResponse createBroadcast(Long adminUserId, BroadcastDtos.CreateBroadcastRequest request) {
+        if (request.getTitle() == null || request.getTitle().isBlank()) {
+            throw new BadRequestException("Title is required");
+        }
+        if (request.getMessage() == null || request.getMessage().isBlank()) {
+            throw new BadRequestException("Message is required");
+        }
+
+        BroadcastNotification broadcast = new BroadcastNotification();
+        broadcast.setTitle(request.getTitle().trim());
+        broadcast.setMessage(request.getMessage().trim());
+        broadcast.setTargetRole(request.getTargetRole());
+        broadcast.setCreatedByUserId(adminUserId);
+        BroadcastNotification saved = broadcastRepository.save(broadcast);
+
+        TransactionUtils.afterCommit(() -> {
+            schedulePush(saved);
+            clusterBus.publishBroadcast(saved.getId());
+        });
+        logger.info("Broadcast {} created for {}", saved.getId(),
+                saved.getTargetRole() != null ? saved.getTargetRole() : "all users");
+        return toResponse(saved, false);
+    }
+
+    /**
+     * Recent broadcasts visible to the user's role, newest first, with the user's read state
+     */
+    @Transactional(readOnly = true)
+    public List<BroadcastDtos.BroadcastResponse> getBroadcastsForUser(Long userId, Role role, int limit) {
+        List<BroadcastNotification> broadcasts = broadcastRepository.findVisibleToRole(role,
+                LocalDateTime.now().minusDays(visibleDays), PageRequest.of(0, limit));
+        if (broadcasts.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = new ArrayList<>(broadcasts.size());
+        for (BroadcastNotification broadcast : broadcasts) {
+            ids.add(broadcast.getId());
+        }
+        Set<Long> readIds = new HashSet<>(readMarkerRepository.findReadBroadcastIds(userId, ids));
+
+        List<BroadcastDtos.BroadcastResponse> result = new ArrayList<>(broadcasts.size());
+        for (BroadcastNotification broadcast : broadcasts) {
+            result.add(toResponse(broadcast, readIds.contains(broadcast.getId())));
+        }
+        return result;
+    }
+
+    @Transactional
+    public void markAsRead(Long userId, Role role, Long broadcastId) {
+        BroadcastNotification broadcast = broadcastRepository.findById(broadcastId)
+                .orElseThrow(() -> new ResourceNotFoundException("Broadcast not found"));
+        if (broadcast.getTargetRole() != null && broadcast.getTargetRole() != role) {
+            throw new ResourceNotFoundException("Broadcast not found");
+        }
+        readMarkerRepository.markRead(userId, broadcastId);
+    }
+
+    // Another node created the broadcast; push it to the users connected here
+    private void pushAnnouncedBroadcast(Long broadcastId) {
+        broadcastRepository.findById(broadcastId).ifPresent(this::schedulePush);
+    }
+
+    private void schedulePush(BroadcastNotification broadcast) {
+        try {
+            pushExecutor.execute(() -> pushToConnectedUsers(broadcast));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Broadcast push queue full, broadcast {} will only show in the list", broadcast.getId());
+        }
+    }
+
+    /**
+     * Stream recipient ids through a cursor and push to the ones with a session on this node, chunk by chunk
+     */
+    void pushToConnectedUsers(BroadcastNotification broadcast) {
+        if (sseEventService.getActiveConnectionsCount() == 0) {
+            return;
+        }
+        Map<String, Object> data = toEventData(broadcast);
+        Role role = broadcast.getTargetRole();
+        List<Long> chunk = new ArrayList<>(chunkSize);
+        int[] pushed = new int[1];
+
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    role != null ? ACTIVE_USER_IDS_BY_ROLE_SQL : ACTIVE_USER_IDS_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(chunkSize);
+            if (role != null) {
+                ps.setString(1, role.name());
+                ps.setString(2, role.name().substring("ROLE_".length()));
+            }
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            chunk.add(rs.getLong(1));
+            if (chunk.size() >= chunkSize) {
+                pushed[0] += pushChunk(chunk, data);
+                chunk.clear();
+            }
+        }));
+        pushed[0] += pushChunk(chunk, data);
+        logger.info("Broadcast {} pushed to {} connected users", broadcast.getId(), pushed[0]);
+    }
+
+    private int pushChunk(List<Long> userIds, Map<String, Object> data) {
+        int pushed = 0;
+        for (Long userId : userIds) {
+            if (sseEventService.hasConnection(userId)) {
+                sseEventService.sendToLocalSessions(userId, "broadcast", data);
+                pushed++;
+            }
+        }
+        return pushed;
+    }
+
+    private Map<String, Object> toEventData(BroadcastNotification broadcast) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("broadcastId", broadcast.getId());
+        data.put("title", broadcast.getTitle());
+        data.put("message", broadcast.getMessage());
+        data.put("createdAt", broadcast.getCreatedAt().toString());
+        return data;
+    }
+
+    private BroadcastDtos.BroadcastResponse toResponse(BroadcastNotification broadcast, boolean read) {
+        BroadcastDtos.BroadcastResponse response = new BroadcastDtos.BroadcastResponse();
+        response.setId(broadcast.getId());
+        response.setTitle(broadcast.getTitle());
+        response.setMessage(broadcast.getMessage());
+        response.setTargetRole(broadcast.getTargetRole());
+        response.setCreatedAt(broadcast.getCreatedAt());
+        response.setIsRead(read);
+        return response;
+    }
+}
@@ -1,6 +1,7 @@
 package com.cooktodor.service;
 
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -9,9 +10,7 @@ import org.springframework.transaction.annotation.Transactional;
 import com.cooktodor.enums.ImageType;
 import com.cooktodor.exception.ResourceNotFoundException;
 import com.cooktodor.model.Category;
-import com.cooktodor.model.Image;
 import com.cooktodor.repository.CategoryRepository;
-import com.cooktodor.repository.ImageRepository;
 
 @Service
 public class CategoryService {
@@ -20,7 +19,7 @@ public class CategoryService {
     CategoryRepository categoryRepository;
 
     @Autowired
-    ImageRepository imageRepository;
+    ImageService imageService;
 
     @Transactional
     public Category createCategory(Category category) {
@@ -32,7 +31,14 @@ public class CategoryService {
     @Transactional(readOnly = true)
     public List<Category> getCatogaries() {
         List<Category> categories = categoryRepository.findAllByIsActiveTrue();
-        categories.forEach(this::loadExtras);
+        // One query finds the categories that have an image; categories without one skip the per-owner lookup
+        Map<Long, List<Long>> imageIds = imageService.getImageIds(ImageType.CATEGORY,
+                categories.stream().map(Category::getId).toList());
+        for (Category category : categories) {
+            if (imageIds.containsKey(category.getId())) {
+                loadExtras(category);
+            }
+        }
         return categories;
     }
 
@@ -64,16 +70,9 @@ public class CategoryService {
     // ---------------- Load category image ----------------
     @Transactional(readOnly = true)
     private void loadExtras(Category category) {
-        imageRepository.findImageByImageTypeAndOwnerId(ImageType.CATEGORY, category.getId())
-                .ifPresent(image -> {
-                    // Force load base64Data by accessing it and ensuring it's not null
-                    String base64 = image.getBase64Data();
-                    if (base64 != null) {
-                        // Ensure the data is fully loaded by checking its length
-                        base64.length();
-                    }
-                    category.setCategoryImage(image);
-                });
+        // Category images are read on almost every screen - served from the hot image cache
+        imageService.getOwnerImage(ImageType.CATEGORY, category.getId())
+                .ifPresent(category::setCategoryImage);
     }
     
 }
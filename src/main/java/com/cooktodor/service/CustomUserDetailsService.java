@@ -7,10 +7,19 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import com.cooktodor.config.security.AuthenticatedUser;
+import com.cooktodor.enums.Role;
+import com.cooktodor.model.Customer;
+import com.cooktodor.model.DeliveryPartner;
+import com.cooktodor.model.TiffinProvider;
 import com.cooktodor.model.User;
+import com.cooktodor.repository.CustomerRepository;
+import com.cooktodor.repository.DeliveryPartnerRepository;
+import com.cooktodor.repository.TiffinProviderRepository;
 import com.cooktodor.repository.UserRepository;
 
 import java.util.Collections;
+import java.util.List;
 
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
@@ -18,19 +27,49 @@ public class CustomUserDetailsService implements UserDetailsService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private TiffinProviderRepository tiffinProviderRepository;
+
+    @Autowired
+    private DeliveryPartnerRepository deliveryPartnerRepository;
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
-        
-        return org.springframework.security.core.userdetails.User.builder()
-                .username(user.getUsername())
-                .password(user.getPassword())
-                .authorities(Collections.singletonList(new SimpleGrantedAuthority(user.getRole().name())))
-                .accountExpired(false)
-                .accountLocked(false)
-                .credentialsExpired(false)
-                .disabled(false)
-                .build();
+
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getPassword(), user.getRole(),
+                Collections.singletonList(new SimpleGrantedAuthority(user.getRole().name())));
+    }
+
+    /**
+     * Principal including the id of the user's role profile, used when issuing tokens
+     */
+    public AuthenticatedUser loadPrincipalWithProfile(String username) throws UsernameNotFoundException {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
+
+        Long customerId = null;
+        Long providerId = null;
+        Long deliveryPartnerId = null;
+        if (user.getRole() == Role.ROLE_CUSTOMER) {
+            customerId = customerRepository.findByUser_IdAndIsDeletedFalse(user.getId())
+                    .map(Customer::getId)
+                    .orElse(null);
+        } else if (user.getRole() == Role.ROLE_PROVIDER) {
+            TiffinProvider provider = tiffinProviderRepository.findByUser_Id(user.getId());
+            providerId = provider != null ? provider.getId() : null;
+        } else if (user.getRole() == Role.ROLE_DELIVERY_PARTNER) {
+            // Same choice as the order endpoints make: the first active profile
+            List<DeliveryPartner> partners = deliveryPartnerRepository.findByUser_IdAndIsDeletedFalse(user.getId());
+            deliveryPartnerId = partners.isEmpty() ? null : partners.get(0).getId();
+        }
+
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getPassword(), user.getRole(),
+                Collections.singletonList(new SimpleGrantedAuthority(user.getRole().name())),
+                customerId, providerId, deliveryPartnerId);
     }
-} 
\ No newline at end of file
+}
@@ -26,6 +26,9 @@ public class CustomerService {
     @Autowired
     private ImageRepository imageRepository;
 
+    @Autowired
+    private ImageService imageService;
+
     public Customer create(Customer customer) {
         return customerRepository.save(customer);
     }
@@ -53,6 +56,7 @@ public class CustomerService {
         Long imageId = imageRepository.findIdByImageTypeAndOwnerId(ImageType.CUSTOMER_PROFILE, customer.getId());
         if (imageId != null) {
             Image profileImage = imageRepository.findById(imageId).orElse(null);
+            imageService.loadBase64Data(profileImage);
             customer.setProfileImage(profileImage);
         }
     }
@@ -0,0 +1,252 @@
+package com.cooktodor.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Small in-memory cache for images that are read on almost every screen (category images, profile pictures).
+ *
+ * Bounded by total bytes rather than entry count, with W-TinyLFU admission: new entries land in a small
+ * LRU window, and an entry leaving the window only enters the main LRU region if it has been requested
+ * more often than the main region's eviction victim. One-off large reads therefore cannot flush hot images.
+ * Image bytes are held in direct (off-heap) buffers so a full cache adds no old-generation GC work; the
+ * image endpoint streams them out without a heap copy (listings that embed base64 still build a string).
+ * Callers check accepts() before building an entry, so oversized images never allocate a direct buffer.
+ * Invalidation is local to this node, so entries also expire a fixed time after they were loaded; that
+ * bounds how long another node's replaced image can still be served here.
+ */
+@Component
+public class HotImageCache {
+
+    private final long windowMaxBytes;
+    private final long mainMaxBytes;
+    private final int maxEntryBytes;
+    private final long ttlNanos;
+
+    private final LinkedHashMap<String, CachedImage> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, CachedImage> main = new LinkedHashMap<>(64, 0.75f, true);
+    private long windowBytes;
+    private long mainBytes;
+
+    private final FrequencySketch sketch;
+
+    public HotImageCache(@Value("${images.cache.max-bytes:33554432}") long maxBytes,
+            @Value("${images.cache.max-entry-bytes:524288}") int maxEntryBytes,
+            @Value("${images.cache.ttl-seconds:60}") long ttlSeconds) {
+        this.maxEntryBytes = maxEntryBytes;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        // Window gets 10% of the budget, but always room for at least one entry
+        this.windowMaxBytes = Math.max(maxBytes / 10, maxEntryBytes);
+        this.mainMaxBytes = Math.max(maxBytes - windowMaxBytes, maxEntryBytes);
+        this.sketch = new FrequencySketch((int) Math.min(Math.max(maxBytes / 16_384, 1_024), 1 << 20));
+    }
+
+    // Whether an image of this size would be kept; larger ones are served without going through the cache
+    public boolean accepts(long size) {
+        return size <= maxEntryBytes;
+    }
+
+    public synchronized CachedImage get(String key) {
+        sketch.increment(key);
+        CachedImage image = window.get(key);
+        if (image == null) {
+            image = main.get(key);
+        }
+        if (image != null && System.nanoTime() - image.loadedAt >= ttlNanos) {
+            invalidate(key);
+            return null;
+        }
+        return image;
+    }
+
+    public synchronized void put(String key, CachedImage image) {
+        if (!accepts(image.size())) {
+            return;
+        }
+        invalidate(key);
+        window.put(key, image);
+        windowBytes += image.size();
+        while (windowBytes > windowMaxBytes) {
+            Map.Entry<String, CachedImage> eldest = window.entrySet().iterator().next();
+            window.remove(eldest.getKey());
+            windowBytes -= eldest.getValue().size();
+            admitToMain(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    public synchronized void invalidate(String key) {
+        CachedImage removed = window.remove(key);
+        if (removed != null) {
+            windowBytes -= removed.size();
+        }
+        removed = main.remove(key);
+        if (removed != null) {
+            mainBytes -= removed.size();
+        }
+    }
+
+    public synchronized long sizeInBytes() {
+        return windowBytes + mainBytes;
+    }
+
+    // TinyLFU admission: the candidate has to beat every victim it would displace
+    private void admitToMain(String key, CachedImage candidate) {
+        int candidateFrequency = sketch.frequency(key);
+        Iterator<Map.Entry<String, CachedImage>> victims = main.entrySet().iterator();
+        long freed = 0;
+        List<String> toEvict = new ArrayList<>();
+        while (mainBytes - freed + candidate.size() > mainMaxBytes && victims.hasNext()) {
+            Map.Entry<String, CachedImage> victim = victims.next();
+            if (sketch.frequency(victim.getKey()) >= candidateFrequency) {
+                return; // candidate rejected, main region unchanged
+            }
+            toEvict.add(victim.getKey());
+            freed += victim.getValue().size();
+        }
+        for (String evicted : toEvict) {
+            mainBytes -= main.remove(evicted).size();
+        }
+        main.put(key, candidate);
+        mainBytes += candidate.size();
+    }
+
+    /**
+     * Image metadata on heap, image bytes off heap.
+     */
+    public static class CachedImage {
+        private final Long imageId;
+        private final String fileName;
+        private final String fileType;
+        private final String contentHash;
+        private final Integer width;
+        private final Integer height;
+        private final ByteBuffer data;
+        private final long loadedAt = System.nanoTime();
+
+        public CachedImage(Long imageId, String fileName, String fileType, String contentHash,
+                Integer width, Integer height, byte[] bytes) {
+            this.imageId = imageId;
+            this.fileName = fileName;
+            this.fileType = fileType;
+            this.contentHash = contentHash;
+            this.width = width;
+            this.height = height;
+            ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+            buffer.put(bytes).flip();
+            this.data = buffer.asReadOnlyBuffer();
+        }
+
+        public Long getImageId() { return imageId; }
+        public String getFileName() { return fileName; }
+        public String getFileType() { return fileType; }
+        public String getContentHash() { return contentHash; }
+        public Integer getWidth() { return width; }
+        public Integer getHeight() { return height; }
+
+        // Independent read-only view, safe to consume from several threads
+        public ByteBuffer getData() {
+            return data.duplicate();
+        }
+
+        public int size() {
+            return data.capacity();
+        }
+
+        // Reads straight from the off-heap buffer; each call gets its own position
+        public InputStream openStream() {
+            ByteBuffer buffer = getData();
+            return new InputStream() {
+                @Override
+                public int read() {
+                    return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    if (len == 0) {
+                        return 0;
+                    }
+                    if (!buffer.hasRemaining()) {
+                        return -1;
+                    }
+                    int n = Math.min(len, buffer.remaining());
+                    buffer.get(b, off, n);
+                    return n;
+                }
+
+                @Override
+                public int available() {
+                    return buffer.remaining();
+                }
+            };
+        }
+    }
+
+    /**
+     * Count-min sketch of 4-bit counters (4 rows) with periodic halving, so popularity decays over time.
+     */
+    static class FrequencySketch {
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = { 0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F };
+
+        private final byte[][] rows;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int width) {
+            int size = Integer.highestOneBit(Math.max(width, 16) - 1) << 1;
+            this.rows = new byte[SEEDS.length][size];
+            this.mask = size - 1;
+            this.sampleSize = size * 10;
+        }
+
+        void increment(String key) {
+            int hash = key.hashCode();
+            boolean added = false;
+            for (int i = 0; i < SEEDS.length; i++) {
+                int index = index(hash, i);
+                if (rows[i][index] < MAX_COUNT) {
+                    rows[i][index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(String key) {
+            int hash = key.hashCode();
+            int min = MAX_COUNT;
+            for (int i = 0; i < SEEDS.length; i++) {
+                min = Math.min(min, rows[i][index(hash, i)]);
+            }
+            return min;
+        }
+
+        private int index(int hash, int row) {
+            int h = (hash ^ SEEDS[row]) * 0x45D9F3B;
+            h ^= h >>> 16;
+            return h & mask;
+        }
+
+        private void reset() {
+            for (byte[] row : rows) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = (byte) (row[i] >>> 1);
+                }
+            }
+            additions /= 2;
+        }
+    }
+}
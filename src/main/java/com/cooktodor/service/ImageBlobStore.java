@@ -0,0 +1,210 @@
+package com.cooktodor.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import com.cooktodor.exception.BadRequestException;
+import com.cooktodor.exception.InternalServerException;
+import com.cooktodor.exception.ResourceNotFoundException;
+import com.cooktodor.utils.ImageUtils;
+
+import jakarta.annotation.PostConstruct;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed image storage on the local filesystem.
+ * Blobs are keyed by the SHA-256 of their bytes (stored under {@code <dir>/<first 2 hex chars>/<hash>}),
+ * so identical uploads are written once and only the hash is kept in the images table.
+ */
+@Service
+public class ImageBlobStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageBlobStore.class);
+
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-f]{64}");
+
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    @Value("${images.storage.dir:uploads/images}")
+    private String storageDir;
+
+    private Path root;
+
+    @PostConstruct
+    void init() throws IOException {
+        root = Paths.get(storageDir).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+        logger.info("Image blob store at {}", root);
+    }
+
+    /**
+     * Store the bytes and return their SHA-256 hex hash. Existing content is not rewritten.
+     */
+    public String store(byte[] data) {
+        String hash = sha256Hex(data);
+        Path target = resolve(hash);
+        if (Files.exists(target)) {
+            return hash;
+        }
+        try {
+            Files.createDirectories(target.getParent());
+            // Write to a temp file first so readers never see a partially written blob
+            Path temp = Files.createTempFile(root, "upload-", ".tmp");
+            try {
+                Files.write(temp, data);
+                moveIntoPlace(temp, target);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new InternalServerException("Failed to store image", e);
+        }
+        return hash;
+    }
+
+    /**
+     * Stream an upload into the store through a fixed-size buffer, hashing as it goes.
+     * The content must start with a known image signature and stay within maxBytes;
+     * otherwise nothing is stored and a BadRequestException is thrown.
+     */
+    public StoredBlob store(InputStream in, long maxBytes) throws IOException {
+        MessageDigest digest = newSha256();
+        byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+        byte[] header = new byte[ImageUtils.SIGNATURE_LENGTH];
+        int headerLength = 0;
+        String contentType = null;
+        long size = 0;
+
+        Path temp = Files.createTempFile(root, "upload-", ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxBytes) {
+                        throw new BadRequestException("Image size must not exceed " + (maxBytes / 1024) + "KB");
+                    }
+                    if (headerLength < header.length) {
+                        int copy = Math.min(read, header.length - headerLength);
+                        System.arraycopy(buffer, 0, header, headerLength, copy);
+                        headerLength += copy;
+                        if (headerLength == header.length) {
+                            // Reject non-images as soon as the signature is in, before reading the rest
+                            contentType = requireImageType(header, headerLength);
+                        }
+                    }
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                }
+            }
+            if (contentType == null) {
+                contentType = requireImageType(header, headerLength);
+            }
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path target = resolve(hash);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                moveIntoPlace(temp, target);
+            }
+            return new StoredBlob(hash, size, contentType);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static String requireImageType(byte[] header, int length) {
+        String contentType = ImageUtils.detectImageType(header, length);
+        if (contentType == null) {
+            throw new BadRequestException("File content is not a supported image");
+        }
+        return contentType;
+    }
+
+    /**
+     * Streamable handle on a stored blob; the bytes are never loaded up front.
+     */
+    public Resource load(String hash) {
+        Path path = resolve(hash);
+        if (!Files.isRegularFile(path)) {
+            throw new ResourceNotFoundException("Image content not found: " + hash);
+        }
+        return new FileSystemResource(path);
+    }
+
+    public byte[] read(String hash) {
+        try {
+            return Files.readAllBytes(resolve(hash));
+        } catch (IOException e) {
+            throw new ResourceNotFoundException("Image content not found: " + hash);
+        }
+    }
+
+    public InputStream openStream(String hash) throws IOException {
+        return Files.newInputStream(resolve(hash));
+    }
+
+    public boolean exists(String hash) {
+        return Files.isRegularFile(resolve(hash));
+    }
+
+    Path resolve(String hash) {
+        if (hash == null || !SHA256_HEX.matcher(hash).matches()) {
+            throw new IllegalArgumentException("Invalid content hash: " + hash);
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private void moveIntoPlace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Same content stored concurrently - keep the existing blob
+        }
+    }
+
+    public static class StoredBlob {
+        private final String hash;
+        private final long size;
+        private final String contentType;
+
+        public StoredBlob(String hash, long size, String contentType) {
+            this.hash = hash;
+            this.size = size;
+            this.contentType = contentType;
+        }
+
+        public String getHash() { return hash; }
+        public long getSize() { return size; }
+        // content type detected from the file signature, not the client-supplied header
+        public String getContentType() { return contentType; }
+    }
+
+    static String sha256Hex(byte[] data) {
+        return HexFormat.of().formatHex(newSha256().digest(data));
+    }
+
+    static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
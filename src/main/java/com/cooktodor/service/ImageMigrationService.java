@@ -0,0 +1,119 @@
+package com.cooktodor.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cooktodor.exception.BadRequestException;
+import com.cooktodor.model.Image;
+import com.cooktodor.repository.ImageRepository;
+import com.cooktodor.utils.ImageUtils;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves legacy base64 image rows out of the images table into the blob store.
+ * Works in small id-ordered batches, each in its own transaction, so it can run on a live system
+ * and be resumed after an interruption.
+ */
+@Service
+public class ImageMigrationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageMigrationService.class);
+
+    private final ImageRepository imageRepository;
+    private final ImageBlobStore imageBlobStore;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @Value("${images.migration.batch-size:50}")
+    private int batchSize;
+
+    @Value("${images.migration.on-startup:false}")
+    private boolean migrateOnStartup;
+
+    public ImageMigrationService(ImageRepository imageRepository, ImageBlobStore imageBlobStore,
+            PlatformTransactionManager transactionManager) {
+        this.imageRepository = imageRepository;
+        this.imageBlobStore = imageBlobStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!migrateOnStartup) {
+            return;
+        }
+        Thread worker = new Thread(() -> {
+            try {
+                migrateInlineImages();
+            } catch (Exception e) {
+                logger.error("Image migration failed", e);
+            }
+        }, "image-migration");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Migrate every inline image to the blob store.
+     * @return number of images migrated
+     */
+    public int migrateInlineImages() {
+        if (!running.compareAndSet(false, true)) {
+            throw new BadRequestException("Image migration is already running");
+        }
+        try {
+            int migrated = 0;
+            long afterId = 0L;
+            while (true) {
+                List<Long> ids = imageRepository.findInlineImageIdsAfter(afterId, PageRequest.of(0, batchSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                Integer count = transactionTemplate.execute(status -> migrateBatch(ids));
+                migrated += count != null ? count : 0;
+                afterId = ids.get(ids.size() - 1);
+            }
+            logger.info("Image migration finished: {} images moved to the blob store", migrated);
+            return migrated;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private int migrateBatch(List<Long> ids) {
+        int migrated = 0;
+        for (Image image : imageRepository.findAllById(ids)) {
+            if (!image.isStoredInline()) {
+                continue;
+            }
+            byte[] bytes;
+            try {
+                bytes = ImageUtils.fromBase64(image.getBase64Data());
+            } catch (IllegalArgumentException e) {
+                logger.warn("Skipping image {}: stored data is not valid base64", image.getId());
+                continue;
+            }
+            image.setContentHash(imageBlobStore.store(bytes));
+            image.setFileSize((long) bytes.length);
+            if (image.getWidth() == null) {
+                int[] dimensions = ImageUtils.readDimensions(bytes);
+                if (dimensions != null) {
+                    image.setWidth(dimensions[0]);
+                    image.setHeight(dimensions[1]);
+                }
+            }
+            image.setBase64Data(null);
+            migrated++;
+        }
+        return migrated;
+    }
+}
@@ -1,12 +1,29 @@
 package com.cooktodor.service;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.cooktodor.dto.ImageDtos;
 import com.cooktodor.enums.ImageType;
+import com.cooktodor.enums.ImageVariant;
 import com.cooktodor.model.Image;
 import com.cooktodor.repository.ImageRepository;
 import com.cooktodor.utils.ImageResponse;
@@ -16,13 +33,43 @@ import com.cooktodor.utils.ImageUtils;
 public class ImageService {
 
     private final ImageRepository imageRepository;
+    private final ImageBlobStore imageBlobStore;
+    private final ImageVariantService imageVariantService;
+    private final HotImageCache hotImageCache;
 
-    public ImageService(ImageRepository imageRepository) {
+    // id(:variant) -> content hash of what /images/view served, for answering If-None-Match without a lookup
+    private final Map<String, String> contentHashCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > CONTENT_HASH_CACHE_SIZE;
+                }
+            });
+
+    private static final int CONTENT_HASH_CACHE_SIZE = 10_000;
+
+    @Value("${images.upload.max-bytes:10485760}")
+    private long maxUploadBytes;
+
+    public ImageService(ImageRepository imageRepository, ImageBlobStore imageBlobStore,
+            ImageVariantService imageVariantService, HotImageCache hotImageCache) {
         this.imageRepository = imageRepository;
+        this.imageBlobStore = imageBlobStore;
+        this.imageVariantService = imageVariantService;
+        this.hotImageCache = hotImageCache;
     }
 
     public Image saveImage(MultipartFile file, ImageType imageType, Long ownerId) throws IOException {
-        String base64 = ImageUtils.toBase64(file);
+        // Stream the part straight into the blob store - the file is never held on the heap as a whole
+        ImageBlobStore.StoredBlob blob;
+        try (InputStream in = file.getInputStream()) {
+            blob = imageBlobStore.store(in, maxUploadBytes);
+        }
+        String contentHash = blob.getHash();
+        int[] dimensions;
+        try (InputStream in = imageBlobStore.openStream(contentHash)) {
+            dimensions = ImageUtils.readDimensions(in);
+        }
 
         if (imageType == ImageType.CUSTOMER_PROFILE || imageType == ImageType.PROVIDER_PROFILE || 
             imageType == ImageType.DELIVERY_PARTNER_PROFILE || imageType == ImageType.CATEGORY) {
@@ -30,30 +77,132 @@ public class ImageService {
             List<Image> existingImages = imageRepository.findAllByImageTypeAndOwnerId(imageType, ownerId);
             for (Image existingImage : existingImages) {
                 imageRepository.deleteById(existingImage.getId());
+                evictContentHashes(existingImage.getId());
             }
         }
 
+        // Only metadata goes to the images table; the bytes live in the blob store
         Image image = new Image(
             file.getOriginalFilename(),
-            file.getContentType(),
-            base64,
+            blob.getContentType(),
+            null,
             imageType,
             ownerId
         );
+        image.setContentHash(contentHash);
+        image.setFileSize(blob.getSize());
+        if (dimensions != null) {
+            image.setWidth(dimensions[0]);
+            image.setHeight(dimensions[1]);
+        }
 
-        return imageRepository.save(image);
+        Image saved = imageRepository.save(image);
+        invalidateOwnerImage(imageType, ownerId);
+        // thumb / card / full are generated in the background; views fall back to the original until then
+        imageVariantService.generateVariantsAsync(saved.getId(), contentHash);
+        return saved;
     }
 
     public ImageResponse getProviderProfileImage(Long providerId) {
-        Long imageId = imageRepository.findIdByImageTypeAndOwnerId(ImageType.PROVIDER_PROFILE, providerId);
-        Image image = imageRepository.findById(imageId).orElseThrow(() -> new RuntimeException("Image not found"));
-        return new ImageResponse(image.getFileType(), ImageUtils.fromBase64(image.getBase64Data()));
+        String key = ownerImageKey(ImageType.PROVIDER_PROFILE, providerId);
+        HotImageCache.CachedImage cached = hotImageCache.get(key);
+        if (cached != null) {
+            return new ImageResponse(cached.getFileType(), asResource(cached), cached.getContentHash());
+        }
+        Image image = findOwnerImage(ImageType.PROVIDER_PROFILE, providerId);
+        if (image == null) {
+            throw new RuntimeException("Image not found");
+        }
+        ImageResponse content = toImageResponse(image);
+        byte[] data = content.getData();
+        cacheOwnerImage(key, image, content.getContentHash(), data);
+        return new ImageResponse(content.getFileType(), new ByteArrayResource(data), content.getContentHash());
+    }
+
+    /**
+     * The latest image of a single-image owner (category, profile pictures) as a detached entity with its
+     * base64 data filled in. Served from the hot image cache, so repeated reads skip the DB and the blob store.
+     */
+    public Optional<Image> getOwnerImage(ImageType imageType, Long ownerId) {
+        String key = ownerImageKey(imageType, ownerId);
+        HotImageCache.CachedImage cached = hotImageCache.get(key);
+        if (cached != null) {
+            String base64 = new String(Base64.getEncoder().encode(cached.getData()).array(),
+                    StandardCharsets.ISO_8859_1);
+            return Optional.of(detachedImage(cached.getImageId(), cached.getFileName(), cached.getFileType(),
+                    cached.getContentHash(), cached.getWidth(), cached.getHeight(), imageType, ownerId, base64));
+        }
+        Image image = findOwnerImage(imageType, ownerId);
+        if (image == null) {
+            return Optional.empty();
+        }
+        ImageResponse content = toImageResponse(image);
+        byte[] data = content.getData();
+        cacheOwnerImage(key, image, content.getContentHash(), data);
+        return Optional.of(detachedImage(image.getId(), image.getFileName(), image.getFileType(),
+                content.getContentHash(), image.getWidth(), image.getHeight(), imageType, ownerId,
+                Base64.getEncoder().encodeToString(data)));
+    }
+
+    private Image findOwnerImage(ImageType imageType, Long ownerId) {
+        List<Long> imageIds = imageRepository.findAllIdsByImageTypeAndOwnerId(imageType, ownerId);
+        if (imageIds.isEmpty()) {
+            return null;
+        }
+        return imageRepository.findById(imageIds.get(0)).orElse(null);
+    }
+
+    // Size is checked first: an oversized image is served from the loaded bytes and never copied off heap
+    private void cacheOwnerImage(String key, Image image, String contentHash, byte[] data) {
+        if (hotImageCache.accepts(data.length)) {
+            hotImageCache.put(key, new HotImageCache.CachedImage(image.getId(), image.getFileName(),
+                    image.getFileType(), contentHash, image.getWidth(), image.getHeight(), data));
+        }
+    }
+
+    private static Image detachedImage(Long imageId, String fileName, String fileType, String contentHash,
+            Integer width, Integer height, ImageType imageType, Long ownerId, String base64) {
+        Image image = new Image(fileName, fileType, null, imageType, ownerId);
+        image.setId(imageId);
+        image.setContentHash(contentHash);
+        image.setWidth(width);
+        image.setHeight(height);
+        image.setLoadedBase64Data(base64);
+        return image;
+    }
+
+    // Streams the cached bytes; the known length spares the converter a pass over the stream
+    private static Resource asResource(HotImageCache.CachedImage cached) {
+        return new InputStreamResource(cached.openStream()) {
+            @Override
+            public long contentLength() {
+                return cached.size();
+            }
+        };
+    }
+
+    // Invalidate now and again after commit, so a concurrent reader cannot re-cache the replaced image
+    private void invalidateOwnerImage(ImageType imageType, Long ownerId) {
+        String key = ownerImageKey(imageType, ownerId);
+        hotImageCache.invalidate(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    hotImageCache.invalidate(key);
+                }
+            });
+        }
+    }
+
+    private static String ownerImageKey(ImageType imageType, Long ownerId) {
+        return imageType.name() + ":" + ownerId;
     }
 
     public ImageResponse getCustomerProfileImage(Long customerId) {
         Long imageId = imageRepository.findIdByImageTypeAndOwnerId(ImageType.CUSTOMER_PROFILE, customerId);
         Image image = imageRepository.findById(imageId).orElseThrow(() -> new RuntimeException("Image not found"));
-        return new ImageResponse(image.getFileType(), ImageUtils.fromBase64(image.getBase64Data()));
+        return toImageResponse(image);
     }
 
     // public ImageResponse getCustomerProfileImage(Long providerId) {
@@ -62,13 +211,95 @@ public class ImageService {
     // }
 
     public ImageResponse getImage(Long imageId) {
+        return getImage(imageId, null);
+    }
+
+    // Serve the requested variant if it has been generated, otherwise the original
+    public ImageResponse getImage(Long imageId, ImageVariant variant) {
         Image image = imageRepository.findById(imageId)
                 .orElseThrow(() -> new RuntimeException("Image not found"));
 
-        return new ImageResponse(
-                image.getFileType(),
-                ImageUtils.fromBase64(image.getBase64Data())
-        );
+        ImageResponse response;
+        String variantHash = variant != null ? image.getVariantHash(variant) : null;
+        if (variantHash != null) {
+            response = new ImageResponse("image/jpeg", imageBlobStore.load(variantHash), variantHash);
+        } else if (variant != null) {
+            // Variant not generated yet - the original stands in, but this URL's content will change
+            ImageResponse original = toImageResponse(image);
+            response = new ImageResponse(original.getFileType(), original.getResource(),
+                    original.getContentHash(), false);
+        } else {
+            response = toImageResponse(image);
+        }
+
+        if (response.isImmutable()) {
+            contentHashCache.put(contentHashKey(imageId, variant), response.getContentHash());
+        }
+        return response;
+    }
+
+    /**
+     * Content hash of an image (or variant) served before, without touching the database.
+     * Image rows are never updated in place (replacing an image creates a new id), so a cached hash
+     * stays valid for the lifetime of the id.
+     */
+    public String getCachedContentHash(Long imageId, ImageVariant variant) {
+        return contentHashCache.get(contentHashKey(imageId, variant));
+    }
+
+    private void evictContentHashes(Long imageId) {
+        contentHashCache.remove(contentHashKey(imageId, null));
+        for (ImageVariant variant : ImageVariant.values()) {
+            contentHashCache.remove(contentHashKey(imageId, variant));
+        }
+    }
+
+    private static String contentHashKey(Long imageId, ImageVariant variant) {
+        return variant == null ? imageId.toString() : imageId + ":" + variant.name();
     }
-}
 
+    // Blob store images are streamed from disk; legacy rows are decoded from base64
+    private ImageResponse toImageResponse(Image image) {
+        if (image.isStoredInline()) {
+            byte[] data = ImageUtils.fromBase64(image.getBase64Data());
+            return new ImageResponse(image.getFileType(), new ByteArrayResource(data),
+                    ImageBlobStore.sha256Hex(data));
+        }
+        return new ImageResponse(image.getFileType(), imageBlobStore.load(image.getContentHash()),
+                image.getContentHash());
+    }
+
+    /**
+     * Fill in base64 data for blob store images, for responses that still embed image data.
+     * The value is transient and never written back to the images table.
+     */
+    public void loadBase64Data(Image image) {
+        if (image != null && !image.isStoredInline() && image.getContentHash() != null) {
+            image.setLoadedBase64Data(ImageUtils.toBase64(imageBlobStore.read(image.getContentHash())));
+        }
+    }
+
+    // Image ids per owner (ascending) in one query - replaces per-owner findIdByImageTypeAndOwnerId calls
+    public Map<Long, List<Long>> getImageIds(ImageType imageType, Collection<Long> ownerIds) {
+        Map<Long, List<Long>> idsByOwner = new LinkedHashMap<>();
+        if (ownerIds == null || ownerIds.isEmpty()) {
+            return idsByOwner;
+        }
+        for (Object[] row : imageRepository.findOwnerIdsAndIdsByImageTypeAndOwnerIds(imageType, ownerIds)) {
+            idsByOwner.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add((Long) row[1]);
+        }
+        return idsByOwner;
+    }
+
+    // Image references (id, url, dimensions) per owner in one query, without reading image data
+    public Map<Long, List<ImageDtos.ImageRef>> getImageRefs(ImageType imageType, Collection<Long> ownerIds) {
+        Map<Long, List<ImageDtos.ImageRef>> refsByOwner = new LinkedHashMap<>();
+        if (ownerIds == null || ownerIds.isEmpty()) {
+            return refsByOwner;
+        }
+        for (ImageDtos.ImageRef ref : imageRepository.findImageRefsByImageTypeAndOwnerIds(imageType, ownerIds)) {
+            refsByOwner.computeIfAbsent(ref.getOwnerId(), k -> new ArrayList<>()).add(ref);
+        }
+        return refsByOwner;
+    }
+}
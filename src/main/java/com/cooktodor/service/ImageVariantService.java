@@ -0,0 +1,120 @@
+package com.cooktodor.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cooktodor.enums.ImageVariant;
+import com.cooktodor.repository.ImageRepository;
+import com.cooktodor.utils.ImageUtils;
+
+import jakarta.annotation.PreDestroy;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Generates the thumb / card / full JPEG variants of uploaded images on a small bounded worker pool.
+ * Until a variant exists, /images/view falls back to the original, so a full queue only delays variants.
+ */
+@Service
+public class ImageVariantService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageVariantService.class);
+
+    private static final float JPEG_QUALITY = 0.82f;
+
+    // Refuse to decode images whose header claims more pixels than this (decompression bombs)
+    private static final long MAX_SOURCE_PIXELS = 40_000_000L;
+
+    private final ImageRepository imageRepository;
+    private final ImageBlobStore imageBlobStore;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executor;
+
+    public ImageVariantService(ImageRepository imageRepository, ImageBlobStore imageBlobStore,
+            PlatformTransactionManager transactionManager,
+            @Value("${images.variants.workers:2}") int workers,
+            @Value("${images.variants.queue-capacity:200}") int queueCapacity) {
+        this.imageRepository = imageRepository;
+        this.imageBlobStore = imageBlobStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "image-variants-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * Queue variant generation for a stored image. When called inside a transaction the work starts
+     * after commit, so the worker always sees the image row.
+     */
+    public void generateVariantsAsync(Long imageId, String contentHash) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(imageId, contentHash);
+                }
+            });
+        } else {
+            submit(imageId, contentHash);
+        }
+    }
+
+    private void submit(Long imageId, String contentHash) {
+        try {
+            executor.execute(() -> generateVariants(imageId, contentHash));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Variant queue full, image {} will be served as original only", imageId);
+        }
+    }
+
+    void generateVariants(Long imageId, String contentHash) {
+        try {
+            byte[] original = imageBlobStore.read(contentHash);
+            int[] dimensions = ImageUtils.readDimensions(original);
+            if (dimensions == null || (long) dimensions[0] * dimensions[1] > MAX_SOURCE_PIXELS) {
+                logger.info("Skipping variants for image {}: unsupported or oversized source", imageId);
+                return;
+            }
+            BufferedImage source = ImageIO.read(new ByteArrayInputStream(original));
+            if (source == null) {
+                return;
+            }
+
+            Map<ImageVariant, String> hashes = new EnumMap<>(ImageVariant.class);
+            for (ImageVariant variant : ImageVariant.values()) {
+                byte[] encoded = ImageUtils.toJpeg(ImageUtils.resize(source, variant.getMaxDimension()), JPEG_QUALITY);
+                hashes.put(variant, imageBlobStore.store(encoded));
+            }
+
+            transactionTemplate.executeWithoutResult(status -> imageRepository.updateVariantHashes(imageId,
+                    hashes.get(ImageVariant.THUMB), hashes.get(ImageVariant.CARD), hashes.get(ImageVariant.FULL)));
+        } catch (Exception e) {
+            logger.error("Failed to generate variants for image {}", imageId, e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
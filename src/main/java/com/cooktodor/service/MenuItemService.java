@@ -30,6 +30,9 @@ public class MenuItemService {
     @Autowired
     ImageRepository imageRepository;
 
+    @Autowired
+    ImageService imageService;
+
     @Autowired
     RatingReviewRepository ratingReviewRepository;
 
@@ -55,63 +58,84 @@ public class MenuItemService {
 
     // Customer-facing methods with pagination
     @Transactional(readOnly = true)
-    public Page<MenuItem> getAvailableMenuItems(Pageable pageable) {
+    public Page<MenuItem> getAvailableMenuItems(Pageable pageable, boolean includeImageData) {
         Page<MenuItem> page = menuItemRepository.findAvailableMenuItems(pageable);
-        page.getContent().forEach(this::loadExtras);
+        page.getContent().forEach(item -> loadExtras(item, includeImageData));
         return page;
     }
 
     @Transactional(readOnly = true)
-    public Page<MenuItem> getAvailableMenuItemsByProvider(Long providerId, Pageable pageable) {
+    public Page<MenuItem> getAvailableMenuItemsByProvider(Long providerId, Pageable pageable, boolean includeImageData) {
         Page<MenuItem> page = menuItemRepository.findAvailableMenuItemsByProvider(providerId, pageable);
-        page.getContent().forEach(this::loadExtras);
+        page.getContent().forEach(item -> loadExtras(item, includeImageData));
         return page;
     }
 
     @Transactional(readOnly = true)
-    public Page<MenuItem> getAvailableMenuItemsByCategory(Long categoryId, Pageable pageable) {
+    public Page<MenuItem> getAvailableMenuItemsByCategory(Long categoryId, Pageable pageable, boolean includeImageData) {
         Page<MenuItem> page = menuItemRepository.findAvailableMenuItemsByCategory(categoryId, pageable);
-        page.getContent().forEach(this::loadExtras);
+        page.getContent().forEach(item -> loadExtras(item, includeImageData));
         return page;
     }
 
     @Transactional(readOnly = true)
-    public Page<MenuItem> getAvailableMenuItemsByMealType(MealType mealType, Pageable pageable) {
+    public Page<MenuItem> getAvailableMenuItemsByMealType(MealType mealType, Pageable pageable, boolean includeImageData) {
         Page<MenuItem> page = menuItemRepository.findAvailableMenuItemsByMealType(mealType, pageable);
-        page.getContent().forEach(this::loadExtras);
+        page.getContent().forEach(item -> loadExtras(item, includeImageData));
         return page;
     }
 
     @Transactional(readOnly = true)
-    public Page<MenuItem> searchAvailableMenuItems(String searchTerm, Pageable pageable) {
+    public Page<MenuItem> searchAvailableMenuItems(String searchTerm, Pageable pageable, boolean includeImageData) {
         Page<MenuItem> page = menuItemRepository.searchAvailableMenuItems(searchTerm, pageable);
-        page.getContent().forEach(this::loadExtras);
+        page.getContent().forEach(item -> loadExtras(item, includeImageData));
         return page;
     }
 
     @Transactional(readOnly = true)
-    public Page<MenuItem> getAvailableMenuItemsByProviderAndCategory(Long providerId, Long categoryId, Pageable pageable) {
+    public Page<MenuItem> getAvailableMenuItemsByProviderAndCategory(Long providerId, Long categoryId, Pageable pageable, boolean includeImageData) {
         Page<MenuItem> page = menuItemRepository.findAvailableMenuItemsByProviderAndCategory(providerId, categoryId, pageable);
-        page.getContent().forEach(this::loadExtras);
+        page.getContent().forEach(item -> loadExtras(item, includeImageData));
         return page;
     }
 
     @Transactional(readOnly = true)
-    public MenuItem getAvailableMenuItemById(Long itemId) {
+    public MenuItem getAvailableMenuItemById(Long itemId, boolean includeImageData) {
         MenuItem item = menuItemRepository.findAvailableMenuItemById(itemId)
                 .orElseThrow(() -> new ResourceNotFoundException("Menu item not found or not available"));
-        loadExtras(item);
+        loadExtras(item, includeImageData);
         return item;
     }
 
     // ---------------- Load product images and ratings ---------------- 
     @Transactional(readOnly = true)
     private void loadExtras(MenuItem menuItem) {
+        loadExtras(menuItem, true);
+    }
+
+    // includeImageData = false skips the image rows entirely (lean listings fetch image references instead)
+    private void loadExtras(MenuItem menuItem, boolean includeImageData) {
+        if (includeImageData) {
+            loadImages(menuItem);
+        }
+        
+        // Load ratings (only non-deleted)
+        List<com.cooktodor.model.RatingReview> ratings = ratingReviewRepository
+                .findByRatingTypeAndTargetId(RatingType.ITEM_RATING, menuItem.getId());
+        // Filter out deleted ratings
+        List<com.cooktodor.model.RatingReview> activeRatings = ratings.stream()
+                .filter(r -> !Boolean.TRUE.equals(r.getIsDeleted()))
+                .toList();
+        menuItem.setRatings(activeRatings);
+    }
+
+    private void loadImages(MenuItem menuItem) {
         // Load images
         List<com.cooktodor.model.Image> images = imageRepository.findAllByImageTypeAndOwnerId(
                 ImageType.PRODUCT, menuItem.getId());
         // Explicitly access base64Data to force loading within transaction
         images.forEach(image -> {
+            imageService.loadBase64Data(image);
             String base64 = image.getBase64Data();
             if (base64 != null) {
                 // Force load by accessing the data
@@ -119,15 +143,6 @@ public class MenuItemService {
             }
         });
         menuItem.setImages(images);
-        
-        // Load ratings (only non-deleted)
-        List<com.cooktodor.model.RatingReview> ratings = ratingReviewRepository
-                .findByRatingTypeAndTargetId(RatingType.ITEM_RATING, menuItem.getId());
-        // Filter out deleted ratings
-        List<com.cooktodor.model.RatingReview> activeRatings = ratings.stream()
-                .filter(r -> !Boolean.TRUE.equals(r.getIsDeleted()))
-                .toList();
-        menuItem.setRatings(activeRatings);
     }
     
     // Method to find menu item by ID and load extras (for provider's own items)
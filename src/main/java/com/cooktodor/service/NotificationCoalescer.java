@@ -0,0 +1,197 @@
+package com.cooktodor.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merges bursts of notifications about the same user + related entity (e.g. one order going through
+ * paid, accepted, partner assigned) into a single notification.
+ *
+ * The first notification for a key opens a digest window; later ones inside the window replace its
+ * content, so the notification sent at the end of the window carries the latest state. Rules per type:
+ * progress updates merge, a cancellation drops the pending digest and goes out at once, and anything
+ * else (or without a related entity) is never delayed.
+ */
+@Component
+public class NotificationCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationCoalescer.class);
+
+    // Intermediate states of an order - only the latest one matters to the user. ORDER_CREATED is not one:
+    // the new-order alert is rendered specially and must not be replaced by a following payment update
+    private static final Set<String> MERGED_TYPES = Set.of("PAYMENT", "ORDER_UPDATE", "DELIVERY_ASSIGNED");
+
+    // Final states - supersede whatever is pending for the same entity
+    private static final Set<String> SUPERSEDING_TYPES = Set.of("ORDER_CANCELLED");
+
+    private final Map<DigestKey, Digest> pending = new ConcurrentHashMap<>();
+
+    @Value("${notifications.coalesce.window-ms:2000}")
+    private long windowMs;
+
+    private ScheduledExecutorService scheduler;
+
+    private volatile DigestSink sink;
+
+    @PostConstruct
+    void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "notification-digest");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Where finished digests go; set once by NotificationService
+     */
+    public void setSink(DigestSink sink) {
+        this.sink = sink;
+    }
+
+    public void submit(Long userId, String title, String message, String notificationType,
+            String relatedEntityType, Long relatedEntityId) {
+        Digest incoming = new Digest(userId, title, message, notificationType, relatedEntityType, relatedEntityId);
+        if (windowMs <= 0 || relatedEntityId == null || scheduler.isShutdown()) {
+            sink.deliver(incoming);
+            return;
+        }
+        DigestKey key = new DigestKey(userId, relatedEntityType, relatedEntityId);
+        if (SUPERSEDING_TYPES.contains(notificationType)) {
+            Digest dropped = pending.remove(key);
+            if (dropped != null) {
+                logger.debug("Dropping {} pending notifications for user {} superseded by {}",
+                        dropped.getMergedCount(), userId, notificationType);
+            }
+            sink.deliver(incoming);
+            return;
+        }
+        if (!MERGED_TYPES.contains(notificationType)) {
+            sink.deliver(incoming);
+            return;
+        }
+        Digest[] opened = new Digest[1];
+        pending.compute(key, (k, digest) -> {
+            if (digest == null) {
+                opened[0] = incoming;
+                return incoming;
+            }
+            digest.merge(incoming);
+            return digest;
+        });
+        if (opened[0] != null) {
+            Digest digest = opened[0];
+            scheduler.schedule(() -> flush(key, digest), windowMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flush(DigestKey key, Digest digest) {
+        // remove() fails if the digest was superseded or already flushed
+        if (pending.remove(key, digest)) {
+            try {
+                sink.deliver(digest);
+            } catch (Exception e) {
+                logger.error("Failed to deliver notification digest for user {}", digest.getUserId(), e);
+            }
+        }
+    }
+
+    /**
+     * Deliver every open digest now (shutdown)
+     */
+    public void flushAll() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        List<DigestKey> keys = new ArrayList<>(pending.keySet());
+        for (DigestKey key : keys) {
+            Digest digest = pending.get(key);
+            if (digest != null) {
+                flush(key, digest);
+            }
+        }
+    }
+
+    public interface DigestSink {
+        void deliver(Digest digest);
+    }
+
+    /**
+     * Content of the notification to send; mutated only inside ConcurrentHashMap.compute
+     */
+    public static class Digest {
+        private final Long userId;
+        private final String relatedEntityType;
+        private final Long relatedEntityId;
+        private String title;
+        private String message;
+        private String notificationType;
+        private int mergedCount = 1;
+
+        Digest(Long userId, String title, String message, String notificationType,
+                String relatedEntityType, Long relatedEntityId) {
+            this.userId = userId;
+            this.title = title;
+            this.message = message;
+            this.notificationType = notificationType;
+            this.relatedEntityType = relatedEntityType;
+            this.relatedEntityId = relatedEntityId;
+        }
+
+        void merge(Digest newer) {
+            this.title = newer.title;
+            this.message = newer.message;
+            this.notificationType = newer.notificationType;
+            this.mergedCount++;
+        }
+
+        public Long getUserId() { return userId; }
+        public String getTitle() { return title; }
+        public String getMessage() { return message; }
+        public String getNotificationType() { return notificationType; }
+        public String getRelatedEntityType() { return relatedEntityType; }
+        public Long getRelatedEntityId() { return relatedEntityId; }
+        public int getMergedCount() { return mergedCount; }
+    }
+
+    private static class DigestKey {
+        private final Long userId;
+        private final String relatedEntityType;
+        private final Long relatedEntityId;
+
+        DigestKey(Long userId, String relatedEntityType, Long relatedEntityId) {
+            this.userId = userId;
+            this.relatedEntityType = relatedEntityType;
+            this.relatedEntityId = relatedEntityId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof DigestKey)) return false;
+            DigestKey other = (DigestKey) o;
+            return Objects.equals(userId, other.userId)
+                    && Objects.equals(relatedEntityType, other.relatedEntityType)
+                    && Objects.equals(relatedEntityId, other.relatedEntityId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, relatedEntityType, relatedEntityId);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.cooktodor.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes read (and soft-deleted) notifications older than the retention period.
+ *
+ * Runs in small batches, each a single short statement in its own transaction, with a pause between
+ * batches so the purge never holds locks for long or competes with inserts for I/O. SKIP LOCKED lets
+ * several nodes run the job at the same time without waiting on each other.
+ */
+@Service
+public class NotificationRetentionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationRetentionService.class);
+
+    private static final String PURGE_BATCH_SQL = "DELETE FROM notifications WHERE notification_id IN ("
+            + "SELECT notification_id FROM notifications "
+            + "WHERE (is_read = true OR is_deleted = true) AND created_at < ? "
+            + "LIMIT ? FOR UPDATE SKIP LOCKED)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${notifications.retention.enabled:true}")
+    private boolean enabled;
+
+    @Value("${notifications.retention.read-days:90}")
+    private int retentionDays;
+
+    @Value("${notifications.retention.batch-size:500}")
+    private int batchSize;
+
+    @Value("${notifications.retention.pause-ms:200}")
+    private long pauseMs;
+
+    @Value("${notifications.retention.max-batches-per-run:200}")
+    private int maxBatchesPerRun;
+
+    @Value("${notifications.retention.interval-minutes:60}")
+    private long intervalMinutes;
+
+    private ScheduledExecutorService scheduler;
+
+    public NotificationRetentionService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "notification-retention");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::purgeSafely, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void purgeSafely() {
+        try {
+            purgeExpired();
+        } catch (Exception e) {
+            logger.error("Notification retention run failed", e);
+        }
+    }
+
+    /**
+     * Delete expired notifications batch by batch; returns the number of rows removed.
+     * Stops after max-batches-per-run so a large backlog is worked off over several runs.
+     */
+    public int purgeExpired() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusDays(retentionDays));
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            int deleted = jdbcTemplate.update(PURGE_BATCH_SQL, cutoff, batchSize);
+            total += deleted;
+            if (deleted < batchSize) {
+                break;
+            }
+            try {
+                Thread.sleep(pauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (total > 0) {
+            logger.info("Purged {} notifications older than {} days", total, retentionDays);
+        }
+        return total;
+    }
+}
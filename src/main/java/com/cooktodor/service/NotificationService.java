@@ -1,16 +1,22 @@
 package com.cooktodor.service;
 
+import com.cooktodor.exception.BadRequestException;
 import com.cooktodor.model.Notification;
-import com.cooktodor.model.User;
 import com.cooktodor.repository.NotificationRepository;
-import com.cooktodor.repository.UserRepository;
+import com.cooktodor.utils.TransactionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -24,50 +30,54 @@ public class NotificationService {
     private NotificationRepository notificationRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private NotificationWriter notificationWriter;
     
     @Autowired
     private SseEventService sseEventService;
     
+    @Autowired
+    private UnreadCounters unreadCounters;
+    
+    @Autowired
+    private NotificationCoalescer notificationCoalescer;
+    
+    @PostConstruct
+    void init() {
+        notificationCoalescer.setSink(digest -> createAndSendNotification(digest.getUserId(), digest.getTitle(),
+                digest.getMessage(), digest.getNotificationType(), digest.getRelatedEntityType(),
+                digest.getRelatedEntityId()));
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        // Open digests are written before NotificationWriter drains and stops
+        notificationCoalescer.flushAll();
+    }
+    
     /**
-     * Create and send notification via SSE
+     * Create and send notification via SSE.
+     * The row is written behind by NotificationWriter, once the caller's transaction (if any) commits.
+     * Returns the notification id, or null if it could not be created.
      */
-    @Transactional
-    public Notification createAndSendNotification(Long userId, String title, String message, 
-                                                  String notificationType, String relatedEntityType, 
-                                                  Long relatedEntityId) {
+    public Long createAndSendNotification(Long userId, String title, String message, 
+                                          String notificationType, String relatedEntityType, 
+                                          Long relatedEntityId) {
         try {
-            // Create notification record
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new RuntimeException("User not found: " + userId));
-            
-            Notification notification = new Notification();
-            notification.setUser(user);
-            notification.setTitle(title);
-            notification.setMessage(message);
-            notification.setNotificationType(notificationType);
-            notification.setRelatedEntityType(relatedEntityType);
-            notification.setRelatedEntityId(relatedEntityId);
-            notification.setIsRead(false);
-            
-            Notification savedNotification = notificationRepository.save(notification);
+            NotificationWriter.PendingNotification notification = new NotificationWriter.PendingNotification(
+                    notificationWriter.nextId(), userId, title, message, notificationType,
+                    relatedEntityType, relatedEntityId, LocalDateTime.now());
             
-            // Prepare notification data for SSE
-            Map<String, Object> notificationData = new HashMap<>();
-            notificationData.put("id", savedNotification.getId());
-            notificationData.put("title", title);
-            notificationData.put("message", message);
-            notificationData.put("type", notificationType);
-            notificationData.put("relatedEntityType", relatedEntityType);
-            notificationData.put("relatedEntityId", relatedEntityId);
-            notificationData.put("isRead", false);
-            notificationData.put("createdAt", savedNotification.getCreatedAt().toString());
+            // Only persist if the business change that triggered it commits
+            TransactionUtils.afterCommit(() -> {
+                notificationWriter.write(notification);
+                adjustUnreadCount(userId, 1);
+            });
             
             // Send via SSE
-            sseEventService.sendNotification(userId, "notification", notificationData);
+            sseEventService.sendNotification(userId, "notification", toEventData(notification));
             
             logger.info("Notification sent to user {}: {}", userId, title);
-            return savedNotification;
+            return notification.getId();
         } catch (Exception e) {
             logger.error("Failed to create/send notification to user {}: {}", userId, e.getMessage(), e);
             // Don't throw - notification failure shouldn't break business logic
@@ -75,12 +85,58 @@ public class NotificationService {
         }
     }
     
+    /**
+     * Notification data as sent in "notification" SSE events (live and replayed)
+     */
+    static Map<String, Object> toEventData(Notification notification) {
+        return toEventData(notification.getId(), notification.getTitle(), notification.getMessage(),
+                notification.getNotificationType(), notification.getRelatedEntityType(),
+                notification.getRelatedEntityId(), notification.getIsRead(), notification.getCreatedAt());
+    }
+    
+    static Map<String, Object> toEventData(NotificationWriter.PendingNotification notification) {
+        return toEventData(notification.getId(), notification.getTitle(), notification.getMessage(),
+                notification.getNotificationType(), notification.getRelatedEntityType(),
+                notification.getRelatedEntityId(), false, notification.getCreatedAt());
+    }
+    
+    private static Map<String, Object> toEventData(Long id, String title, String message, String type,
+                                                   String relatedEntityType, Long relatedEntityId,
+                                                   Boolean isRead, LocalDateTime createdAt) {
+        Map<String, Object> notificationData = new HashMap<>();
+        notificationData.put("id", id);
+        notificationData.put("title", title);
+        notificationData.put("message", message);
+        notificationData.put("type", type);
+        notificationData.put("relatedEntityType", relatedEntityType);
+        notificationData.put("relatedEntityId", relatedEntityId);
+        notificationData.put("isRead", isRead);
+        notificationData.put("createdAt", createdAt.toString());
+        return notificationData;
+    }
+    
+    /**
+     * Hand a notification to the coalescing stage once the caller's transaction commits.
+     * Bursts for the same user and entity within the digest window become one notification.
+     */
+    private void queueNotification(Long userId, String title, String message, String notificationType,
+                        String relatedEntityType, Long relatedEntityId) {
+        TransactionUtils.afterCommit(() -> {
+            try {
+                notificationCoalescer.submit(userId, title, message, notificationType, relatedEntityType, relatedEntityId);
+            } catch (Exception e) {
+                // Don't throw - notification failure shouldn't break business logic
+                logger.error("Failed to queue notification for user {}: {}", userId, e.getMessage(), e);
+            }
+        });
+    }
+    
     /**
      * Send order status update notification
      */
     public void sendOrderStatusNotification(Long userId, Long orderId, String status, String message) {
         String title = "Order Update";
-        createAndSendNotification(userId, title, message, "ORDER_UPDATE", "ORDER", orderId);
+        queueNotification(userId, title, message, "ORDER_UPDATE", "ORDER", orderId);
     }
     
     /**
@@ -88,7 +144,7 @@ public class NotificationService {
      */
     public void sendPaymentNotification(Long userId, Long orderId, String message) {
         String title = "Payment Update";
-        createAndSendNotification(userId, title, message, "PAYMENT", "ORDER", orderId);
+        queueNotification(userId, title, message, "PAYMENT", "ORDER", orderId);
     }
     
     /**
@@ -96,7 +152,7 @@ public class NotificationService {
      */
     public void sendOrderCreatedNotification(Long userId, Long orderId, String message) {
         String title = "New Order";
-        createAndSendNotification(userId, title, message, "ORDER_CREATED", "ORDER", orderId);
+        queueNotification(userId, title, message, "ORDER_CREATED", "ORDER", orderId);
     }
     
     /**
@@ -104,7 +160,7 @@ public class NotificationService {
      */
     public void sendOrderCancelledNotification(Long userId, Long orderId, String message) {
         String title = "Order Cancelled";
-        createAndSendNotification(userId, title, message, "ORDER_CANCELLED", "ORDER", orderId);
+        queueNotification(userId, title, message, "ORDER_CANCELLED", "ORDER", orderId);
     }
     
     /**
@@ -112,7 +168,7 @@ public class NotificationService {
      */
     public void sendDeliveryPartnerAssignedNotification(Long userId, Long orderId, String message) {
         String title = "Delivery Partner Assigned";
-        createAndSendNotification(userId, title, message, "DELIVERY_ASSIGNED", "ORDER", orderId);
+        queueNotification(userId, title, message, "DELIVERY_ASSIGNED", "ORDER", orderId);
     }
     
     /**
@@ -123,12 +179,42 @@ public class NotificationService {
         return notificationRepository.findAllByUser_IdAndIsDeletedFalseOrderByCreatedAtDesc(userId);
     }
     
+    /**
+     * One page of the user's feed, newest first. cursor is the nextCursor of the previous page (null for the first).
+     * Fetches one row more than requested to know whether another page exists.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getNotificationFeed(Long userId, String cursor, int limit) {
+        PageRequest page = PageRequest.of(0, limit + 1);
+        List<Notification> notifications;
+        if (cursor == null || cursor.isBlank()) {
+            notifications = notificationRepository.findFeedFirstPage(userId, page);
+        } else {
+            FeedCursor position = FeedCursor.decode(cursor);
+            notifications = notificationRepository.findFeedPageAfter(userId, position.createdAt, position.id, page);
+        }
+        
+        boolean hasMore = notifications.size() > limit;
+        if (hasMore) {
+            notifications = notifications.subList(0, limit);
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("notifications", notifications);
+        result.put("hasMore", hasMore);
+        result.put("nextCursor", hasMore ? FeedCursor.encode(notifications.get(notifications.size() - 1)) : null);
+        return result;
+    }
+    
     /**
      * Get unread notifications count
      */
     @Transactional(readOnly = true)
     public Long getUnreadCount(Long userId) {
-        return notificationRepository.countByUser_IdAndIsReadFalseAndIsDeletedFalse(userId);
+        return unreadCounters.get(userId, () -> {
+            // Rows still in the write-behind queue have to be counted too
+            notificationWriter.flush();
+            return notificationRepository.countByUser_IdAndIsReadFalseAndIsDeletedFalse(userId);
+        });
     }
     
     /**
@@ -136,16 +222,25 @@ public class NotificationService {
      */
     @Transactional
     public void markAsRead(Long notificationId, Long userId) {
-        Notification notification = notificationRepository.findById(notificationId)
-                .orElseThrow(() -> new RuntimeException("Notification not found"));
+        Notification notification = notificationRepository.findById(notificationId).orElse(null);
+        if (notification == null) {
+            // May still be waiting in the write-behind queue
+            notificationWriter.flush();
+            notification = notificationRepository.findById(notificationId)
+                    .orElseThrow(() -> new RuntimeException("Notification not found"));
+        }
         
         if (!notification.getUser().getId().equals(userId)) {
             throw new RuntimeException("Unauthorized access to notification");
         }
         
+        boolean wasUnread = !Boolean.TRUE.equals(notification.getIsRead());
         notification.setIsRead(true);
         notification.setReadAt(LocalDateTime.now());
         notificationRepository.save(notification);
+        if (wasUnread) {
+            TransactionUtils.afterCommit(() -> adjustUnreadCount(userId, -1));
+        }
         
         // Send SSE update for read status
         try {
@@ -163,15 +258,13 @@ public class NotificationService {
      */
     @Transactional
     public void markAllAsRead(Long userId) {
-        List<Notification> unreadNotifications = notificationRepository
-                .findAllByUser_IdAndIsReadFalseAndIsDeletedFalseOrderByCreatedAtDesc(userId);
-        
-        LocalDateTime now = LocalDateTime.now();
-        for (Notification notification : unreadNotifications) {
-            notification.setIsRead(true);
-            notification.setReadAt(now);
-        }
-        notificationRepository.saveAll(unreadNotifications);
+        // Get queued rows into the table so the bulk update covers them
+        notificationWriter.flush();
+        notificationRepository.markAllAsRead(userId, LocalDateTime.now());
+        TransactionUtils.afterCommit(() -> {
+            unreadCounters.set(userId, 0);
+            pushUnreadCount(userId, 0L);
+        });
         
         // Send SSE update
         try {
@@ -182,7 +275,55 @@ public class NotificationService {
             logger.error("Failed to send all read update via SSE", e);
         }
     }
+    
+    /**
+     * Apply a change to the cached unread count and push the new value
+     */
+    private void adjustUnreadCount(Long userId, long delta) {
+        Long count = unreadCounters.add(userId, delta);
+        if (count == null) {
+            // Not cached - rebuild from the DB, which already reflects the change
+            count = getUnreadCount(userId);
+        }
+        pushUnreadCount(userId, count);
+    }
+    
+    private void pushUnreadCount(Long userId, Long count) {
+        try {
+            Map<String, Object> data = new HashMap<>();
+            data.put("unreadCount", count);
+            sseEventService.sendNotification(userId, "unread_count", data);
+        } catch (Exception e) {
+            logger.error("Failed to send unread count via SSE", e);
+        }
+    }
+    
+    /**
+     * Opaque feed position: createdAt and id of the last notification on the previous page
+     */
+    private static class FeedCursor {
+        private final LocalDateTime createdAt;
+        private final Long id;
+        
+        private FeedCursor(LocalDateTime createdAt, Long id) {
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+        
+        static String encode(Notification last) {
+            String raw = last.getCreatedAt() + "_" + last.getId();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+        
+        static FeedCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('_');
+                return new FeedCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                        Long.parseLong(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new BadRequestException("Invalid cursor");
+            }
+        }
+    }
 }
-
-
-
@@ -0,0 +1,257 @@
+package com.cooktodor.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind persistence for notifications.
+ *
+ * Notifications are queued in memory and inserted by one writer thread in JDBC batches, flushed every
+ * flush-interval-ms or once batch-size rows are waiting. Ids are reserved up front from the table's
+ * identity sequence, so callers (and the SSE payload) know the id before the row is written.
+ * On shutdown the queue is drained before the data source closes; when the queue is full the caller
+ * writes its row synchronously instead of dropping it.
+ */
+@Component
+public class NotificationWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationWriter.class);
+
+    private static final String INSERT_SQL = "INSERT INTO notifications (notification_id, user_id, title, message, "
+            + "notification_type, related_entity_type, related_entity_id, is_read, is_deleted, is_active, "
+            + "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, false, false, true, ?, ?)";
+
+    private static final String RESERVE_IDS_SQL = "SELECT nextval(pg_get_serial_sequence('notifications', 'notification_id')) "
+            + "FROM generate_series(1, ?)";
+
+    private static final int ID_BLOCK_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+
+    private final long flushIntervalMs;
+
+    private final LinkedBlockingQueue<PendingNotification> queue;
+
+    // Reserved ids not yet handed out; refilled by whichever caller finds it empty, without a shared lock
+    private final ConcurrentLinkedQueue<Long> reservedIds = new ConcurrentLinkedQueue<>();
+
+    // Held while a batch is written, so flush() returns only once everything queued before it is in the table
+    private final Object writeLock = new Object();
+
+    private volatile boolean running;
+
+    private Thread writerThread;
+
+    public NotificationWriter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            @Value("${notifications.writer.batch-size:100}") int batchSize,
+            @Value("${notifications.writer.flush-interval-ms:20}") long flushIntervalMs,
+            @Value("${notifications.writer.queue-capacity:10000}") int queueCapacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Always commit on our own, even when flush() is called from inside a caller's transaction
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        writerThread = new Thread(this::run, "notification-writer");
+        writerThread.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        writerThread.interrupt();
+        writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        // Whatever the writer thread did not get to is written here, before the data source is closed
+        flush();
+    }
+
+    /**
+     * Reserve the id the notification will be stored under
+     */
+    public long nextId() {
+        Long id = reservedIds.poll();
+        if (id != null) {
+            return id;
+        }
+        // Callers that find the queue empty at the same time each reserve a block; the surplus is used later
+        List<Long> block = reserveIds();
+        reservedIds.addAll(block.subList(1, block.size()));
+        return block.get(0);
+    }
+
+    private List<Long> reserveIds() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            // On the caller's connection, so a request never holds one connection while waiting for another.
+            // nextval is not rolled back with the caller's transaction, so the ids stay unique either way.
+            return jdbcTemplate.queryForList(RESERVE_IDS_SQL, Long.class, ID_BLOCK_SIZE);
+        }
+        // Own transaction: the caller's may be read-only, where nextval is not allowed
+        return transactionTemplate.execute(status ->
+                jdbcTemplate.queryForList(RESERVE_IDS_SQL, Long.class, ID_BLOCK_SIZE));
+    }
+
+    /**
+     * Queue a notification for insertion. Written synchronously when the writer is stopped or the queue is full.
+     */
+    public void write(PendingNotification notification) {
+        if (!running || !queue.offer(notification)) {
+            synchronized (writeLock) {
+                insert(List.of(notification));
+            }
+        }
+    }
+
+    /**
+     * Write everything queued so far
+     */
+    public void flush() {
+        List<PendingNotification> batch = new ArrayList<>();
+        synchronized (writeLock) {
+            queue.drainTo(batch);
+            if (!batch.isEmpty()) {
+                insert(batch);
+            }
+        }
+    }
+
+    private void run() {
+        List<PendingNotification> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                PendingNotification first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                synchronized (writeLock) {
+                    batch.add(first);
+                    // Linger up to one interval to fill the batch
+                    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                    while (batch.size() < batchSize) {
+                        PendingNotification next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                    }
+                    insert(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                // Shutting down; stop() writes the rest. A batch taken but not written yet is written here.
+                synchronized (writeLock) {
+                    if (!batch.isEmpty()) {
+                        insert(batch);
+                        batch.clear();
+                    }
+                }
+                return;
+            } catch (Exception e) {
+                logger.error("Notification writer failed", e);
+                batch.clear();
+            }
+        }
+    }
+
+    private void insert(List<PendingNotification> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), this::bind));
+        } catch (Exception e) {
+            // Retry row by row so one bad row (e.g. a user deleted meanwhile) does not lose the others
+            logger.warn("Notification batch insert failed, retrying {} rows individually: {}", batch.size(), e.getMessage());
+            for (PendingNotification notification : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status ->
+                            jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, notification)));
+                } catch (Exception rowError) {
+                    logger.error("Dropping notification {} for user {}: {}", notification.getId(),
+                            notification.getUserId(), rowError.getMessage());
+                }
+            }
+        }
+    }
+
+    private void bind(PreparedStatement ps, PendingNotification notification) throws SQLException {
+        Timestamp createdAt = Timestamp.valueOf(notification.getCreatedAt());
+        ps.setLong(1, notification.getId());
+        ps.setLong(2, notification.getUserId());
+        ps.setString(3, notification.getTitle());
+        ps.setString(4, notification.getMessage());
+        ps.setString(5, notification.getNotificationType());
+        ps.setString(6, notification.getRelatedEntityType());
+        if (notification.getRelatedEntityId() != null) {
+            ps.setLong(7, notification.getRelatedEntityId());
+        } else {
+            ps.setNull(7, Types.BIGINT);
+        }
+        ps.setTimestamp(8, createdAt);
+        ps.setTimestamp(9, createdAt);
+    }
+
+    /**
+     * A notification accepted but possibly not yet inserted
+     */
+    public static class PendingNotification {
+        private final long id;
+        private final Long userId;
+        private final String title;
+        private final String message;
+        private final String notificationType;
+        private final String relatedEntityType;
+        private final Long relatedEntityId;
+        private final LocalDateTime createdAt;
+
+        public PendingNotification(long id, Long userId, String title, String message, String notificationType,
+                String relatedEntityType, Long relatedEntityId, LocalDateTime createdAt) {
+            this.id = id;
+            this.userId = userId;
+            this.title = title;
+            this.message = message;
+            this.notificationType = notificationType;
+            this.relatedEntityType = relatedEntityType;
+            this.relatedEntityId = relatedEntityId;
+            this.createdAt = createdAt;
+        }
+
+        public long getId() { return id; }
+        public Long getUserId() { return userId; }
+        public String getTitle() { return title; }
+        public String getMessage() { return message; }
+        public String getNotificationType() { return notificationType; }
+        public String getRelatedEntityType() { return relatedEntityType; }
+        public Long getRelatedEntityId() { return relatedEntityId; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+    }
+}
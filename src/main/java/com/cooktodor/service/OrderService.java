@@ -1,6 +1,6 @@
 package com.cooktodor.service;
 
-import java.security.SecureRandom;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -17,6 +17,7 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.cooktodor.dto.OrderDtos;
 import com.cooktodor.enums.OrderStatus;
+import com.cooktodor.enums.OtpPurpose;
 import com.cooktodor.exception.BadRequestException;
 import com.cooktodor.exception.ResourceNotFoundException;
 import com.cooktodor.enums.PaymentMethod;
@@ -70,6 +71,12 @@ public class OrderService {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private OtpService otpService;
+
+    // Delivery OTPs are valid for 2 hours
+    private static final Duration DELIVERY_OTP_VALIDITY = Duration.ofHours(2);
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Transactional
@@ -404,9 +411,7 @@ public class OrderService {
             order.setOrderStatus(newStatus);
             order.setDeliveryTime(LocalDateTime.now());
             // Clear OTP after successful delivery
-            order.setOtp(null);
-            order.setOtpGeneratedAt(null);
-            order.setOtpExpiresAt(null);
+            otpService.invalidate(OtpPurpose.DELIVERY, order.getId());
         } else {
             throw new BadRequestException("Invalid status transition from " + currentStatus + " to " + newStatus);
         }
@@ -444,7 +449,7 @@ public class OrderService {
         }
         
         // Generate OTP if order is READY and doesn't have one yet
-        if (currentStatus == OrderStatus.READY && (order.getOtp() == null || order.getOtp().isEmpty())) {
+        if (currentStatus == OrderStatus.READY && otpService.find(OtpPurpose.DELIVERY, order.getId()).isEmpty()) {
             generateDeliveryOTP(order);
         }
 
@@ -622,18 +627,10 @@ public class OrderService {
      * OTP is valid for 2 hours
      * 
      * @param order Order to generate OTP for
+     * @return Generated OTP
      */
-    private void generateDeliveryOTP(Order order) {
-        SecureRandom random = new SecureRandom();
-        int otpValue = 100000 + random.nextInt(900000); // 6-digit OTP (100000-999999)
-        String otp = String.valueOf(otpValue);
-        
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime expiresAt = now.plusHours(2); // OTP valid for 2 hours
-        
-        order.setOtp(otp);
-        order.setOtpGeneratedAt(now);
-        order.setOtpExpiresAt(expiresAt);
+    private OtpService.Otp generateDeliveryOTP(Order order) {
+        return otpService.issue(OtpPurpose.DELIVERY, order.getId(), DELIVERY_OTP_VALIDITY);
     }
     
     /**
@@ -644,21 +641,22 @@ public class OrderService {
      * @return true if OTP is valid, false otherwise
      */
     private boolean verifyDeliveryOTP(Order order, String providedOtp) {
-        if (order.getOtp() == null || order.getOtp().isEmpty()) {
-            throw new BadRequestException("OTP has not been generated for this order");
-        }
-        
-        if (order.getOtpExpiresAt() == null) {
-            throw new BadRequestException("OTP expiration time is not set");
-        }
-        
-        // Check if OTP has expired
-        if (LocalDateTime.now().isAfter(order.getOtpExpiresAt())) {
-            throw new BadRequestException("OTP has expired. Please regenerate OTP.");
+        return isValidDeliveryOTP(otpService.check(OtpPurpose.DELIVERY, order.getId(), providedOtp));
+    }
+    
+    private boolean isValidDeliveryOTP(OtpService.Result result) {
+        switch (result) {
+            case VALID:
+                return true;
+            case NOT_FOUND:
+                throw new BadRequestException("OTP has not been generated for this order");
+            case EXPIRED:
+                throw new BadRequestException("OTP has expired. Please regenerate OTP.");
+            case TOO_MANY_ATTEMPTS:
+                throw new BadRequestException("Too many incorrect OTP attempts. Please regenerate OTP.");
+            default:
+                return false;
         }
-        
-        // Verify OTP matches
-        return order.getOtp().equals(providedOtp);
     }
     
     /**
@@ -676,10 +674,25 @@ public class OrderService {
             throw new BadRequestException("OTP can only be generated when order status is READY");
         }
         
-        generateDeliveryOTP(order);
-        orderRepository.save(order);
+        return generateDeliveryOTP(order).getCode();
+    }
+    
+    /**
+     * Send the customer a new delivery OTP for an order that is out for delivery,
+     * e.g. after the previous one expired or was locked by wrong attempts
+     * 
+     * @param orderId Order ID
+     * @param deliveryPartnerId Delivery Partner ID
+     */
+    @Transactional
+    public void resendDeliveryOTP(Long orderId, Long deliveryPartnerId) {
+        Order order = getDeliveryPartnerOrderById(orderId, deliveryPartnerId);
+        
+        if (order.getOrderStatus() != OrderStatus.OUT_FOR_DELIVERY) {
+            throw new BadRequestException("OTP can only be resent while the order is OUT_FOR_DELIVERY");
+        }
         
-        return order.getOtp();
+        sendOTPEmailToCustomer(order, generateDeliveryOTP(order));
     }
     
     /**
@@ -790,22 +803,21 @@ public class OrderService {
         }
         
         // Generate OTP if not already generated
-        if (order.getOtp() == null || order.getOtp().isEmpty()) {
-            generateDeliveryOTP(order);
-        }
+        OtpService.Otp deliveryOtp = otpService.find(OtpPurpose.DELIVERY, orderId)
+                .orElseGet(() -> generateDeliveryOTP(order));
         
         order.setOrderStatus(OrderStatus.OUT_FOR_DELIVERY);
         Order savedOrder = orderRepository.save(order);
         
         // Send OTP email to customer
-        sendOTPEmailToCustomer(savedOrder);
+        sendOTPEmailToCustomer(savedOrder, deliveryOtp);
         
         // Send pickup notification
         try {
             String customerMessage = String.format(
                 "Your order #%d has been picked up and is on its way! OTP: %s",
                 orderId,
-                savedOrder.getOtp()
+                deliveryOtp.getCode()
             );
             notificationService.sendOrderStatusNotification(
                 savedOrder.getCustomer().getUser().getId(),
@@ -823,9 +835,10 @@ public class OrderService {
     /**
      * Send OTP email to customer when delivery partner picks up the order
      * 
-     * @param order Order with OTP
+     * @param order Order the OTP is for
+     * @param deliveryOtp OTP to send
      */
-    private void sendOTPEmailToCustomer(Order order) {
+    private void sendOTPEmailToCustomer(Order order, OtpService.Otp deliveryOtp) {
         try {
             // Get customer email from order
             Customer customer = order.getCustomer();
@@ -840,7 +853,7 @@ public class OrderService {
                 return;
             }
             
-            String otp = order.getOtp();
+            String otp = deliveryOtp != null ? deliveryOtp.getCode() : null;
             if (otp == null || otp.isEmpty()) {
                 logger.warn("Cannot send OTP email: OTP is not generated for order {}", order.getId());
                 return;
@@ -859,7 +872,7 @@ public class OrderService {
                 customer.getFullName() != null ? customer.getFullName() : "Customer",
                 order.getId(),
                 otp,
-                order.getOtpExpiresAt() != null ? order.getOtpExpiresAt().toString() : "N/A"
+                deliveryOtp.getExpiresAt().toString()
             );
             
             // Send email
@@ -895,8 +908,8 @@ public class OrderService {
             throw new BadRequestException("Order is not assigned to this delivery partner");
         }
         
-        // Verify OTP
-        if (!verifyDeliveryOTP(order, otp)) {
+        // Verify OTP; a valid one is used up when the delivery commits
+        if (!isValidDeliveryOTP(otpService.consume(OtpPurpose.DELIVERY, orderId, otp))) {
             throw new BadRequestException("Invalid OTP. Please check and try again.");
         }
         
@@ -904,11 +917,6 @@ public class OrderService {
         order.setOrderStatus(OrderStatus.DELIVERED);
         order.setDeliveryTime(LocalDateTime.now());
         
-        // Clear OTP after successful delivery
-        order.setOtp(null);
-        order.setOtpGeneratedAt(null);
-        order.setOtpExpiresAt(null);
-        
         // If payment is COD, mark payment as successful
         Payment payment = paymentRepository.findByOrder_IdAndIsDeletedFalse(orderId).orElse(null);
         if (payment != null && payment.getPaymentType() == PaymentType.COD) {
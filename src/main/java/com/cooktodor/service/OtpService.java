@@ -0,0 +1,343 @@
+package com.cooktodor.service;
+
+import com.cooktodor.enums.OtpPurpose;
+import com.cooktodor.model.OneTimePassword;
+import com.cooktodor.repository.OneTimePasswordRepository;
+import com.cooktodor.utils.TransactionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Six-digit one-time passwords for delivery confirmation and password reset.
+ *
+ * Codes live in one_time_passwords (one row per purpose and subject) and are cached in memory,
+ * including "no code" answers, for a short TTL so order listings don't query per order. Checks
+ * compare in constant time and count failed attempts in the table, so the limit holds across
+ * nodes; a consumed code is deleted by value, which makes using it twice impossible even when a
+ * node's cache is stale.
+ */
+@Service
+public class OtpService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OtpService.class);
+
+    private static final SecureRandom secureRandom = new SecureRandom();
+
+    public enum Result {
+        VALID,
+        INVALID,
+        EXPIRED,
+        NOT_FOUND,
+        TOO_MANY_ATTEMPTS
+    }
+
+    /**
+     * An issued code with its validity
+     */
+    public static final class Otp {
+        private final String code;
+        private final LocalDateTime createdAt;
+        private final LocalDateTime expiresAt;
+
+        Otp(String code, LocalDateTime createdAt, LocalDateTime expiresAt) {
+            this.code = code;
+            this.createdAt = createdAt;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        public LocalDateTime getExpiresAt() {
+            return expiresAt;
+        }
+
+        boolean isExpired() {
+            return !expiresAt.isAfter(LocalDateTime.now());
+        }
+    }
+
+    // otp is null when the subject has no code; loadedAt is System.nanoTime()
+    private static final class Entry {
+        final Otp otp;
+        final int attempts;
+        final long loadedAt;
+
+        Entry(Otp otp, int attempts, long loadedAt) {
+            this.otp = otp;
+            this.attempts = attempts;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final OneTimePasswordRepository otpRepository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    // Failed attempts are recorded even when the caller's transaction rolls back
+    private final TransactionTemplate failureTransactionTemplate;
+
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+
+    @Value("${otp.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${otp.cache.ttl-seconds:30}")
+    private long cacheTtlSeconds;
+
+    @Value("${otp.cache.max-entries:50000}")
+    private int maxCacheEntries;
+
+    @Value("${otp.purge-interval-minutes:10}")
+    private long purgeIntervalMinutes;
+
+    private ScheduledExecutorService scheduler;
+
+    public OtpService(OneTimePasswordRepository otpRepository, JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager) {
+        this.otpRepository = otpRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.failureTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.failureTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    void start() {
+        migrateLegacyColumns();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "otp-purge");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::purgeSafely, purgeIntervalMinutes, purgeIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Issue a new code for the subject, replacing any previous one. Joins the caller's transaction.
+     */
+    @Transactional
+    public Otp issue(OtpPurpose purpose, Long subjectId, Duration validity) {
+        String code = String.valueOf(100000 + secureRandom.nextInt(900000)); // 6-digit OTP (100000-999999)
+        LocalDateTime now = LocalDateTime.now();
+        Otp otp = new Otp(code, now, now.plus(validity));
+
+        otpRepository.upsert(purpose.name(), subjectId, code, otp.getCreatedAt(), otp.getExpiresAt());
+        TransactionUtils.afterCommit(() -> put(key(purpose, subjectId), new Entry(otp, 0, System.nanoTime())));
+        return otp;
+    }
+
+    /**
+     * The subject's current code, if one exists and has not expired
+     */
+    public Optional<Otp> find(OtpPurpose purpose, Long subjectId) {
+        Otp otp = lookup(purpose, subjectId, false).otp;
+        return otp == null || otp.isExpired() ? Optional.empty() : Optional.of(otp);
+    }
+
+    /**
+     * Check a code without using it up. Mismatches count towards the attempt limit.
+     */
+    public Result check(OtpPurpose purpose, Long subjectId, String code) {
+        return evaluate(purpose, subjectId, code, lookup(purpose, subjectId, false));
+    }
+
+    /**
+     * Check a code and delete it when it matches. The delete joins the caller's transaction,
+     * so the code stays usable if that transaction rolls back.
+     */
+    @Transactional
+    public Result consume(OtpPurpose purpose, Long subjectId, String code) {
+        // Always judged against the table: this node's cache may hold an older code, or a "none"
+        // entry, from before the code was (re)issued on another node
+        Entry entry = lookup(purpose, subjectId, true);
+        for (int pass = 0; pass < 2; pass++) {
+            Result result = evaluate(purpose, subjectId, code, entry);
+            if (result != Result.VALID) {
+                return result;
+            }
+            if (otpRepository.deleteByCode(purpose, subjectId, entry.otp.getCode()) > 0) {
+                String key = key(purpose, subjectId);
+                TransactionUtils.afterCommit(() -> put(key, new Entry(null, 0, System.nanoTime())));
+                return Result.VALID;
+            }
+            // The cached code was replaced or used elsewhere; judge again against the table
+            entry = lookup(purpose, subjectId, true);
+        }
+        return Result.NOT_FOUND;
+    }
+
+    /**
+     * Drop the subject's code. Joins the caller's transaction.
+     */
+    @Transactional
+    public void invalidate(OtpPurpose purpose, Long subjectId) {
+        otpRepository.deleteBySubject(purpose, subjectId);
+        String key = key(purpose, subjectId);
+        TransactionUtils.afterCommit(() -> put(key, new Entry(null, 0, System.nanoTime())));
+    }
+
+    private Result evaluate(OtpPurpose purpose, Long subjectId, String code, Entry entry) {
+        Otp otp = entry.otp;
+        if (otp == null) {
+            return Result.NOT_FOUND;
+        }
+        if (otp.isExpired()) {
+            return Result.EXPIRED;
+        }
+        if (entry.attempts >= maxAttempts) {
+            return Result.TOO_MANY_ATTEMPTS;
+        }
+        if (matches(otp.getCode(), code)) {
+            return Result.VALID;
+        }
+        return recordFailure(purpose, subjectId, otp) ? Result.TOO_MANY_ATTEMPTS : Result.INVALID;
+    }
+
+    // Returns true when this failure used up the last attempt, in which case the code is deleted
+    private boolean recordFailure(OtpPurpose purpose, Long subjectId, Otp otp) {
+        Integer attempts = failureTransactionTemplate.execute(status -> {
+            if (otpRepository.incrementAttempts(purpose, subjectId, otp.getCode()) == 0) {
+                return null;
+            }
+            int count = otpRepository.findByPurposeAndSubjectId(purpose, subjectId)
+                    .map(OneTimePassword::getAttempts)
+                    .orElse(maxAttempts);
+            if (count >= maxAttempts) {
+                otpRepository.deleteByCode(purpose, subjectId, otp.getCode());
+            }
+            return count;
+        });
+
+        String key = key(purpose, subjectId);
+        if (attempts == null) {
+            // Already replaced or deleted by someone else; reload on next use
+            cache.remove(key);
+            return false;
+        }
+        if (attempts >= maxAttempts) {
+            logger.warn("OTP for {} {} invalidated after {} failed attempts", purpose, subjectId, attempts);
+            put(key, new Entry(null, 0, System.nanoTime()));
+            return true;
+        }
+        put(key, new Entry(otp, attempts, System.nanoTime()));
+        return false;
+    }
+
+    private Entry lookup(OtpPurpose purpose, Long subjectId, boolean reload) {
+        String key = key(purpose, subjectId);
+        long now = System.nanoTime();
+        Entry entry = reload ? null : cache.get(key);
+        if (entry != null && now - entry.loadedAt < TimeUnit.SECONDS.toNanos(cacheTtlSeconds)) {
+            return entry;
+        }
+        entry = otpRepository.findByPurposeAndSubjectId(purpose, subjectId)
+                .map(row -> new Entry(new Otp(row.getCode(), row.getCreatedAt(), row.getExpiresAt()), row.getAttempts(), now))
+                .orElseGet(() -> new Entry(null, 0, now));
+        put(key, entry);
+        return entry;
+    }
+
+    private void put(String key, Entry entry) {
+        if (cache.size() >= maxCacheEntries && !cache.containsKey(key)) {
+            // Everything here is reloaded on demand, so a reset is cheaper than tracking recency
+            logger.warn("OTP cache reached {} entries, clearing", cache.size());
+            cache.clear();
+        }
+        cache.put(key, entry);
+    }
+
+    private static boolean matches(String expected, String provided) {
+        if (provided == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8),
+                provided.trim().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String key(OtpPurpose purpose, Long subjectId) {
+        return purpose.name() + ":" + subjectId;
+    }
+
+    private void purgeSafely() {
+        try {
+            long cutoff = System.nanoTime() - TimeUnit.SECONDS.toNanos(cacheTtlSeconds);
+            cache.values().removeIf(entry -> entry.loadedAt - cutoff < 0
+                    || (entry.otp != null && entry.otp.isExpired()));
+            Integer deleted = transactionTemplate.execute(status -> otpRepository.deleteExpired(LocalDateTime.now()));
+            if (deleted != null && deleted > 0) {
+                logger.info("Purged {} expired OTPs", deleted);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to purge expired OTPs", e);
+        }
+    }
+
+    /**
+     * Codes used to be stored on the order and user rows. Move any still-valid ones into the table and
+     * clear the old columns, so OTPs sent before an upgrade keep working. Does nothing once they are empty.
+     */
+    private void migrateLegacyColumns() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            transactionTemplate.executeWithoutResult(status -> {
+                int orders = jdbcTemplate.update(
+                        "INSERT INTO one_time_passwords (purpose, subject_id, code, attempts, created_at, expires_at) " +
+                        "SELECT ?, id, otp, 0, COALESCE(otp_generated_at, ?), otp_expires_at FROM orders " +
+                        "WHERE otp IS NOT NULL AND otp_expires_at > ? ON CONFLICT (purpose, subject_id) DO NOTHING",
+                        OtpPurpose.DELIVERY.name(), now, now);
+                jdbcTemplate.update("UPDATE orders SET otp = NULL, otp_generated_at = NULL, otp_expires_at = NULL " +
+                        "WHERE otp IS NOT NULL");
+                int users = jdbcTemplate.update(
+                        "INSERT INTO one_time_passwords (purpose, subject_id, code, attempts, created_at, expires_at) " +
+                        "SELECT ?, id, password_reset_otp, 0, COALESCE(password_reset_otp_generated_at, ?), password_reset_otp_expiry " +
+                        "FROM users WHERE password_reset_otp IS NOT NULL AND password_reset_otp_expiry > ? " +
+                        "ON CONFLICT (purpose, subject_id) DO NOTHING",
+                        OtpPurpose.PASSWORD_RESET.name(), now, now);
+                jdbcTemplate.update("UPDATE users SET password_reset_otp = NULL, password_reset_otp_expiry = NULL, " +
+                        "password_reset_otp_generated_at = NULL WHERE password_reset_otp IS NOT NULL");
+                if (orders > 0 || users > 0) {
+                    logger.info("Moved {} delivery and {} password reset OTPs from legacy columns", orders, users);
+                }
+            });
+        } catch (Exception e) {
+            logger.error("Failed to migrate legacy OTP columns", e);
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.cooktodor.service;
 
+import com.cooktodor.config.security.PrincipalCache;
+import com.cooktodor.enums.OtpPurpose;
 import com.cooktodor.model.User;
 import com.cooktodor.repository.UserRepository;
+import com.cooktodor.utils.TransactionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,7 +13,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.security.SecureRandom;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Optional;
 
@@ -28,14 +31,21 @@ public class PasswordResetService {
     @Autowired
     private PasswordEncoder passwordEncoder;
     
+    @Autowired
+    private PrincipalCache principalCache;
+    
+    @Autowired
+    private OtpService otpService;
+    
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+    
     @Value("${password.reset.otp.expiry.minutes:10}")
     private int otpExpiryMinutes;
     
     @Value("${password.reset.otp.resend.cooldown.seconds:60}")
     private int resendCooldownSeconds;
     
-    private static final SecureRandom secureRandom = new SecureRandom();
-    
     /**
      * Find user by username or email (whichever is provided)
      * Tries email first, then username
@@ -79,8 +89,9 @@ public class PasswordResetService {
         User user = userOpt.get();
         
         // Check if there's a recent OTP request (prevent spam)
-        if (user.getPasswordResetOtpGeneratedAt() != null) {
-            LocalDateTime cooldownUntil = user.getPasswordResetOtpGeneratedAt()
+        Optional<OtpService.Otp> previousOtp = otpService.find(OtpPurpose.PASSWORD_RESET, user.getId());
+        if (previousOtp.isPresent()) {
+            LocalDateTime cooldownUntil = previousOtp.get().getCreatedAt()
                     .plusSeconds(resendCooldownSeconds);
             
             if (LocalDateTime.now().isBefore(cooldownUntil)) {
@@ -94,15 +105,8 @@ public class PasswordResetService {
         }
         
         // Generate 6-digit OTP (same pattern as order delivery OTP)
-        String otp = generateOtp();
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime expiryTime = now.plusMinutes(otpExpiryMinutes);
-        
-        // Save OTP to user
-        user.setPasswordResetOtp(otp);
-        user.setPasswordResetOtpExpiry(expiryTime);
-        user.setPasswordResetOtpGeneratedAt(now);
-        userRepository.save(user);
+        String otp = otpService.issue(OtpPurpose.PASSWORD_RESET, user.getId(), Duration.ofMinutes(otpExpiryMinutes))
+                .getCode();
         
         logger.info("Password reset OTP generated for user: email={}", user.getEmail());
         
@@ -126,22 +130,18 @@ public class PasswordResetService {
         
         User user = userOpt.get();
         
-        // Check if OTP exists
-        if (user.getPasswordResetOtp() == null || user.getPasswordResetOtp().isEmpty()) {
-            throw new IllegalArgumentException("No OTP found. Please request a new OTP.");
-        }
-        
-        // Check if OTP has expired
-        if (user.getPasswordResetOtpExpiry() == null || 
-            user.getPasswordResetOtpExpiry().isBefore(LocalDateTime.now())) {
-            // Clear expired OTP
-            clearResetOtp(user);
-            throw new IllegalArgumentException("OTP has expired. Please request a new OTP.");
-        }
-        
-        // Verify OTP matches
-        if (!user.getPasswordResetOtp().equals(otp)) {
-            throw new IllegalArgumentException("Invalid OTP. Please check and try again.");
+        // Verify and use up the OTP (restored if the reset below fails)
+        switch (otpService.consume(OtpPurpose.PASSWORD_RESET, user.getId(), otp)) {
+            case VALID:
+                break;
+            case NOT_FOUND:
+                throw new IllegalArgumentException("No OTP found. Please request a new OTP.");
+            case EXPIRED:
+                throw new IllegalArgumentException("OTP has expired. Please request a new OTP.");
+            case TOO_MANY_ATTEMPTS:
+                throw new IllegalArgumentException("Too many incorrect attempts. Please request a new OTP.");
+            default:
+                throw new IllegalArgumentException("Invalid OTP. Please check and try again.");
         }
         
         // Validate password strength
@@ -151,9 +151,15 @@ public class PasswordResetService {
         
         // Reset password
         user.setPassword(passwordEncoder.encode(newPassword));
-        clearResetOtp(user);
         userRepository.save(user);
         
+        // Drop the cached principal once the new password is committed
+        String resetUsername = user.getUsername();
+        TransactionUtils.afterCommit(() -> principalCache.invalidate(resetUsername));
+        
+        // Sessions opened with the old password (possibly by whoever knew it) must end
+        tokenRevocationService.revokeAllForUser(user.getId());
+        
         logger.info("Password reset successful for user: email={}", user.getEmail());
         
         // Send confirmation email
@@ -173,35 +179,7 @@ public class PasswordResetService {
             return false;
         }
         
-        User user = userOpt.get();
-        
-        if (user.getPasswordResetOtp() == null || user.getPasswordResetOtp().isEmpty()) {
-            return false;
-        }
-        
-        if (user.getPasswordResetOtpExpiry() == null || 
-            user.getPasswordResetOtpExpiry().isBefore(LocalDateTime.now())) {
-            return false;
-        }
-        
-        return user.getPasswordResetOtp().equals(otp);
-    }
-    
-    /**
-     * Generate 6-digit OTP (same as order delivery OTP)
-     */
-    private String generateOtp() {
-        int otpValue = 100000 + secureRandom.nextInt(900000); // 6-digit OTP (100000-999999)
-        return String.valueOf(otpValue);
-    }
-    
-    /**
-     * Clear OTP after successful reset
-     */
-    private void clearResetOtp(User user) {
-        user.setPasswordResetOtp(null);
-        user.setPasswordResetOtpExpiry(null);
-        user.setPasswordResetOtpGeneratedAt(null);
+        return otpService.check(OtpPurpose.PASSWORD_RESET, userOpt.get().getId(), otp) == OtpService.Result.VALID;
     }
     
     /**
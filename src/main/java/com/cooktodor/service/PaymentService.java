@@ -2,6 +2,7 @@ package com.cooktodor.service;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -10,6 +11,9 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
 import com.cooktodor.config.RazorpayProperties;
@@ -18,6 +22,7 @@ import com.cooktodor.enums.PaymentMethod;
 import com.cooktodor.enums.PaymentStatus;
 import com.cooktodor.enums.PaymentType;
 import com.cooktodor.exception.BadRequestException;
+import com.cooktodor.exception.InternalServerException;
 import com.cooktodor.exception.ResourceNotFoundException;
 import com.cooktodor.model.Order;
 import com.cooktodor.model.Payment;
@@ -28,6 +33,7 @@ import com.cooktodor.service.PayoutService;
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -54,6 +60,9 @@ public class PaymentService {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     private static final String RAZORPAY_API_BASE = "https://api.razorpay.com/v1";
 
     public Map<String, Object> createRazorpayOrder(Long orderId) {
@@ -103,9 +112,17 @@ public class PaymentService {
         headers.setContentType(MediaType.APPLICATION_JSON);
         HttpEntity<Map<String, Object>> req = new HttpEntity<>(payload, headers);
 
-        @SuppressWarnings("unchecked")
-        Map<String, Object> rpOrder = razorpayRestTemplate.postForObject(
-                RAZORPAY_API_BASE + "/orders", req, Map.class);
+        Map<String, Object> rpOrder;
+        try {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> created = razorpayRestTemplate.postForObject(
+                    RAZORPAY_API_BASE + "/orders", req, Map.class);
+            rpOrder = created;
+        } catch (ResourceAccessException e) {
+            // Timed out, unreachable, or the circuit is open after repeated failures
+            logger.error("Razorpay order creation failed for order {}: {}", orderId, e.getMessage());
+            throw new InternalServerException("Payment gateway is not responding. Please try again shortly.", e);
+        }
 
         if (rpOrder == null || rpOrder.get("id") == null) {
             throw new BadRequestException("Failed to create Razorpay order");
@@ -122,9 +139,30 @@ public class PaymentService {
         return response;
     }
 
+    /**
+     * Same as below, for callers that don't know the payment method yet. It is fetched from Razorpay
+     * before the transaction starts, so a slow gateway never holds the payment row lock or a connection.
+     */
     public Payment markSuccess(String razorpayPaymentId, String razorpayOrderId) {
-        Payment payment = paymentRepository.findByTransactionId(razorpayOrderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Payment not found for order " + razorpayOrderId));
+        String razorpayMethod = fetchPaymentMethod(razorpayPaymentId);
+        return transactionTemplate.execute(status -> markSuccess(razorpayPaymentId, razorpayOrderId, razorpayMethod));
+    }
+
+    /**
+     * Payment, order status and provider payout are updated in one transaction, so a failure leaves
+     * nothing half done and the call can simply be repeated.
+     *
+     * @param razorpayMethod Payment method if known (e.g. from a webhook), otherwise null to keep the current one
+     */
+    @Transactional
+    public Payment markSuccess(String razorpayPaymentId, String razorpayOrderId, String razorpayMethod) {
+        // Locked; verifyPayment locks the same row, so only one of them sees PENDING and credits the payout
+        List<Payment> payments = paymentRepository.findForUpdateByTransactionIdIn(
+                List.of(razorpayOrderId, razorpayPaymentId));
+        if (payments.isEmpty()) {
+            throw new ResourceNotFoundException("Payment not found for order " + razorpayOrderId);
+        }
+        Payment payment = payments.get(0);
         
         // ✅ FIX: Prevent duplicate processing - check if already SUCCESS
         if (payment.getPaymentStatus() == PaymentStatus.SUCCESS) {
@@ -133,61 +171,14 @@ public class PaymentService {
             return payment; // Already processed, return early
         }
         
-        // Fetch payment details from Razorpay to get actual payment method
-        try {
-            Map<String, Object> paymentDetails = fetchPaymentDetailsFromRazorpay(razorpayPaymentId);
-            
-            // Extract payment method from Razorpay response
-            if (paymentDetails != null && paymentDetails.containsKey("method")) {
-                String razorpayMethod = String.valueOf(paymentDetails.get("method"));
-                PaymentMethod actualMethod = mapRazorpayMethodToPaymentMethod(razorpayMethod);
-                payment.setPaymentMethod(actualMethod);
-            }
-        } catch (Exception e) {
-            // If we can't fetch payment details, log but continue with default
-            System.err.println("Warning: Could not fetch payment method from Razorpay: " + e.getMessage());
-        }
-        
-        payment.setPaymentStatus(PaymentStatus.SUCCESS);
-        payment.setTransactionId(razorpayPaymentId);
-        payment.setPaymentTime(LocalDateTime.now());
-        Payment saved = paymentRepository.save(payment);
-
-        // Reload order with provider eagerly loaded to avoid LazyInitializationException
-        Order order = orderRepository.findByIdWithProvider(saved.getOrder().getId())
-                .orElseThrow(() -> new ResourceNotFoundException("Order not found"));
-        
-        // Update order status to CONFIRMED if currently PENDING
-        if (order.getOrderStatus() == OrderStatus.PENDING) {
-            order.setOrderStatus(OrderStatus.CONFIRMED);
-            orderRepository.save(order);
-        }
-
-        // Add to pending payout amount (wrap in try-catch to prevent payment failure if payout update fails)
-        if (order.getProvider() != null) {
-            try {
-                Double orderAmount = order.getTotalAmount();
-                Double commission = order.getPlatformCommission() != null ? order.getPlatformCommission() : 0.0;
-                Long providerId = order.getProvider().getId();
-                System.out.println("DEBUG: Adding to pending payout - Order ID: " + order.getId() + 
-                    ", Provider ID: " + providerId + ", Amount: " + orderAmount + ", Commission: " + commission);
-                payoutService.addToPendingAmount(providerId, orderAmount, commission);
-                System.out.println("DEBUG: Successfully added to pending payout for provider: " + providerId);
-            } catch (Exception e) {
-                // Log error but don't fail payment
-                System.err.println("ERROR: Failed to update pending payout amount for order " + order.getId() + ": " + e.getMessage());
-                e.printStackTrace();
-            }
-        } else {
-            System.err.println("WARNING: Order " + order.getId() + " has no provider associated");
-        }
+        Order order = applySuccess(payment, razorpayPaymentId, razorpayMethod);
 
         // Send payment success notifications
         try {
             // Notify customer
             String customerMessage = String.format(
                 "Payment of ₹%.2f for order #%d has been successful. Your order is confirmed!",
-                saved.getAmount(),
+                payment.getAmount(),
                 order.getId()
             );
             notificationService.sendPaymentNotification(
@@ -200,7 +191,7 @@ public class PaymentService {
             String providerMessage = String.format(
                 "Payment received for order #%d. Amount: ₹%.2f. Order is now confirmed.",
                 order.getId(),
-                saved.getAmount()
+                payment.getAmount()
             );
             notificationService.sendPaymentNotification(
                 order.getProvider().getUser().getId(),
@@ -211,7 +202,44 @@ public class PaymentService {
             logger.error("Failed to send payment success notifications: {}", e.getMessage());
         }
 
-        return saved;
+        return payment;
+    }
+
+    /**
+     * Marks the payment SUCCESS, confirms the order and credits the provider's pending payout. The caller
+     * holds the lock on the payment row and has checked that it is not SUCCESS yet.
+     */
+    private Order applySuccess(Payment payment, String razorpayPaymentId, String razorpayMethod) {
+        if (razorpayMethod != null) {
+            payment.setPaymentMethod(mapRazorpayMethodToPaymentMethod(razorpayMethod));
+        }
+        payment.setPaymentStatus(PaymentStatus.SUCCESS);
+        payment.setTransactionId(razorpayPaymentId);
+        payment.setPaymentTime(LocalDateTime.now());
+        paymentRepository.save(payment);
+
+        // Reload order with provider eagerly loaded to avoid LazyInitializationException
+        Order order = orderRepository.findByIdWithProvider(payment.getOrder().getId())
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found"));
+        
+        // Update order status to CONFIRMED if currently PENDING
+        if (order.getOrderStatus() == OrderStatus.PENDING) {
+            order.setOrderStatus(OrderStatus.CONFIRMED);
+            orderRepository.save(order);
+        }
+
+        // Add to pending payout amount; a failure rolls back the whole update so it is retried as one
+        if (order.getProvider() != null) {
+            Double orderAmount = order.getTotalAmount();
+            Double commission = order.getPlatformCommission() != null ? order.getPlatformCommission() : 0.0;
+            Long providerId = order.getProvider().getId();
+            System.out.println("DEBUG: Adding to pending payout - Order ID: " + order.getId() + 
+                ", Provider ID: " + providerId + ", Amount: " + orderAmount + ", Commission: " + commission);
+            payoutService.addToPendingAmountInTransaction(providerId, orderAmount, commission);
+        } else {
+            System.err.println("WARNING: Order " + order.getId() + " has no provider associated");
+        }
+        return order;
     }
 
     public Payment markFailed(String razorpayOrderId) {
@@ -241,6 +269,19 @@ public class PaymentService {
             throw new BadRequestException("Failed to fetch payment details from Razorpay: " + e.getMessage());
         }
     }
+
+    // Payment method as reported by Razorpay, or null if it can't be fetched (the current method is kept)
+    private String fetchPaymentMethod(String razorpayPaymentId) {
+        try {
+            Map<String, Object> paymentDetails = fetchPaymentDetailsFromRazorpay(razorpayPaymentId);
+            if (paymentDetails != null && paymentDetails.containsKey("method")) {
+                return String.valueOf(paymentDetails.get("method"));
+            }
+        } catch (Exception e) {
+            System.err.println("Warning: Could not fetch payment method from Razorpay: " + e.getMessage());
+        }
+        return null;
+    }
     
     /**
      * Map Razorpay payment method to our PaymentMethod enum
@@ -308,104 +349,90 @@ public class PaymentService {
         // If signature is not provided or API secret key is not set, we still proceed
         // The webhook will handle full verification when it arrives
         
-        // Fetch payment details from Razorpay to get actual payment method
-        try {
-            Map<String, Object> paymentDetails = fetchPaymentDetailsFromRazorpay(razorpayPaymentId);
-            
-            // Extract payment method from Razorpay response
-            if (paymentDetails != null && paymentDetails.containsKey("method")) {
-                String razorpayMethod = String.valueOf(paymentDetails.get("method"));
-                PaymentMethod actualMethod = mapRazorpayMethodToPaymentMethod(razorpayMethod);
-                payment.setPaymentMethod(actualMethod);
+        // Fetched before the transaction, so a slow gateway never holds the payment row lock
+        String razorpayMethod = fetchPaymentMethod(razorpayPaymentId);
+
+        // The check above was unlocked; decide again on the locked row, which the webhook worker also
+        // locks, so the payout is credited at most once
+        Order verified = transactionTemplate.execute(status -> {
+            Payment locked = paymentRepository.findForUpdateByOrderId(orderId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Payment not found for order " + orderId));
+            if (locked.getPaymentStatus() == PaymentStatus.SUCCESS) {
+                System.out.println("DEBUG: Payment already marked as SUCCESS for order " + orderId + 
+                    ", skipping payout update to prevent duplicates");
+                return null;
             }
-        } catch (Exception e) {
-            // If we can't fetch payment details, log but continue with default
-            // Payment method will remain as set initially (UPI default)
-            System.err.println("Warning: Could not fetch payment method from Razorpay: " + e.getMessage());
-        }
-        
-        // Update payment record
-        payment.setPaymentStatus(PaymentStatus.SUCCESS);
-        payment.setTransactionId(razorpayPaymentId);
-        payment.setPaymentTime(LocalDateTime.now());
-        paymentRepository.save(payment);
+            Order confirmed = applySuccess(locked, razorpayPaymentId, razorpayMethod);
         
-        // Update order status to CONFIRMED if currently PENDING
-        if (order.getOrderStatus() == OrderStatus.PENDING) {
-            order.setOrderStatus(OrderStatus.CONFIRMED);
-            orderRepository.save(order);
-        }
-
-        // Add to pending payout amount (wrap in try-catch to prevent payment failure if payout update fails)
-        if (order.getProvider() != null) {
+            // Send payment verification notifications
             try {
-                Double orderAmount = order.getTotalAmount();
-                Double commission = order.getPlatformCommission() != null ? order.getPlatformCommission() : 0.0;
-                Long providerId = order.getProvider().getId();
-                System.out.println("DEBUG: Adding to pending payout - Order ID: " + order.getId() + 
-                    ", Provider ID: " + providerId + ", Amount: " + orderAmount + ", Commission: " + commission);
-                payoutService.addToPendingAmount(providerId, orderAmount, commission);
-                System.out.println("DEBUG: Successfully added to pending payout for provider: " + providerId);
+                // Notify customer
+                String customerMessage = String.format(
+                    "Payment of ₹%.2f for order #%d has been verified and confirmed.",
+                    locked.getAmount(),
+                    orderId
+                );
+                notificationService.sendPaymentNotification(
+                    confirmed.getCustomer().getUser().getId(),
+                    orderId,
+                    customerMessage
+                );
+                
+                // Notify provider
+                String providerMessage = String.format(
+                    "Payment verified for order #%d. Amount: ₹%.2f.",
+                    orderId,
+                    locked.getAmount()
+                );
+                notificationService.sendPaymentNotification(
+                    confirmed.getProvider().getUser().getId(),
+                    orderId,
+                    providerMessage
+                );
             } catch (Exception e) {
-                // Log error but don't fail payment
-                System.err.println("ERROR: Failed to update pending payout amount for order " + order.getId() + ": " + e.getMessage());
-                e.printStackTrace();
+                logger.error("Failed to send payment verification notifications: {}", e.getMessage());
             }
-        } else {
-            System.err.println("WARNING: Order " + order.getId() + " has no provider associated");
-        }
-        
-        // Send payment verification notifications
-        try {
-            // Notify customer
-            String customerMessage = String.format(
-                "Payment of ₹%.2f for order #%d has been verified and confirmed.",
-                payment.getAmount(),
-                orderId
-            );
-            notificationService.sendPaymentNotification(
-                order.getCustomer().getUser().getId(),
-                orderId,
-                customerMessage
-            );
-            
-            // Notify provider
-            String providerMessage = String.format(
-                "Payment verified for order #%d. Amount: ₹%.2f.",
-                orderId,
-                payment.getAmount()
-            );
-            notificationService.sendPaymentNotification(
-                order.getProvider().getUser().getId(),
-                orderId,
-                providerMessage
-            );
-        } catch (Exception e) {
-            logger.error("Failed to send payment verification notifications: {}", e.getMessage());
+            return confirmed;
+        });
+
+        if (verified == null) {
+            // Settled by the webhook in the meantime
+            return orderRepository.findByIdWithProvider(orderId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Order not found with id " + orderId));
         }
-        
-        return order;
+        return verified;
     }
 
-    public void verifyAndProcessWebhook(String payload, String signature) {
+    public void verifyWebhookSignature(String payload, String signature) {
         String secret = props.getRazorpay().getWebhookSecret();
         if (!verifySignature(payload, signature, secret)) {
             throw new BadRequestException("Invalid webhook signature");
         }
+    }
 
-        // Minimal parsing to detect payment status; in production, use a typed model
-        // and handle multiple event types like payment.captured, payment.failed
-        String paymentId = extractJsonValue(payload, "payment_id");
-        String orderId = extractJsonValue(payload, "order_id");
-        String event = extractJsonValue(payload, "event");
-
-        if (event != null && event.contains("payment.captured")) {
-            if (paymentId != null && orderId != null) {
-                markSuccess(paymentId, orderId);
+    /**
+     * Apply a Razorpay payment event (payment.captured, payment.failed). Safe to call again for an
+     * event that was already applied, or that the client-side verification got to first: the decision
+     * is made on the locked payment row, in the caller's transaction.
+     */
+    @Transactional
+    public void applyWebhookEvent(String event, String razorpayPaymentId, String razorpayOrderId, String razorpayMethod) {
+        if ("payment.captured".equals(event)) {
+            if (razorpayPaymentId == null || razorpayOrderId == null) {
+                return;
+            }
+            // No-op once the payment is SUCCESS
+            markSuccess(razorpayPaymentId, razorpayOrderId, razorpayMethod);
+        } else if ("payment.failed".equals(event)) {
+            if (razorpayOrderId == null) {
+                return;
             }
-        } else if (event != null && event.contains("payment.failed")) {
-            if (orderId != null) {
-                markFailed(orderId);
+            // A failed attempt can be followed by a successful one; never downgrade a captured payment
+            List<Payment> payments = paymentRepository.findForUpdateByTransactionIdIn(List.of(razorpayOrderId));
+            if (!payments.isEmpty() && payments.get(0).getPaymentStatus() != PaymentStatus.SUCCESS) {
+                markFailed(razorpayOrderId);
+            } else {
+                logger.info("Ignoring payment.failed for Razorpay order {}: payment already settled", razorpayOrderId);
             }
         }
     }
@@ -417,7 +444,8 @@ public class PaymentService {
             sha256Hmac.init(secretKey);
             byte[] hash = sha256Hmac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
             String actual = toHex(hash);
-            return actual.equals(expectedSignature);
+            return expectedSignature != null && MessageDigest.isEqual(
+                    actual.getBytes(StandardCharsets.UTF_8), expectedSignature.getBytes(StandardCharsets.UTF_8));
         } catch (Exception e) {
             return false;
         }
@@ -430,18 +458,6 @@ public class PaymentService {
         }
         return sb.toString();
     }
-
-    private String extractJsonValue(String json, String key) {
-        // very basic extractor; replace with proper JSON parsing if needed
-        String needle = "\"" + key + "\":";
-        int idx = json.indexOf(needle);
-        if (idx < 0) return null;
-        int start = json.indexOf('"', idx + needle.length());
-        if (start < 0) return null;
-        int end = json.indexOf('"', start + 1);
-        if (end < 0) return null;
-        return json.substring(start + 1, end);
-    }
 }
 
 
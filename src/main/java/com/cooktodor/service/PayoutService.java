@@ -41,6 +41,19 @@ public class PayoutService {
      */
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void addToPendingAmount(Long providerId, Double orderAmount, Double commission) {
+        addEarnings(providerId, orderAmount, commission);
+    }
+
+    /**
+     * Same as addToPendingAmount, but part of the caller's transaction, so it commits or rolls back
+     * together with the payment it belongs to
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addToPendingAmountInTransaction(Long providerId, Double orderAmount, Double commission) {
+        addEarnings(providerId, orderAmount, commission);
+    }
+
+    private void addEarnings(Long providerId, Double orderAmount, Double commission) {
         if (providerId == null) {
             System.err.println("WARNING: addToPendingAmount called with null providerId");
             return; // Skip if provider ID is null
@@ -1,8 +1,11 @@
 package com.cooktodor.service;
 
+import java.util.Collection;
 import java.util.DoubleSummaryStatistics;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -138,6 +141,18 @@ public class RatingReviewService {
             customerId, RatingType.ITEM_RATING, menuItemId);
     }
 
+    /**
+     * Get the ids of the given menu items that the customer has already rated, in a single query
+     */
+    @Transactional(readOnly = true)
+    public Set<Long> getCustomerRatedItemIds(Long customerId, Collection<Long> menuItemIds) {
+        if (customerId == null || menuItemIds == null || menuItemIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(ratingRepository.findRatedTargetIds(
+            customerId, RatingType.ITEM_RATING, menuItemIds));
+    }
+
     /**
      * Get orders that contain a menu item and are delivered, which can be used for rating
      * Returns orders where the customer hasn't rated the item yet
@@ -0,0 +1,280 @@
+package com.cooktodor.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Carries user-addressed SSE events between app instances over PostgreSQL LISTEN/NOTIFY.
+ *
+ * Every node publishes the events it creates on one channel and listens on it with a dedicated
+ * connection (outside the Hikari pool). Messages from the node itself are ignored, since they were
+ * already delivered locally. Disabled unless sse.cluster.enabled=true.
+ */
+@Component
+public class SseClusterBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(SseClusterBus.class);
+
+    private static final String CHANNEL = "sse_events";
+
+    // NOTIFY payloads are limited to 8000 bytes by PostgreSQL
+    private static final int MAX_PAYLOAD_BYTES = 7900;
+
+    private static final int POLL_TIMEOUT_MS = 5_000;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${sse.cluster.enabled:false}")
+    private boolean enabled;
+
+    @Value("${spring.datasource.url}")
+    private String datasourceUrl;
+
+    @Value("${spring.datasource.username}")
+    private String datasourceUsername;
+
+    @Value("${spring.datasource.password}")
+    private String datasourcePassword;
+
+    private volatile RemoteEventHandler handler;
+
+    private volatile Runnable gapHandler;
+
+    private volatile Consumer<Long> broadcastHandler;
+
+    private volatile boolean running;
+
+    private Thread listenerThread;
+
+    // Single sender keeps NOTIFY calls off the business threads; events beyond the queue are not propagated
+    private ThreadPoolExecutor sender;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        sender = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(10_000), r -> {
+            Thread t = new Thread(r, "sse-cluster-publish");
+            t.setDaemon(true);
+            return t;
+        });
+        listenerThread = new Thread(this::listen, "sse-cluster-listen");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+        logger.info("SSE cluster bus started on channel {} as node {}", CHANNEL, nodeId);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (sender != null) {
+            sender.shutdown();
+        }
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    /**
+     * Register the receiver of events published by other nodes, and a callback for when some may have been missed
+     */
+    public void subscribe(RemoteEventHandler handler, Runnable gapHandler) {
+        this.handler = handler;
+        this.gapHandler = gapHandler;
+    }
+
+    /**
+     * Register the receiver of broadcast ids announced by other nodes
+     */
+    public void subscribeBroadcasts(Consumer<Long> broadcastHandler) {
+        this.broadcastHandler = broadcastHandler;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Forward an event already delivered on this node to the other nodes
+     */
+    public void publish(Long userId, long eventId, String eventName, Object data) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            sender.execute(() -> send(new ClusterEvent(nodeId, userId, eventId, eventName, data)));
+        } catch (RejectedExecutionException e) {
+            logger.warn("SSE cluster publish queue full, event {} for user {} stays local", eventId, userId);
+        }
+    }
+
+    /**
+     * Tell the other nodes to push a broadcast to their own connections
+     */
+    public void publishBroadcast(Long broadcastId) {
+        if (!enabled) {
+            return;
+        }
+        ClusterEvent event = new ClusterEvent(nodeId, null, 0, "broadcast", null);
+        event.setBroadcastId(broadcastId);
+        try {
+            sender.execute(() -> send(event));
+        } catch (RejectedExecutionException e) {
+            logger.warn("SSE cluster publish queue full, broadcast {} stays local", broadcastId);
+        }
+    }
+
+    private void send(ClusterEvent event) {
+        try {
+            String payload = objectMapper.writeValueAsString(event);
+            if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_PAYLOAD_BYTES) {
+                // Too large for NOTIFY: tell the other nodes their replay buffers are missing this event
+                event.setData(null);
+                event.setTruncated(true);
+                payload = objectMapper.writeValueAsString(event);
+            }
+            String message = payload;
+            jdbcTemplate.execute("SELECT pg_notify(?, ?)", (PreparedStatementCallback<Boolean>) ps -> {
+                ps.setString(1, CHANNEL);
+                ps.setString(2, message);
+                return ps.execute();
+            });
+        } catch (Exception e) {
+            logger.error("Failed to publish SSE event {} to cluster", event.getEventId(), e);
+        }
+    }
+
+    private void listen() {
+        long backoffMs = 1_000;
+        boolean connectedBefore = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(datasourceUrl, datasourceUsername, datasourcePassword)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                if (connectedBefore && gapHandler != null) {
+                    // Events published while we were not listening are lost for this node
+                    gapHandler.run();
+                }
+                connectedBefore = true;
+                backoffMs = 1_000;
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            receive(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("SSE cluster listener disconnected, retrying in {} ms: {}", backoffMs, e.getMessage());
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoffMs = Math.min(backoffMs * 2, 30_000);
+            }
+        }
+    }
+
+    private void receive(String payload) {
+        try {
+            ClusterEvent event = objectMapper.readValue(payload, ClusterEvent.class);
+            if (nodeId.equals(event.getNodeId())) {
+                return;
+            }
+            if (event.getBroadcastId() != null) {
+                if (broadcastHandler != null) {
+                    broadcastHandler.accept(event.getBroadcastId());
+                }
+                return;
+            }
+            if (handler == null) {
+                return;
+            }
+            handler.onEvent(event.getUserId(), event.getEventId(), event.getEventName(),
+                    event.isTruncated() ? null : event.getData());
+        } catch (Exception e) {
+            logger.error("Failed to handle SSE cluster message", e);
+        }
+    }
+
+    /**
+     * Receives events published by other nodes. A null data means the event was too large to
+     * forward and only its id is known.
+     */
+    public interface RemoteEventHandler {
+        void onEvent(Long userId, long eventId, String eventName, Object data);
+    }
+
+    public static class ClusterEvent {
+        private String nodeId;
+        private Long userId;
+        private long eventId;
+        private String eventName;
+        private Object data;
+        private boolean truncated;
+        private Long broadcastId;
+
+        public ClusterEvent() {}
+
+        public ClusterEvent(String nodeId, Long userId, long eventId, String eventName, Object data) {
+            this.nodeId = nodeId;
+            this.userId = userId;
+            this.eventId = eventId;
+            this.eventName = eventName;
+            this.data = data;
+        }
+
+        public String getNodeId() { return nodeId; }
+        public void setNodeId(String nodeId) { this.nodeId = nodeId; }
+        public Long getUserId() { return userId; }
+        public void setUserId(Long userId) { this.userId = userId; }
+        public long getEventId() { return eventId; }
+        public void setEventId(long eventId) { this.eventId = eventId; }
+        public String getEventName() { return eventName; }
+        public void setEventName(String eventName) { this.eventName = eventName; }
+        public Object getData() { return data; }
+        public void setData(Object data) { this.data = data; }
+        public boolean isTruncated() { return truncated; }
+        public void setTruncated(boolean truncated) { this.truncated = truncated; }
+        public Long getBroadcastId() { return broadcastId; }
+        public void setBroadcastId(Long broadcastId) { this.broadcastId = broadcastId; }
+    }
+}
@@ -1,48 +1,153 @@
 package com.cooktodor.service;
 
+import com.cooktodor.model.Notification;
+import com.cooktodor.repository.NotificationRepository;
+import com.cooktodor.utils.TransactionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
 import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Server-sent event delivery.
+ *
+ * Callers never write to a socket: events are appended to bounded per-session queues and a small
+ * writer pool drains them. A session whose queue overflows or stops draining is closed, and its client
+ * reconnects with Last-Event-ID and gets the missed events replayed.
+ */
 @Service
 public class SseEventService {
     
     private static final Logger logger = LoggerFactory.getLogger(SseEventService.class);
     
-    // Store active SSE connections by user ID
-    private final Map<Long, SseEmitter> emitters = new ConcurrentHashMap<>();
+    private static final long EMITTER_TIMEOUT_MS = 30 * 60 * 1000L;
+    
+    private static final SseEvent HEARTBEAT = new SseEvent(0, "heartbeat", "ping");
+    
+    // State snapshots - a newer one replaces the queued one instead of queueing behind it
+    private static final Set<String> COALESCED_EVENTS = Set.of("unread_count", "notifications_all_read");
+    
+    // Active SSE sessions by user ID; a user may be connected from several devices at once
+    private final Map<Long, Set<SseSession>> sessions = new ConcurrentHashMap<>();
+    
+    private final AtomicLong sessionSequence = new AtomicLong();
+    
+    // Recent events per user, replayed to clients that reconnect with Last-Event-ID
+    private final Map<Long, EventBuffer> replayBuffers = new ConcurrentHashMap<>();
+    
+    // Event ids follow the wall clock (millis * 1000 + counter) so they keep increasing across restarts
+    // and the approximate time of any id is known for the DB fallback
+    private final AtomicLong eventSequence = new AtomicLong(System.currentTimeMillis() * 1000);
+    
+    @Autowired
+    private NotificationRepository notificationRepository;
+    
+    @Autowired
+    private SseClusterBus clusterBus;
+    
+    @Value("${sse.max-sessions-per-user:5}")
+    private int maxSessionsPerUser;
+    
+    @Value("${sse.session.queue-capacity:256}")
+    private int sessionQueueCapacity;
+    
+    @Value("${sse.session.max-lag-seconds:60}")
+    private long maxLagSeconds;
+    
+    @Value("${sse.writer-threads:4}")
+    private int writerThreads;
     
-    // Scheduled executor for heartbeat
-    private final ScheduledExecutorService heartbeatExecutor = 
-        Executors.newScheduledThreadPool(1);
+    @Value("${sse.replay.buffer-size:100}")
+    private int replayBufferSize;
+    
+    @Value("${sse.replay.retention-minutes:30}")
+    private long replayRetentionMinutes;
+    
+    @Value("${sse.heartbeat.interval-seconds:30}")
+    private long heartbeatIntervalSeconds;
+    
+    // One timer for all connections; it only walks the sessions and queues heartbeats
+    private ScheduledThreadPoolExecutor heartbeatScheduler;
+    
+    // Drains session queues; each session has at most one drain task queued or running at a time
+    private ThreadPoolExecutor writerPool;
+    
+    @PostConstruct
+    void start() {
+        heartbeatScheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "sse-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        AtomicInteger threadCount = new AtomicInteger();
+        writerPool = new ThreadPoolExecutor(writerThreads, writerThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "sse-writer-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        heartbeatScheduler.scheduleAtFixedRate(this::sweepHeartbeats,
+                heartbeatIntervalSeconds, heartbeatIntervalSeconds, TimeUnit.SECONDS);
+        clusterBus.subscribe(this::deliverRemote, this::markReplayGaps);
+    }
+    
+    @PreDestroy
+    void stop() {
+        heartbeatScheduler.shutdownNow();
+        writerPool.shutdownNow();
+    }
     
     /**
      * Create SSE connection for a user
      */
     public SseEmitter createConnection(Long userId) {
-        // Remove existing connection if any
-        removeConnection(userId);
-        
-        // Create new emitter with 30 minute timeout
-        SseEmitter emitter = new SseEmitter(30 * 60 * 1000L);
+        return createConnection(userId, null);
+    }
+    
+    /**
+     * Create SSE connection for a user. Existing sessions stay open; when the user is at the
+     * session limit the oldest one is closed to make room.
+     * When lastEventId is given (the client's Last-Event-ID), the events it missed are replayed
+     * from the in-memory buffer, or from the notifications table if the gap is larger than the buffer.
+     */
+    public SseEmitter createConnection(Long userId, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        SseSession session = new SseSession(sessionSequence.incrementAndGet(), userId, emitter, sessionQueueCapacity);
         
         // Set completion and timeout callbacks
         emitter.onCompletion(() -> {
             logger.info("SSE connection completed for user: {}", userId);
-            emitters.remove(userId);
+            removeSession(session);
         });
         
         emitter.onTimeout(() -> {
             logger.info("SSE connection timeout for user: {}", userId);
-            emitters.remove(userId);
+            removeSession(session);
             try {
                 emitter.complete();
             } catch (Exception e) {
@@ -52,48 +157,207 @@ public class SseEventService {
         
         emitter.onError((ex) -> {
             logger.error("SSE connection error for user: {}", userId, ex);
-            emitters.remove(userId);
+            removeSession(session);
         });
         
-        emitters.put(userId, emitter);
-        
-        // Send initial connection message
+        // Send initial connection message before the session can receive anything else
         try {
             emitter.send(SseEmitter.event()
                     .name("connected")
                     .data("SSE connection established"));
         } catch (IOException e) {
             logger.error("Failed to send initial SSE message", e);
-            emitters.remove(userId);
             return null;
         }
         
-        // Start heartbeat to keep connection alive
-        startHeartbeat(userId, emitter);
+        SseSession evicted;
+        if (lastEventId == null) {
+            evicted = addSession(session);
+        } else {
+            evicted = addSessionWithReplay(session, lastEventId);
+        }
+        if (evicted != null) {
+            logger.info("SSE session limit reached for user: {}, closing oldest session", userId);
+            evicted.close();
+            completeQuietly(evicted);
+        }
+        schedule(session);
         
         logger.info("SSE connection created for user: {}", userId);
         return emitter;
     }
     
     /**
-     * Send notification event to a specific user
+     * Queue the events a reconnecting client missed, then register the session for live events.
+     * Registration and the buffer snapshot happen under the buffer lock, which is also held while live
+     * events are queued, so every event reaches the session exactly once and in order.
+     */
+    private SseSession addSessionWithReplay(SseSession session, long lastEventId) {
+        Long userId = session.getUserId();
+        long replayFrom = lastEventId;
+        List<SseEvent> stored = Collections.emptyList();
+        
+        EventBuffer buffer = bufferFor(userId);
+        long latestBeforeQuery;
+        boolean covered;
+        synchronized (buffer) {
+            covered = buffer.covers(lastEventId);
+            latestBeforeQuery = buffer.getLatestId();
+        }
+        if (!covered) {
+            // Gap is larger than the buffer: fall back to the notifications stored since the last seen event.
+            // The query runs outside the lock; buffered events newer than it are queued after the stored ones
+            stored = loadStoredNotifications(userId, lastEventId, latestBeforeQuery);
+            replayFrom = latestBeforeQuery;
+        }
+        
+        while (true) {
+            buffer = bufferFor(userId);
+            synchronized (buffer) {
+                if (buffer.isRetired()) {
+                    continue;
+                }
+                SseSession evicted = addSession(session);
+                session.offerAll(stored);
+                session.offerAll(buffer.eventsAfter(replayFrom));
+                return evicted;
+            }
+        }
+    }
+    
+    /**
+     * Notifications stored after lastEventId, or a single "resync" event (carrying replayId) when there are
+     * more than a replay buffer's worth, telling the client to reload its feed instead
+     */
+    private List<SseEvent> loadStoredNotifications(Long userId, long lastEventId, long replayId) {
+        LocalDateTime since = LocalDateTime.ofInstant(Instant.ofEpochMilli(lastEventId / 1000), ZoneId.systemDefault());
+        List<Notification> notifications = notificationRepository
+                .findAllByUser_IdAndIsDeletedFalseAndCreatedAtAfterOrderByCreatedAtAsc(
+                        userId, since, PageRequest.of(0, replayBufferSize + 1));
+        if (notifications.size() > replayBufferSize) {
+            logger.debug("Too many missed notifications for user: {}, asking the client to resync", userId);
+            return List.of(new SseEvent(replayId, "resync", "Missed too many events, reload notifications"));
+        }
+        logger.debug("Replaying {} notifications from DB for user: {}", notifications.size(), userId);
+        List<SseEvent> events = new ArrayList<>(notifications.size());
+        long previousId = lastEventId;
+        for (Notification notification : notifications) {
+            // A distinct id per row on the live-event clock, so a reconnect mid-replay resumes after the last row received
+            long createdAtMillis = notification.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            long id = Math.max(previousId + 1, createdAtMillis * 1000);
+            events.add(new SseEvent(id, "notification", NotificationService.toEventData(notification)));
+            previousId = id;
+        }
+        return events;
+    }
+    
+    /**
+     * Send notification event to all sessions of a specific user.
+     * Only queues the event; inside a transaction it is queued after commit.
      */
     public void sendNotification(Long userId, String eventName, Object data) {
-        SseEmitter emitter = emitters.get(userId);
-        if (emitter != null) {
-            try {
-                emitter.send(SseEmitter.event()
-                        .name(eventName)
-                        .data(data));
-                logger.debug("Sent SSE notification to user: {}, event: {}", userId, eventName);
-            } catch (IOException e) {
-                logger.error("Failed to send SSE notification to user: {}", userId, e);
-                // Remove broken connection
-                removeConnection(userId);
+        TransactionUtils.afterCommit(() -> publish(userId, eventName, data, true));
+    }
+    
+    /**
+     * Deliver to the user's sessions on this node only, without forwarding to the cluster.
+     * For fan-outs that every node runs for its own connections (broadcasts).
+     */
+    public void sendToLocalSessions(Long userId, String eventName, Object data) {
+        publish(userId, eventName, data, false);
+    }
+    
+    /**
+     * Assign the next event id, deliver the event on this node and forward it to the other nodes
+     */
+    private void publish(Long userId, String eventName, Object data, boolean forward) {
+        while (true) {
+            EventBuffer buffer = bufferFor(userId);
+            SseEvent event;
+            synchronized (buffer) {
+                // A buffer pruned concurrently is no longer reachable, so retry with a fresh one
+                if (buffer.isRetired()) {
+                    continue;
+                }
+                event = new SseEvent(nextEventId(), eventName, data);
+                appendAndQueue(buffer, userId, event);
             }
-        } else {
+            if (forward) {
+                clusterBus.publish(userId, event.getId(), eventName, data);
+            }
+            return;
+        }
+    }
+    
+    /**
+     * Deliver an event published by another node. Only users connected to this node get it; for
+     * other users with a replay buffer here the event is recorded as a gap, so a later reconnect
+     * to this node falls back to the database instead of replaying an incomplete buffer.
+     */
+    void deliverRemote(Long userId, long eventId, String eventName, Object data) {
+        // Keep local ids above every id seen in the cluster
+        eventSequence.accumulateAndGet(eventId, Math::max);
+        while (true) {
+            EventBuffer buffer = sessions.containsKey(userId) ? bufferFor(userId) : replayBuffers.get(userId);
+            if (buffer == null) {
+                return;
+            }
+            synchronized (buffer) {
+                if (buffer.isRetired()) {
+                    continue;
+                }
+                if (data == null || !sessions.containsKey(userId)) {
+                    buffer.markGap(eventId);
+                } else {
+                    appendAndQueue(buffer, userId, new SseEvent(eventId, eventName, data));
+                }
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Events may have been missed cluster-wide (e.g. the bus listener reconnected), so no buffer
+     * can be trusted to be complete up to now
+     */
+    void markReplayGaps() {
+        long now = eventSequence.get();
+        for (EventBuffer buffer : replayBuffers.values()) {
+            synchronized (buffer) {
+                buffer.markGap(now);
+            }
+        }
+    }
+    
+    /**
+     * Append to the user's replay buffer and queue on every session. Caller holds the buffer lock.
+     */
+    private void appendAndQueue(EventBuffer buffer, Long userId, SseEvent event) {
+        buffer.append(event);
+        Set<SseSession> userSessions = sessions.get(userId);
+        if (userSessions == null || userSessions.isEmpty()) {
             logger.debug("No active SSE connection for user: {}", userId);
+            return;
         }
+        for (SseSession session : userSessions) {
+            if (!session.offer(event)) {
+                // Eviction completes the emitter on a writer thread, so it is safe under the lock
+                evict(session, "queue full");
+            } else {
+                schedule(session);
+            }
+        }
+    }
+    
+    // A new buffer knows nothing before now; older ids have to come from the database
+    private EventBuffer bufferFor(Long userId) {
+        return replayBuffers.computeIfAbsent(userId, id -> new EventBuffer(replayBufferSize,
+                Math.max(eventSequence.get(), System.currentTimeMillis() * 1000)));
+    }
+    
+    private long nextEventId() {
+        long now = System.currentTimeMillis() * 1000;
+        return eventSequence.accumulateAndGet(now, (previous, timestamp) -> Math.max(previous + 1, timestamp));
     }
     
     /**
@@ -106,15 +370,14 @@ public class SseEventService {
     }
     
     /**
-     * Remove connection for a user
+     * Remove all connections for a user
      */
     public void removeConnection(Long userId) {
-        SseEmitter emitter = emitters.remove(userId);
-        if (emitter != null) {
-            try {
-                emitter.complete();
-            } catch (Exception e) {
-                logger.error("Error completing emitter", e);
+        Set<SseSession> removed = sessions.remove(userId);
+        if (removed != null) {
+            for (SseSession session : removed) {
+                session.close();
+                completeQuietly(session);
             }
         }
     }
@@ -123,33 +386,335 @@ public class SseEventService {
      * Check if user has active connection
      */
     public boolean hasConnection(Long userId) {
-        return emitters.containsKey(userId);
+        return sessions.containsKey(userId);
+    }
+    
+    /**
+     * Get number of active sessions for a user
+     */
+    public int getSessionCount(Long userId) {
+        Set<SseSession> userSessions = sessions.get(userId);
+        return userSessions != null ? userSessions.size() : 0;
     }
     
     /**
-     * Get number of active connections
+     * Get number of active connections across all users
      */
     public int getActiveConnectionsCount() {
-        return emitters.size();
+        int count = 0;
+        for (Set<SseSession> userSessions : sessions.values()) {
+            count += userSessions.size();
+        }
+        return count;
     }
     
     /**
-     * Start heartbeat to keep connection alive
+     * Register a session, returning the user's oldest session if it has to make room.
+     * Only the set bookkeeping happens under the map's per-key lock; the evicted emitter is completed by the caller.
      */
-    private void startHeartbeat(Long userId, SseEmitter emitter) {
-        heartbeatExecutor.scheduleAtFixedRate(() -> {
-            if (emitters.containsKey(userId)) {
-                try {
-                    emitter.send(SseEmitter.event()
-                            .name("heartbeat")
-                            .data("ping"));
-                } catch (IOException e) {
-                    logger.debug("Heartbeat failed for user: {}, removing connection", userId);
-                    removeConnection(userId);
+    private SseSession addSession(SseSession session) {
+        SseSession[] evicted = new SseSession[1];
+        sessions.compute(session.getUserId(), (userId, userSessions) -> {
+            if (userSessions == null) {
+                userSessions = ConcurrentHashMap.newKeySet();
+            }
+            if (userSessions.size() >= maxSessionsPerUser) {
+                SseSession oldest = null;
+                for (SseSession existing : userSessions) {
+                    if (oldest == null || existing.getId() < oldest.getId()) {
+                        oldest = existing;
+                    }
                 }
+                userSessions.remove(oldest);
+                evicted[0] = oldest;
             }
-        }, 30, 30, TimeUnit.SECONDS); // Send heartbeat every 30 seconds
+            userSessions.add(session);
+            return userSessions;
+        });
+        return evicted[0];
+    }
+    
+    /**
+     * Unregister a session, dropping the user's entry once the last session is gone
+     */
+    private boolean removeSession(SseSession session) {
+        session.close();
+        boolean[] removed = new boolean[1];
+        sessions.computeIfPresent(session.getUserId(), (userId, userSessions) -> {
+            removed[0] = userSessions.remove(session);
+            return userSessions.isEmpty() ? null : userSessions;
+        });
+        return removed[0];
+    }
+    
+    private void closeSession(SseSession session) {
+        if (removeSession(session)) {
+            completeQuietly(session);
+        }
+    }
+    
+    /**
+     * Drop a slow consumer. Completing the emitter is left to a writer thread so the caller never touches the socket.
+     */
+    private void evict(SseSession session, String reason) {
+        if (removeSession(session)) {
+            logger.warn("Evicting slow SSE consumer for user: {} ({})", session.getUserId(), reason);
+            writerPool.execute(() -> completeQuietly(session));
+        }
+    }
+    
+    private void completeQuietly(SseSession session) {
+        try {
+            session.getEmitter().complete();
+        } catch (Exception e) {
+            logger.debug("Error completing emitter for user: {}", session.getUserId(), e);
+        }
+    }
+    
+    private void schedule(SseSession session) {
+        if (session.markScheduled()) {
+            writerPool.execute(() -> drain(session));
+        }
+    }
+    
+    /**
+     * Write one batch of a session's queue, then hand the session back to the pool if more arrived meanwhile
+     */
+    private void drain(SseSession session) {
+        for (SseEvent event : session.takeBatch()) {
+            try {
+                session.send(event);
+            } catch (Exception e) {
+                logger.debug("SSE write failed for user: {}, removing connection", session.getUserId());
+                closeSession(session);
+                return;
+            }
+        }
+        if (session.finishBatch()) {
+            writerPool.execute(() -> drain(session));
+        }
+    }
+    
+    /**
+     * Queue a heartbeat on every live session and evict sessions that stopped draining.
+     * Runs once per interval on the shared timer.
+     */
+    void sweepHeartbeats() {
+        pruneReplayBuffers();
+        long lagCutoff = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(maxLagSeconds);
+        for (Set<SseSession> userSessions : sessions.values()) {
+            for (SseSession session : userSessions) {
+                if (session.isLagging(lagCutoff)) {
+                    evict(session, "not draining");
+                } else if (session.offer(HEARTBEAT)) {
+                    schedule(session);
+                }
+            }
+        }
+    }
+    
+    // Drop replay buffers of users who have been disconnected and idle for longer than the retention
+    private void pruneReplayBuffers() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(replayRetentionMinutes);
+        Iterator<Map.Entry<Long, EventBuffer>> it = replayBuffers.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, EventBuffer> entry = it.next();
+            if (sessions.containsKey(entry.getKey())) {
+                continue;
+            }
+            EventBuffer buffer = entry.getValue();
+            synchronized (buffer) {
+                if (buffer.getLastAppendMillis() < cutoff) {
+                    buffer.retire();
+                    it.remove();
+                }
+            }
+        }
+    }
+    
+    /**
+     * One open event stream (one device/tab) of a user, with its bounded outgoing queue.
+     * Heartbeats are dropped while other events are queued, and state snapshots (COALESCED_EVENTS)
+     * replace an older queued copy of themselves.
+     */
+    static class SseSession {
+        private final long id;
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final int capacity;
+        private final ArrayDeque<SseEvent> queue = new ArrayDeque<>();
+        private boolean scheduled;
+        private boolean closed;
+        // last time the queue was empty or a batch was written
+        private long lastProgressMillis = System.currentTimeMillis();
+        
+        SseSession(long id, Long userId, SseEmitter emitter, int capacity) {
+            this.id = id;
+            this.userId = userId;
+            this.emitter = emitter;
+            this.capacity = capacity;
+        }
+        
+        long getId() { return id; }
+        Long getUserId() { return userId; }
+        SseEmitter getEmitter() { return emitter; }
+        
+        /**
+         * Queue an event; false when the queue is full and the session should be evicted
+         */
+        synchronized boolean offer(SseEvent event) {
+            if (closed) {
+                return true;
+            }
+            if (event == HEARTBEAT) {
+                if (!queue.isEmpty()) {
+                    return true; // connection is busy anyway
+                }
+            } else if (COALESCED_EVENTS.contains(event.getName())) {
+                queue.removeIf(queued -> queued.getName().equals(event.getName()));
+            }
+            if (queue.size() >= capacity) {
+                return false;
+            }
+            if (queue.isEmpty()) {
+                lastProgressMillis = System.currentTimeMillis();
+            }
+            queue.add(event);
+            return true;
+        }
+        
+        void offerAll(List<SseEvent> events) {
+            for (SseEvent event : events) {
+                offer(event);
+            }
+        }
+        
+        synchronized boolean markScheduled() {
+            if (scheduled || closed || queue.isEmpty()) {
+                return false;
+            }
+            scheduled = true;
+            return true;
+        }
+        
+        synchronized List<SseEvent> takeBatch() {
+            List<SseEvent> batch = new ArrayList<>(queue);
+            queue.clear();
+            return batch;
+        }
+        
+        /**
+         * True when more events arrived while the batch was written and the session stays scheduled
+         */
+        synchronized boolean finishBatch() {
+            lastProgressMillis = System.currentTimeMillis();
+            if (closed || queue.isEmpty()) {
+                scheduled = false;
+                return false;
+            }
+            return true;
+        }
+        
+        synchronized boolean isLagging(long cutoffMillis) {
+            return !queue.isEmpty() && lastProgressMillis < cutoffMillis;
+        }
+        
+        synchronized void close() {
+            closed = true;
+            queue.clear();
+        }
+        
+        void send(SseEvent event) throws IOException {
+            SseEmitter.SseEventBuilder builder = SseEmitter.event();
+            if (event.getId() > 0) {
+                builder.id(Long.toString(event.getId()));
+            }
+            emitter.send(builder.name(event.getName()).data(event.getData()));
+        }
+    }
+    
+    static class SseEvent {
+        private final long id;
+        private final String name;
+        private final Object data;
+        
+        SseEvent(long id, String name, Object data) {
+            this.id = id;
+            this.name = name;
+            this.data = data;
+        }
+        
+        long getId() { return id; }
+        String getName() { return name; }
+        Object getData() { return data; }
+    }
+    
+    /**
+     * Fixed-size ring of a user's most recent events. Every event of the user with an id above
+     * {@code floor} is still in the ring; older ones have to come from the database.
+     * Callers synchronize on the buffer.
+     */
+    static class EventBuffer {
+        private final SseEvent[] ring;
+        private int next;
+        private int size;
+        private long floor;
+        private long latestId;
+        private long lastAppendMillis = System.currentTimeMillis();
+        private boolean retired;
+        
+        EventBuffer(int capacity, long floor) {
+            this.ring = new SseEvent[Math.max(capacity, 1)];
+            this.floor = floor;
+            this.latestId = floor;
+        }
+        
+        SseEvent append(SseEvent event) {
+            SseEvent overwritten = ring[next];
+            if (overwritten != null) {
+                // ids from other nodes can arrive slightly out of order, so never move the bounds back
+                floor = Math.max(floor, overwritten.getId());
+            }
+            ring[next] = event;
+            next = (next + 1) % ring.length;
+            size = Math.min(size + 1, ring.length);
+            latestId = Math.max(latestId, event.getId());
+            lastAppendMillis = System.currentTimeMillis();
+            return event;
+        }
+        
+        /**
+         * Record that events up to this id may be missing from the ring
+         */
+        void markGap(long eventId) {
+            floor = Math.max(floor, eventId);
+            latestId = Math.max(latestId, eventId);
+        }
+        
+        /**
+         * Whether every event after lastEventId is still buffered
+         */
+        boolean covers(long lastEventId) {
+            return lastEventId >= floor;
+        }
+        
+        /**
+         * Buffered events newer than lastEventId, oldest first
+         */
+        List<SseEvent> eventsAfter(long lastEventId) {
+            List<SseEvent> result = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                SseEvent event = ring[(next - size + i + ring.length) % ring.length];
+                if (event.getId() > lastEventId) {
+                    result.add(event);
+                }
+            }
+            return result;
+        }
+        
+        long getLatestId() { return latestId; }
+        long getLastAppendMillis() { return lastAppendMillis; }
+        boolean isRetired() { return retired; }
+        void retire() { retired = true; }
     }
 }
-
-
@@ -1,6 +1,7 @@
 package com.cooktodor.service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,11 +13,9 @@ import com.cooktodor.enums.ImageType;
 import com.cooktodor.enums.RatingType;
 import com.cooktodor.exception.ResourceNotFoundException;
 import com.cooktodor.model.DeliveryZone;
-import com.cooktodor.model.Image;
 import com.cooktodor.model.TiffinProvider;
 import com.cooktodor.model.User;
 import com.cooktodor.repository.DeliveryZoneRepository;
-import com.cooktodor.repository.ImageRepository;
 import com.cooktodor.repository.RatingReviewRepository;
 import com.cooktodor.repository.TiffinProviderRepository;
 import com.cooktodor.repository.UserRepository;
@@ -28,7 +27,7 @@ public class TiffinProviderService {
     private TiffinProviderRepository repository;
 
     @Autowired
-    private ImageRepository imageRepository;
+    private ImageService imageService;
 
     @Autowired
     private RatingReviewRepository ratingRepository;
@@ -42,7 +41,10 @@ public class TiffinProviderService {
     // ---------------- Basic CRUD ----------------
     public List<TiffinProvider> getAllProviders() {
         List<TiffinProvider> providers = repository.findAll();
-        providers.forEach(this::loadExtras);
+        // One query finds the providers that have a profile image; the others skip the per-owner lookup
+        Map<Long, List<Long>> imageIds = imageService.getImageIds(ImageType.PROVIDER_PROFILE,
+                providers.stream().map(TiffinProvider::getId).toList());
+        providers.forEach(provider -> loadExtras(provider, imageIds.containsKey(provider.getId())));
         return providers;
     }
 
@@ -131,10 +133,14 @@ public class TiffinProviderService {
     // ---------------- Load profile image, place images, ratings, zone ----------------
     @Transactional(readOnly = true)
     private void loadExtras(TiffinProvider provider) {
-        Long imageId = imageRepository.findIdByImageTypeAndOwnerId(ImageType.PROVIDER_PROFILE, provider.getId());
-        if (imageId != null) {
-            Image profileImage = imageRepository.findById(imageId).get();
-            provider.setProfileImage(profileImage);
+        loadExtras(provider, true);
+    }
+
+    private void loadExtras(TiffinProvider provider, boolean hasProfileImage) {
+        // Profile images are read on almost every screen - served from the hot image cache
+        if (hasProfileImage) {
+            imageService.getOwnerImage(ImageType.PROVIDER_PROFILE, provider.getId())
+                    .ifPresent(provider::setProfileImage);
         }
         provider.setRatings(
             ratingRepository.findByRatingTypeAndTargetId(RatingType.COOK_RATING, provider.getId())
@@ -0,0 +1,277 @@
+package com.cooktodor.service;
+
+import com.cooktodor.model.RevokedToken;
+import com.cooktodor.model.UserTokenRevocation;
+import com.cooktodor.repository.RevokedTokenRepository;
+import com.cooktodor.repository.UserTokenRevocationRepository;
+import com.cooktodor.utils.TransactionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Deny list of revoked JWTs, keyed by the token's jti, plus per-user cutoffs that revoke every token
+ * a user was issued up to a point in time (password reset, role change, account removal).
+ *
+ * Revocations are stored in revoked_tokens and mirrored in memory: a Bloom filter answers "definitely
+ * not revoked" for almost every request without touching a map, and an exact map of the revoked jtis
+ * (only those not yet expired, so it stays small) settles the rare positive. Other nodes' revocations
+ * are picked up by polling the table every few seconds; expired entries are dropped from the table and
+ * the filter is rebuilt on a slower schedule. User cutoffs live in user_token_revocations and are
+ * mirrored and synced the same way; there are few of them, so an exact map is enough.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    // Re-read this much before the last sync, so rows committed late or stamped by a skewed clock are not missed
+    private static final long SYNC_OVERLAP_SECONDS = 60;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    private final UserTokenRevocationRepository userTokenRevocationRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    // jti -> expiry (epoch millis)
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    private final Object filterLock = new Object();
+
+    private volatile BloomFilter filter;
+
+    // userId -> tokens issued at or before this time (epoch millis) are revoked
+    private final Map<Long, Long> userCutoffs = new ConcurrentHashMap<>();
+
+    @Value("${security.revocation.bloom-capacity:100000}")
+    private int bloomCapacity;
+
+    @Value("${security.revocation.sync-interval-seconds:5}")
+    private long syncIntervalSeconds;
+
+    @Value("${security.revocation.sweep-interval-minutes:10}")
+    private long sweepIntervalMinutes;
+
+    // Longest token lifetime; a user cutoff is kept until every token issued before it has expired
+    @Value("${jwt.refresh.token.expiration:604800000}")
+    private long maxTokenLifetimeMillis;
+
+    private volatile LocalDateTime lastSync;
+
+    private ScheduledExecutorService scheduler;
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+            UserTokenRevocationRepository userTokenRevocationRepository, PlatformTransactionManager transactionManager) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.userTokenRevocationRepository = userTokenRevocationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void start() {
+        filter = new BloomFilter(bloomCapacity);
+        LocalDateTime now = LocalDateTime.now();
+        for (RevokedToken token : revokedTokenRepository.findAllByExpiresAtAfter(now)) {
+            remember(token.getJti(), token.getExpiresAt());
+        }
+        for (UserTokenRevocation cutoff : userTokenRevocationRepository.findAllByExpiresAtAfter(now)) {
+            rememberCutoff(cutoff.getUserId(), cutoff.getRevokedBefore());
+        }
+        lastSync = now;
+        logger.info("Loaded {} revoked tokens and {} user cutoffs", revoked.size(), userCutoffs.size());
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "token-revocation");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::syncSafely, syncIntervalSeconds, syncIntervalSeconds, TimeUnit.SECONDS);
+        scheduler.scheduleWithFixedDelay(this::sweepSafely, sweepIntervalMinutes, sweepIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Hot path, called by JwtFilter for every authenticated request
+     */
+    public boolean isRevoked(String jti, Long userId, Date issuedAt) {
+        if (userId != null && !userCutoffs.isEmpty()) {
+            Long cutoff = userCutoffs.get(userId);
+            // iat has second precision, so a token issued within the cutoff's second is rejected too
+            if (cutoff != null && (issuedAt == null || issuedAt.getTime() <= cutoff)) {
+                return true;
+            }
+        }
+        return isRevoked(jti);
+    }
+
+    public boolean isRevoked(String jti) {
+        if (jti == null || !filter.mightContain(jti)) {
+            return false;
+        }
+        return revoked.containsKey(jti);
+    }
+
+    /**
+     * Revoke a token until its own expiry; takes effect on this node at commit and on others at their next sync
+     */
+    @Transactional
+    public void revoke(String jti, Long userId, Date expiration) {
+        if (jti == null || expiration == null || expiration.before(new Date())) {
+            return;
+        }
+        LocalDateTime expiresAt = LocalDateTime.ofInstant(expiration.toInstant(), ZoneId.systemDefault());
+        revokedTokenRepository.insertIfAbsent(jti, userId, expiresAt, LocalDateTime.now());
+        TransactionUtils.afterCommit(() -> remember(jti, expiresAt));
+        logger.info("Revoked token {} of user {}", jti, userId);
+    }
+
+    /**
+     * Revoke every token issued to the user until now; takes effect on this node at commit and on others at their next sync
+     */
+    @Transactional
+    public void revokeAllForUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        userTokenRevocationRepository.upsert(userId, now, now.plus(maxTokenLifetimeMillis, ChronoUnit.MILLIS), now);
+        TransactionUtils.afterCommit(() -> rememberCutoff(userId, now));
+        logger.info("Revoked all tokens of user {}", userId);
+    }
+
+    private void rememberCutoff(Long userId, LocalDateTime revokedBefore) {
+        long cutoffMillis = revokedBefore.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        userCutoffs.merge(userId, cutoffMillis, Math::max);
+    }
+
+    private void remember(String jti, LocalDateTime expiresAt) {
+        long expiresAtMillis = expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        synchronized (filterLock) {
+            revoked.put(jti, expiresAtMillis);
+            filter.add(jti);
+        }
+    }
+
+    private void syncSafely() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<RevokedToken> recent = revokedTokenRepository.findAllByRevokedAtAfterAndExpiresAtAfter(
+                    lastSync.minusSeconds(SYNC_OVERLAP_SECONDS), now);
+            for (RevokedToken token : recent) {
+                if (!revoked.containsKey(token.getJti())) {
+                    remember(token.getJti(), token.getExpiresAt());
+                }
+            }
+            for (UserTokenRevocation cutoff : userTokenRevocationRepository.findAllByRevokedAtAfterAndExpiresAtAfter(
+                    lastSync.minusSeconds(SYNC_OVERLAP_SECONDS), now)) {
+                rememberCutoff(cutoff.getUserId(), cutoff.getRevokedBefore());
+            }
+            lastSync = now;
+        } catch (Exception e) {
+            logger.error("Failed to sync revoked tokens", e);
+        }
+    }
+
+    private void sweepSafely() {
+        try {
+            long now = System.currentTimeMillis();
+            synchronized (filterLock) {
+                revoked.values().removeIf(expiresAt -> expiresAt <= now);
+                // Bloom filters can't forget, so rebuild from what is still revoked
+                BloomFilter rebuilt = new BloomFilter(Math.max(bloomCapacity, revoked.size() * 2));
+                revoked.keySet().forEach(rebuilt::add);
+                filter = rebuilt;
+            }
+            userCutoffs.values().removeIf(cutoff -> cutoff + maxTokenLifetimeMillis <= now);
+            Integer deleted = transactionTemplate.execute(status -> revokedTokenRepository.deleteExpired(LocalDateTime.now()));
+            if (deleted != null && deleted > 0) {
+                logger.info("Purged {} expired revoked tokens", deleted);
+            }
+            transactionTemplate.executeWithoutResult(status ->
+                    userTokenRevocationRepository.deleteExpired(LocalDateTime.now()));
+        } catch (Exception e) {
+            logger.error("Failed to sweep revoked tokens", e);
+        }
+    }
+
+    /**
+     * Lock-free Bloom filter sized for about 1% false positives at the given capacity
+     */
+    static final class BloomFilter {
+        private static final int HASHES = 7;
+
+        private final AtomicLongArray words;
+        private final long numBits;
+
+        BloomFilter(int capacity) {
+            // ~9.6 bits per entry for a 1% false positive rate
+            long bits = Math.max(1024, (long) Math.ceil(capacity * 9.6));
+            this.words = new AtomicLongArray((int) ((bits + 63) / 64));
+            this.numBits = words.length() * 64L;
+        }
+
+        void add(String key) {
+            long hash = hash64(key);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= HASHES; i++) {
+                long bit = Integer.toUnsignedLong(h1 + i * h2) % numBits;
+                words.getAndAccumulate((int) (bit >>> 6), 1L << bit, (word, mask) -> word | mask);
+            }
+        }
+
+        boolean mightContain(String key) {
+            long hash = hash64(key);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= HASHES; i++) {
+                long bit = Integer.toUnsignedLong(h1 + i * h2) % numBits;
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // FNV-1a followed by the MurmurHash3 finalizer
+        private static long hash64(String key) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < key.length(); i++) {
+                h ^= key.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb93e7fe1a85bL;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.cooktodor.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-user unread notification counts kept in memory.
+ *
+ * Counts are loaded from the database on a miss and then adjusted in place. Entries expire after a TTL,
+ * which also bounds drift from other nodes (they keep their own counters) and from updates that raced
+ * with a reload.
+ */
+@Component
+public class UnreadCounters {
+
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    private final long ttlMillis;
+
+    private final int maxUsers;
+
+    public UnreadCounters(@Value("${notifications.unread-cache.ttl-seconds:300}") long ttlSeconds,
+            @Value("${notifications.unread-cache.max-users:50000}") int maxUsers) {
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.maxUsers = maxUsers;
+    }
+
+    /**
+     * Cached count, loaded with the given query when missing or expired
+     */
+    public long get(Long userId, LongSupplier loader) {
+        long now = System.currentTimeMillis();
+        Counter counter = counters.get(userId);
+        if (counter != null && counter.expiresAt > now) {
+            return counter.value.get();
+        }
+        if (counters.size() >= maxUsers) {
+            // Everything can be reloaded, so a full reset is cheaper than tracking recency
+            counters.clear();
+        }
+        long loaded = loader.getAsLong();
+        counters.put(userId, new Counter(loaded, now + ttlMillis));
+        return loaded;
+    }
+
+    /**
+     * Adjust a cached count; returns the new value, or null when the user has no live counter
+     */
+    public Long add(Long userId, long delta) {
+        Counter counter = counters.get(userId);
+        if (counter == null || counter.expiresAt <= System.currentTimeMillis()) {
+            return null;
+        }
+        return counter.value.updateAndGet(v -> Math.max(0, v + delta));
+    }
+
+    public void set(Long userId, long value) {
+        counters.put(userId, new Counter(value, System.currentTimeMillis() + ttlMillis));
+    }
+
+    public void invalidate(Long userId) {
+        counters.remove(userId);
+    }
+
+    private static class Counter {
+        private final AtomicLong value;
+        private final long expiresAt;
+
+        Counter(long value, long expiresAt) {
+            this.value = new AtomicLong(value);
+            this.expiresAt = expiresAt;
+        }
+    }
+}
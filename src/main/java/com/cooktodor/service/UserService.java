@@ -1,6 +1,7 @@
 package com.cooktodor.service;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,6 +9,8 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import com.cooktodor.config.security.AuthenticatedUser;
+import com.cooktodor.config.security.PrincipalCache;
 import com.cooktodor.enums.ImageType;
 import com.cooktodor.exception.ResourceNotFoundException;
 import com.cooktodor.model.Customer;
@@ -41,6 +44,12 @@ public class UserService {
     @Autowired
     private ImageRepository imageRepository;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
@@ -107,16 +116,30 @@ public class UserService {
 
     public User updateUser(Long id, User updatedUser) {
         return userRepository.findById(id).map(user -> {
+            String previousUsername = user.getUsername();
+            boolean credentialsChanged = !Objects.equals(previousUsername, updatedUser.getUsername())
+                    || !Objects.equals(user.getPassword(), updatedUser.getPassword())
+                    || user.getRole() != updatedUser.getRole();
             user.setUsername(updatedUser.getUsername());
             user.setPassword(updatedUser.getPassword());
             user.setEmail(updatedUser.getEmail());
             user.setRole(updatedUser.getRole());
-            return userRepository.save(user);
+            User saved = userRepository.save(user);
+            // Username, password and role are part of the cached principal
+            principalCache.invalidate(previousUsername);
+            principalCache.invalidate(saved.getUsername());
+            // Tokens carry the username and role, so the ones already issued must stop working
+            if (credentialsChanged) {
+                tokenRevocationService.revokeAllForUser(saved.getId());
+            }
+            return saved;
         }).orElseThrow(() -> new ResourceNotFoundException("User not found with id " + id));
     }
 
     public void deleteUser(Long id) {
         userRepository.deleteById(id);
+        principalCache.invalidateUserId(id);
+        tokenRevocationService.revokeAllForUser(id);
     }
     
     public User getUserDetailsByUsername(String username) {
@@ -126,14 +149,20 @@ public class UserService {
     // Helper method for authorization
     public boolean isOwnerOrAdmin(String username, Long userId) {
         UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        User user = getUserDetailsByUsername(username);
         
         // Check if user is admin
         boolean isAdmin = userDetails.getAuthorities().stream()
                 .anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN"));
         
-        // Check if user is trying to access their own data
-        boolean isOwner = user != null && user.getId().equals(userId);
+        // Check if user is trying to access their own data (the principal already knows its id)
+        Long ownId;
+        if (userDetails instanceof AuthenticatedUser && userDetails.getUsername().equals(username)) {
+            ownId = ((AuthenticatedUser) userDetails).getUserId();
+        } else {
+            User user = getUserDetailsByUsername(username);
+            ownId = user != null ? user.getId() : null;
+        }
+        boolean isOwner = ownId != null && ownId.equals(userId);
         
         return isAdmin || isOwner;
     }
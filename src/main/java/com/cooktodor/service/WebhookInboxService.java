@@ -0,0 +1,327 @@
+package com.cooktodor.service;
+
+import com.cooktodor.repository.WebhookEventRepository;
+import com.cooktodor.utils.TransactionUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Durable inbox for Razorpay webhooks.
+ *
+ * The webhook endpoint only stores the raw event (deduplicated on its event id) and returns, so
+ * Razorpay gets a fast acknowledgement. A poller claims due events with FOR UPDATE SKIP LOCKED and
+ * hands them to a small worker pool. An event is only claimable once no earlier event for the same
+ * Razorpay order is still pending or in progress, which keeps per-order ordering across workers and
+ * nodes. Failures are retried with exponential backoff up to a maximum number of attempts; events
+ * left in PROCESSING by a crashed node are picked up again when their lock expires.
+ */
+@Service
+public class WebhookInboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookInboxService.class);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private static final String CLAIM_SQL =
+            "UPDATE webhook_events SET status = 'PROCESSING', attempts = attempts + 1, locked_until = ? " +
+            "WHERE id IN (SELECT e.id FROM webhook_events e " +
+            "WHERE ((e.status = 'PENDING' AND e.next_attempt_at <= ?) OR (e.status = 'PROCESSING' AND e.locked_until < ?)) " +
+            "AND NOT EXISTS (SELECT 1 FROM webhook_events p WHERE p.order_key = e.order_key AND p.id < e.id " +
+            "AND p.status IN ('PENDING', 'PROCESSING')) " +
+            "ORDER BY e.id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id, event_id, payload, attempts";
+
+    private final WebhookEventRepository webhookEventRepository;
+
+    private final PaymentService paymentService;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // Coalesces wake-ups into one queued poll
+    private final AtomicBoolean pollQueued = new AtomicBoolean();
+
+    @Value("${webhooks.inbox.workers:4}")
+    private int workers;
+
+    @Value("${webhooks.inbox.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    @Value("${webhooks.inbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${webhooks.inbox.lock-seconds:300}")
+    private long lockSeconds;
+
+    @Value("${webhooks.inbox.retry-base-seconds:30}")
+    private long retryBaseSeconds;
+
+    @Value("${webhooks.inbox.retry-max-seconds:3600}")
+    private long retryMaxSeconds;
+
+    @Value("${webhooks.inbox.retention-days:30}")
+    private int retentionDays;
+
+    private ScheduledExecutorService poller;
+
+    private ExecutorService workerPool;
+
+    public WebhookInboxService(WebhookEventRepository webhookEventRepository, PaymentService paymentService,
+            JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.webhookEventRepository = webhookEventRepository;
+        this.paymentService = paymentService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        workerPool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "webhook-worker-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "webhook-inbox");
+            t.setDaemon(true);
+            return t;
+        });
+        poller.scheduleWithFixedDelay(this::pollSafely, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+        poller.scheduleWithFixedDelay(this::purgeSafely, 1, 60, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+        if (workerPool != null) {
+            // Events still unfinished are reclaimed after their lock expires
+            workerPool.shutdown();
+            workerPool.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Store a verified webhook for processing. Returns false for an event already received.
+     *
+     * @param eventId Razorpay's X-Razorpay-Event-Id; a hash of the payload is used when absent
+     */
+    @Transactional
+    public boolean receive(String eventId, String payload) {
+        String id = eventId != null && !eventId.isBlank() ? eventId.trim() : "sha256:" + sha256(payload);
+
+        // Only for routing and display; the worker parses the payload again
+        String eventType = null;
+        String orderKey = null;
+        try {
+            RazorpayEvent event = parse(payload);
+            eventType = event.type;
+            orderKey = event.orderId;
+        } catch (JsonProcessingException e) {
+            logger.warn("Webhook {} has an unparseable payload, storing it as is", id);
+        }
+
+        int inserted = webhookEventRepository.insertIfAbsent(id, truncate(eventType, 64), truncate(orderKey, 64),
+                payload, LocalDateTime.now());
+        if (inserted == 0) {
+            logger.info("Duplicate webhook event {} ignored", id);
+            return false;
+        }
+        TransactionUtils.afterCommit(this::wakeUp);
+        return true;
+    }
+
+    private void wakeUp() {
+        if (poller == null || !pollQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            poller.execute(this::pollSafely);
+        } catch (RejectedExecutionException e) {
+            pollQueued.set(false);
+        }
+    }
+
+    private void pollSafely() {
+        pollQueued.set(false);
+        try {
+            // Keep about one event queued per worker, so a busy node leaves work to the others
+            int capacity = workers * 2 - inFlight.get();
+            if (capacity <= 0) {
+                return;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            List<ClaimedEvent> claimed = jdbcTemplate.query(CLAIM_SQL,
+                    (rs, rowNum) -> new ClaimedEvent(rs.getLong("id"), rs.getString("event_id"),
+                            rs.getString("payload"), rs.getInt("attempts")),
+                    now.plusSeconds(lockSeconds), now, now, capacity);
+            for (ClaimedEvent event : claimed) {
+                inFlight.incrementAndGet();
+                try {
+                    workerPool.execute(() -> {
+                        try {
+                            process(event);
+                        } finally {
+                            inFlight.decrementAndGet();
+                            // Finishing an event may unblock the next one for the same order
+                            wakeUp();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    inFlight.decrementAndGet();
+                }
+            }
+            if (claimed.size() == capacity) {
+                wakeUp();
+            }
+        } catch (Exception e) {
+            logger.error("Failed to poll webhook inbox", e);
+        }
+    }
+
+    private void process(ClaimedEvent claimed) {
+        RazorpayEvent event;
+        try {
+            event = parse(claimed.payload);
+        } catch (JsonProcessingException e) {
+            // Retrying won't make it parseable
+            finish(claimed, false, "Unparseable payload: " + e.getOriginalMessage());
+            return;
+        }
+
+        try {
+            // One transaction: the event is marked processed exactly when its effects commit, and the payment
+            // code has a session for lazy loading, with its notifications sent after the commit
+            transactionTemplate.executeWithoutResult(status -> {
+                paymentService.applyWebhookEvent(event.type, event.paymentId, event.orderId, event.method);
+                webhookEventRepository.markProcessed(claimed.id, LocalDateTime.now());
+            });
+        } catch (Exception e) {
+            logger.warn("Webhook event {} ({}) failed on attempt {}: {}", claimed.eventId, event.type,
+                    claimed.attempts, e.getMessage());
+            finish(claimed, claimed.attempts < maxAttempts, e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+    }
+
+    private void finish(ClaimedEvent claimed, boolean retry, String error) {
+        String message = truncate(error, MAX_ERROR_LENGTH);
+        try {
+            if (retry) {
+                long delay = Math.min(retryMaxSeconds, retryBaseSeconds << Math.min(claimed.attempts - 1, 20));
+                transactionTemplate.executeWithoutResult(status -> webhookEventRepository.scheduleRetry(
+                        claimed.id, LocalDateTime.now().plusSeconds(delay), message));
+            } else {
+                logger.error("Webhook event {} failed permanently after {} attempts: {}", claimed.eventId,
+                        claimed.attempts, message);
+                transactionTemplate.executeWithoutResult(status -> webhookEventRepository.markFailed(
+                        claimed.id, LocalDateTime.now(), message));
+            }
+        } catch (Exception e) {
+            // Left in PROCESSING; it is retried once the lock expires
+            logger.error("Failed to record outcome of webhook event {}", claimed.eventId, e);
+        }
+    }
+
+    private void purgeSafely() {
+        try {
+            Integer deleted = transactionTemplate.execute(status ->
+                    webhookEventRepository.deleteProcessedBefore(LocalDateTime.now().minusDays(retentionDays)));
+            if (deleted != null && deleted > 0) {
+                logger.info("Purged {} processed webhook events", deleted);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to purge processed webhook events", e);
+        }
+    }
+
+    // {"event": "payment.captured", "payload": {"payment": {"entity": {"id": ..., "order_id": ..., "method": ...}}}}
+    private RazorpayEvent parse(String payload) throws JsonProcessingException {
+        JsonNode root = objectMapper.readTree(payload);
+        JsonNode payment = root.path("payload").path("payment").path("entity");
+        String orderId = text(payment, "order_id");
+        if (orderId == null) {
+            // order.* events carry the order itself
+            orderId = text(root.path("payload").path("order").path("entity"), "id");
+        }
+        return new RazorpayEvent(text(root, "event"), text(payment, "id"), orderId, text(payment, "method"));
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value == null || value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+
+    private static String sha256(String payload) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class RazorpayEvent {
+        final String type;
+        final String paymentId;
+        final String orderId;
+        final String method;
+
+        RazorpayEvent(String type, String paymentId, String orderId, String method) {
+            this.type = type;
+            this.paymentId = paymentId;
+            this.orderId = orderId;
+            this.method = method;
+        }
+    }
+
+    private static final class ClaimedEvent {
+        final long id;
+        final String eventId;
+        final String payload;
+        final int attempts;
+
+        ClaimedEvent(long id, String eventId, String payload, int attempts) {
+            this.id = id;
+            this.eventId = eventId;
+            this.payload = payload;
+            this.attempts = attempts;
+        }
+    }
+}
@@ -1,19 +1,56 @@
 package com.cooktodor.utils;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
 public class ImageResponse {
     private String fileType;
-    private byte[] data;
+    private Resource resource;
+    private String contentHash;
+    private boolean immutable;
 
     public ImageResponse(String fileType, byte[] data) {
+        this(fileType, new ByteArrayResource(data), null);
+    }
+
+    public ImageResponse(String fileType, Resource resource, String contentHash) {
+        this(fileType, resource, contentHash, contentHash != null);
+    }
+
+    public ImageResponse(String fileType, Resource resource, String contentHash, boolean immutable) {
         this.fileType = fileType;
-        this.data = data;
+        this.resource = resource;
+        this.contentHash = contentHash;
+        this.immutable = immutable;
     }
 
     public String getFileType() {
         return fileType;
     }
 
+    // Streamable image content (file-backed for blob store images)
+    public Resource getResource() {
+        return resource;
+    }
+
+    // SHA-256 of the content, used as the strong ETag
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    // false when the content served for this URL may still change (e.g. a variant not generated yet)
+    public boolean isImmutable() {
+        return immutable;
+    }
+
     public byte[] getData() {
-        return data;
+        try {
+            return resource.getContentAsByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
-}
\ No newline at end of file
+}
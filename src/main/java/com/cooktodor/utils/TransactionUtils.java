@@ -0,0 +1,32 @@
+package com.cooktodor.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class TransactionUtils {
+
+    // Set while an action registered here runs; synchronizations registered at that point would never fire
+    private static final ThreadLocal<Boolean> IN_AFTER_COMMIT = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    /**
+     * Run the action after the surrounding transaction commits, or right away when there is none.
+     * Calls made from inside another afterCommit action also run right away.
+     */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || IN_AFTER_COMMIT.get()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                IN_AFTER_COMMIT.set(Boolean.TRUE);
+                try {
+                    action.run();
+                } finally {
+                    IN_AFTER_COMMIT.remove();
+                }
+            }
+        });
+    }
+}
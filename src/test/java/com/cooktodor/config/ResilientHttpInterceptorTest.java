@@ -0,0 +1,222 @@
+package com.cooktodor.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Retry and circuit breaker behaviour against a local HTTP server, through the same RestTemplate
+ * setup RazorpayConfig uses.
+ */
+class ResilientHttpInterceptorTest {
+
+    // Status sentinel: answer 200, but only after the client's read timeout
+    private static final int SLOW = -1;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private String baseUrl;
+
+    private final AtomicInteger hits = new AtomicInteger();
+    // Statuses for the next requests, in order; 200 once it runs out
+    private final Queue<Integer> statuses = new ConcurrentLinkedQueue<>();
+    private volatile int defaultStatus = 200;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            hits.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            Integer next = statuses.poll();
+            int status = next != null ? next : defaultStatus;
+            if (status == SLOW) {
+                try {
+                    Thread.sleep(1_000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                status = 200;
+            }
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        // A slow handler must not hold up the next request
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void readTimeoutIsRetriedForGet() {
+        RazorpayProperties.Http settings = settings();
+        statuses.add(SLOW);
+        statuses.add(SLOW);
+        statuses.add(SLOW);
+
+        ResilientHttpInterceptor interceptor = new ResilientHttpInterceptor("test", settings);
+        RestTemplate client = client(interceptor, settings);
+
+        assertThrows(ResourceAccessException.class, () -> client.getForEntity(baseUrl + "/orders", String.class));
+        // Counted on the client: on a loaded machine the last attempt can time out before the handler runs
+        assertEquals((long) settings.getMaxRetries(), interceptor.snapshot().get("retries"));
+    }
+
+    @Test
+    void getIsRetriedOn5xxUntilItSucceeds() {
+        RazorpayProperties.Http settings = settings();
+        statuses.add(503);
+        statuses.add(502);
+        ResilientHttpInterceptor interceptor = new ResilientHttpInterceptor("test", settings);
+
+        ResponseEntity<String> response = client(interceptor, settings).getForEntity(baseUrl + "/orders", String.class);
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(3, hits.get());
+        assertEquals(2L, interceptor.snapshot().get("retries"));
+    }
+
+    @Test
+    void getIsRetriedOn429() {
+        RazorpayProperties.Http settings = settings();
+        statuses.add(429);
+
+        ResponseEntity<String> response = client(new ResilientHttpInterceptor("test", settings), settings)
+                .getForEntity(baseUrl + "/orders", String.class);
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(2, hits.get());
+    }
+
+    @Test
+    void postThatReachedTheServerIsNotRetried() {
+        RazorpayProperties.Http settings = settings();
+        statuses.add(503);
+        RestTemplate client = client(new ResilientHttpInterceptor("test", settings), settings);
+
+        assertThrows(HttpServerErrorException.class, () -> client.postForEntity(baseUrl + "/payouts", "{}", String.class));
+        assertEquals(1, hits.get());
+
+        statuses.add(SLOW);
+        assertThrows(ResourceAccessException.class, () -> client.postForEntity(baseUrl + "/payouts", "{}", String.class));
+        assertEquals(2, hits.get());
+    }
+
+    @Test
+    void circuitOpensAfterThresholdAndFailsFast() {
+        RazorpayProperties.Http settings = settings();
+        settings.setMaxRetries(0);
+        settings.setCircuitFailureThreshold(3);
+        defaultStatus = 500;
+        ResilientHttpInterceptor interceptor = new ResilientHttpInterceptor("test", settings);
+        RestTemplate client = client(interceptor, settings);
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(HttpServerErrorException.class, () -> client.getForEntity(baseUrl + "/orders", String.class));
+        }
+        assertEquals("OPEN", interceptor.snapshot().get("circuit"));
+
+        assertThrows(ResourceAccessException.class, () -> client.getForEntity(baseUrl + "/orders", String.class));
+        assertEquals(3, hits.get());
+        assertEquals(1L, interceptor.snapshot().get("rejectedWhileOpen"));
+    }
+
+    @Test
+    void successfulHalfOpenProbeClosesCircuit() throws InterruptedException {
+        RazorpayProperties.Http settings = settings();
+        ResilientHttpInterceptor interceptor = new ResilientHttpInterceptor("test", settings);
+        RestTemplate client = openCircuit(interceptor, settings);
+
+        Thread.sleep(1_100);
+        defaultStatus = 200;
+
+        assertEquals(200, client.getForEntity(baseUrl + "/orders", String.class).getStatusCode().value());
+        assertEquals("CLOSED", interceptor.snapshot().get("circuit"));
+        assertEquals(200, client.getForEntity(baseUrl + "/orders", String.class).getStatusCode().value());
+        assertEquals(3, hits.get());
+    }
+
+    @Test
+    void failedHalfOpenProbeReopensCircuit() throws InterruptedException {
+        RazorpayProperties.Http settings = settings();
+        ResilientHttpInterceptor interceptor = new ResilientHttpInterceptor("test", settings);
+        RestTemplate client = openCircuit(interceptor, settings);
+
+        Thread.sleep(1_100);
+
+        // The probe gets a single attempt even though GETs are normally retried
+        assertThrows(HttpServerErrorException.class, () -> client.getForEntity(baseUrl + "/orders", String.class));
+        assertEquals(2, hits.get());
+        assertEquals("OPEN", interceptor.snapshot().get("circuit"));
+        assertThrows(ResourceAccessException.class, () -> client.getForEntity(baseUrl + "/orders", String.class));
+        assertEquals(2, hits.get());
+    }
+
+    // Opens the circuit with a single failing call, open for one second
+    private RestTemplate openCircuit(ResilientHttpInterceptor interceptor, RazorpayProperties.Http settings) {
+        settings.setCircuitFailureThreshold(1);
+        settings.setCircuitOpenSeconds(1);
+        defaultStatus = 500;
+        RestTemplate client = client(interceptor, settings);
+        assertThrows(HttpServerErrorException.class, () -> client.getForEntity(baseUrl + "/orders", String.class));
+        assertEquals("OPEN", interceptor.snapshot().get("circuit"));
+        assertEquals(1, hits.get());
+        return client;
+    }
+
+    private static RazorpayProperties.Http settings() {
+        RazorpayProperties.Http settings = new RazorpayProperties.Http();
+        settings.setConnectTimeoutMs(1_000);
+        settings.setReadTimeoutMs(200);
+        settings.setMaxRetries(2);
+        settings.setRetryBaseDelayMs(1);
+        settings.setRetryMaxDelayMs(5);
+        settings.setCircuitFailureThreshold(5);
+        settings.setCircuitOpenSeconds(30);
+        return settings;
+    }
+
+    private static RestTemplate client(ResilientHttpInterceptor interceptor, RazorpayProperties.Http settings) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(settings.getConnectTimeoutMs()))
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(settings.getReadTimeoutMs()));
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        restTemplate.setInterceptors(List.of(interceptor));
+        return restTemplate;
+    }
+}
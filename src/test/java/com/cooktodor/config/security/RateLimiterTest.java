@@ -0,0 +1,156 @@
+package com.cooktodor.config.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.cooktodor.config.RateLimitProperties;
+import com.cooktodor.exception.TooManyRequestsException;
+
+class RateLimiterTest {
+
+    @Test
+    void allowsBurstUpToCapacityThenRejects() {
+        RateLimiter limiter = limiter(rule(5, 60), 100_000);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquireIp("login", "10.0.0.1"));
+        }
+        assertTrue(limiter.tryAcquireIp("login", "10.0.0.1") > 0);
+        // Other clients have their own bucket
+        assertEquals(0, limiter.tryAcquireIp("login", "10.0.0.2"));
+    }
+
+    @Test
+    void refillsAtTheConfiguredRate() throws InterruptedException {
+        // One token every 200ms
+        RateLimiter limiter = limiter(rule(2, 300), 100_000);
+
+        assertEquals(0, limiter.tryAcquireIp("login", "10.0.0.1"));
+        assertEquals(0, limiter.tryAcquireIp("login", "10.0.0.1"));
+        assertTrue(limiter.tryAcquireIp("login", "10.0.0.1") > 0);
+
+        Thread.sleep(250);
+
+        assertEquals(0, limiter.tryAcquireIp("login", "10.0.0.1"));
+        assertTrue(limiter.tryAcquireIp("login", "10.0.0.1") > 0);
+    }
+
+    @Test
+    void retryAfterIsTheTimeUntilTheNextToken() {
+        // One token per minute
+        RateLimiter limiter = limiter(rule(1, 1), 100_000);
+
+        assertEquals(0, limiter.tryAcquireIp("login", "10.0.0.1"));
+        long retryAfter = limiter.tryAcquireIp("login", "10.0.0.1");
+
+        assertTrue(retryAfter >= 59 && retryAfter <= 61, "retryAfter was " + retryAfter);
+    }
+
+    @Test
+    void accountLimitThrowsWithRetryAfterAndIgnoresCase() {
+        RateLimiter limiter = limiter(rule(1, 1), 100_000);
+
+        limiter.checkAccount("login", "Alice");
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class,
+                () -> limiter.checkAccount("login", " alice "));
+
+        assertTrue(e.getRetryAfterSeconds() >= 59 && e.getRetryAfterSeconds() <= 61);
+    }
+
+    @Test
+    void unknownEndpointIsNotLimited() {
+        RateLimiter limiter = limiter(rule(1, 1), 100_000);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, limiter.tryAcquireIp("signup", "10.0.0.1"));
+        }
+    }
+
+    @Test
+    void sweepDropsRefilledBuckets() throws InterruptedException {
+        // Capacity 1 refilling every 10ms, so each bucket is full again almost immediately
+        RateLimiter limiter = limiter(rule(1, 6_000), 100_000);
+        for (int i = 0; i < 1_000; i++) {
+            limiter.tryAcquireIp("login", "10.0.0." + i);
+        }
+        assertEquals(1_000, bucketCount(limiter));
+
+        Thread.sleep(50);
+        ReflectionTestUtils.invokeMethod(limiter, "evictIdle");
+
+        assertEquals(0, bucketCount(limiter));
+    }
+
+    @Test
+    void bucketsStayBoundedWhenStripesFill() {
+        // 16 stripes of 5 IP buckets; none of them refills during the test
+        RateLimiter limiter = limiter(rule(1, 1), 160);
+
+        for (int i = 0; i < 10_000; i++) {
+            limiter.tryAcquireIp("login", "client-" + i);
+        }
+
+        assertTrue(bucketCount(limiter) <= 80, "buckets: " + bucketCount(limiter));
+    }
+
+    @Test
+    void ipFloodDoesNotResetAccountLimits() {
+        RateLimiter limiter = limiter(rule(1, 1), 160);
+        limiter.checkAccount("login", "alice");
+
+        for (int i = 0; i < 10_000; i++) {
+            limiter.tryAcquireIp("login", "client-" + i);
+        }
+
+        assertThrows(TooManyRequestsException.class, () -> limiter.checkAccount("login", "alice"));
+    }
+
+    @Test
+    void fullStripeKeepsTheMostUsedBuckets() {
+        // Alice is five minutes from a full bucket, each sprayed account only one
+        RateLimiter limiter = limiter(rule(5, 1), 160);
+        for (int i = 0; i < 5; i++) {
+            limiter.checkAccount("login", "alice");
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            limiter.checkAccount("login", "user-" + i);
+        }
+
+        assertThrows(TooManyRequestsException.class, () -> limiter.checkAccount("login", "alice"));
+        assertTrue(bucketCount(limiter) <= 80, "buckets: " + bucketCount(limiter));
+    }
+
+    private static RateLimitProperties.Rule rule(int capacity, double perMinute) {
+        RateLimitProperties.Rule rule = new RateLimitProperties.Rule();
+        rule.setIpCapacity(capacity);
+        rule.setIpPerMinute(perMinute);
+        rule.setAccountCapacity(capacity);
+        rule.setAccountPerMinute(perMinute);
+        return rule;
+    }
+
+    private static RateLimiter limiter(RateLimitProperties.Rule loginRule, int maxBuckets) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setMaxBuckets(maxBuckets);
+        properties.getRules().put("login", loginRule);
+        return new RateLimiter(properties);
+    }
+
+    private static int bucketCount(RateLimiter limiter) {
+        int count = 0;
+        for (String field : new String[] { "ipStripes", "accountStripes" }) {
+            for (Map<?, ?> stripe : (ConcurrentHashMap<?, ?>[]) ReflectionTestUtils.getField(limiter, field)) {
+                count += stripe.size();
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,143 @@
+package com.cooktodor.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class HotImageCacheTest {
+
+    private static final int ENTRY_BYTES = 1_024;
+
+    @Test
+    void returnsWhatWasPut() {
+        HotImageCache cache = new HotImageCache(10 * ENTRY_BYTES, ENTRY_BYTES, 60);
+        cache.put("category:1", image(1L));
+
+        HotImageCache.CachedImage cached = cache.get("category:1");
+
+        assertNotNull(cached);
+        assertEquals(1L, cached.getImageId());
+        assertEquals(ENTRY_BYTES, cached.getData().remaining());
+        assertEquals(ENTRY_BYTES, cache.sizeInBytes());
+    }
+
+    @Test
+    void oversizedEntriesAreNotCached() {
+        HotImageCache cache = new HotImageCache(10 * ENTRY_BYTES, ENTRY_BYTES / 2, 60);
+        cache.put("category:1", image(1L));
+
+        assertNull(cache.get("category:1"));
+        assertEquals(0, cache.sizeInBytes());
+    }
+
+    @Test
+    void acceptsOnlyEntriesUpToTheMaxEntrySize() {
+        HotImageCache cache = new HotImageCache(10 * ENTRY_BYTES, ENTRY_BYTES, 60);
+
+        assertTrue(cache.accepts(ENTRY_BYTES));
+        assertFalse(cache.accepts(ENTRY_BYTES + 1));
+    }
+
+    @Test
+    void streamsTheCachedBytes() throws IOException {
+        byte[] bytes = new byte[ENTRY_BYTES];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        HotImageCache.CachedImage image = new HotImageCache.CachedImage(1L, "a.jpg", "image/jpeg", "hash", 64, 64, bytes);
+
+        try (InputStream first = image.openStream(); InputStream second = image.openStream()) {
+            assertArrayEquals(bytes, first.readAllBytes());
+            // Each stream reads from its own position
+            assertArrayEquals(bytes, second.readAllBytes());
+        }
+    }
+
+    @Test
+    void entriesExpireAfterTheTtl() {
+        HotImageCache cache = new HotImageCache(10 * ENTRY_BYTES, ENTRY_BYTES, 0);
+        cache.put("category:1", image(1L));
+
+        assertNull(cache.get("category:1"));
+        assertEquals(0, cache.sizeInBytes());
+    }
+
+    @Test
+    void invalidateRemovesEntry() {
+        HotImageCache cache = new HotImageCache(10 * ENTRY_BYTES, ENTRY_BYTES, 60);
+        cache.put("category:1", image(1L));
+
+        cache.invalidate("category:1");
+
+        assertNull(cache.get("category:1"));
+        assertEquals(0, cache.sizeInBytes());
+    }
+
+    @Test
+    void oneOffReadsDoNotFlushHotEntries() {
+        // Window of one entry, main region of nine
+        HotImageCache cache = new HotImageCache(10 * ENTRY_BYTES, ENTRY_BYTES, 60);
+        for (long id = 1; id <= 10; id++) {
+            cache.put("hot:" + id, image(id));
+            for (int i = 0; i < 5; i++) {
+                cache.get("hot:" + id);
+            }
+        }
+
+        for (long id = 100; id < 200; id++) {
+            cache.put("cold:" + id, image(id));
+        }
+
+        // Everything that reached the main region survived; only the window turned over
+        for (long id = 1; id <= 9; id++) {
+            assertNotNull(cache.get("hot:" + id), "hot:" + id);
+        }
+        assertTrue(cache.sizeInBytes() <= 10 * ENTRY_BYTES);
+    }
+
+    @Test
+    void sketchCountsAndSaturates() {
+        HotImageCache.FrequencySketch sketch = new HotImageCache.FrequencySketch(1_024);
+        for (int i = 0; i < 3; i++) {
+            sketch.increment("a");
+        }
+        for (int i = 0; i < 100; i++) {
+            sketch.increment("b");
+        }
+
+        assertEquals(3, sketch.frequency("a"));
+        assertEquals(15, sketch.frequency("b"));
+        assertEquals(0, sketch.frequency("never-seen"));
+    }
+
+    @Test
+    void sketchResetHalvesCounts() {
+        HotImageCache.FrequencySketch sketch = new HotImageCache.FrequencySketch(1_024);
+        for (int i = 0; i < 8; i++) {
+            sketch.increment("a");
+        }
+        for (int i = 0; i < 100; i++) {
+            sketch.increment("b");
+        }
+
+        // Runs on its own once the sample size is reached, so popularity decays
+        ReflectionTestUtils.invokeMethod(sketch, "reset");
+
+        assertEquals(4, sketch.frequency("a"));
+        assertEquals(7, sketch.frequency("b"));
+    }
+
+    private static HotImageCache.CachedImage image(long id) {
+        return new HotImageCache.CachedImage(id, "image-" + id + ".jpg", "image/jpeg", "hash-" + id, 64, 64,
+                new byte[ENTRY_BYTES]);
+    }
+}
@@ -0,0 +1,158 @@
+package com.cooktodor.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.cooktodor.enums.OtpPurpose;
+import com.cooktodor.model.OneTimePassword;
+import com.cooktodor.repository.OneTimePasswordRepository;
+
+class OtpServiceTest {
+
+    private static final Duration VALIDITY = Duration.ofMinutes(10);
+    private static final int MAX_ATTEMPTS = 3;
+
+    // Stands in for one_time_passwords, keyed by purpose and subject
+    private final Map<String, OneTimePassword> rows = new ConcurrentHashMap<>();
+
+    private OtpService otpService;
+
+    @BeforeEach
+    void setUp() {
+        OneTimePasswordRepository repository = mock(OneTimePasswordRepository.class);
+        when(repository.findByPurposeAndSubjectId(any(OtpPurpose.class), anyLong())).thenAnswer(call ->
+                Optional.ofNullable(rows.get(key(call.getArgument(0), call.getArgument(1)))));
+        when(repository.upsert(anyString(), anyLong(), anyString(), any(), any())).thenAnswer(call -> {
+            store(OtpPurpose.valueOf(call.getArgument(0)), call.getArgument(1), call.getArgument(2),
+                    call.getArgument(3), call.getArgument(4));
+            return 1;
+        });
+        when(repository.incrementAttempts(any(OtpPurpose.class), anyLong(), anyString())).thenAnswer(call -> {
+            OneTimePassword row = rows.get(key(call.getArgument(0), call.getArgument(1)));
+            if (row == null || !row.getCode().equals(call.getArgument(2))) {
+                return 0;
+            }
+            row.setAttempts(row.getAttempts() + 1);
+            return 1;
+        });
+        when(repository.deleteByCode(any(OtpPurpose.class), anyLong(), anyString())).thenAnswer(call -> {
+            String key = key(call.getArgument(0), call.getArgument(1));
+            OneTimePassword row = rows.get(key);
+            return row != null && row.getCode().equals(call.getArgument(2)) && rows.remove(key, row) ? 1 : 0;
+        });
+
+        otpService = new OtpService(repository, mock(JdbcTemplate.class), mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(otpService, "maxAttempts", MAX_ATTEMPTS);
+        ReflectionTestUtils.setField(otpService, "cacheTtlSeconds", 30L);
+        ReflectionTestUtils.setField(otpService, "maxCacheEntries", 1_000);
+    }
+
+    @Test
+    void codeCanOnlyBeUsedOnce() {
+        OtpService.Otp otp = otpService.issue(OtpPurpose.DELIVERY, 1L, VALIDITY);
+
+        assertEquals(OtpService.Result.VALID, otpService.consume(OtpPurpose.DELIVERY, 1L, otp.getCode()));
+        assertEquals(OtpService.Result.NOT_FOUND, otpService.consume(OtpPurpose.DELIVERY, 1L, otp.getCode()));
+        assertEquals(OtpService.Result.NOT_FOUND, otpService.check(OtpPurpose.DELIVERY, 1L, otp.getCode()));
+        assertFalse(otpService.find(OtpPurpose.DELIVERY, 1L).isPresent());
+    }
+
+    @Test
+    void checkDoesNotUseUpTheCode() {
+        OtpService.Otp otp = otpService.issue(OtpPurpose.PASSWORD_RESET, 1L, VALIDITY);
+
+        assertEquals(OtpService.Result.VALID, otpService.check(OtpPurpose.PASSWORD_RESET, 1L, otp.getCode()));
+        assertEquals(OtpService.Result.VALID, otpService.consume(OtpPurpose.PASSWORD_RESET, 1L, otp.getCode()));
+    }
+
+    @Test
+    void codesArePerPurposeAndSubject() {
+        OtpService.Otp otp = otpService.issue(OtpPurpose.DELIVERY, 1L, VALIDITY);
+
+        assertEquals(OtpService.Result.NOT_FOUND, otpService.consume(OtpPurpose.DELIVERY, 2L, otp.getCode()));
+        assertEquals(OtpService.Result.NOT_FOUND, otpService.consume(OtpPurpose.PASSWORD_RESET, 1L, otp.getCode()));
+        assertEquals(OtpService.Result.VALID, otpService.consume(OtpPurpose.DELIVERY, 1L, otp.getCode()));
+    }
+
+    @Test
+    void expiredCodeIsRejected() {
+        // Issued already expired
+        OtpService.Otp otp = otpService.issue(OtpPurpose.DELIVERY, 1L, Duration.ofSeconds(-1));
+
+        assertEquals(OtpService.Result.EXPIRED, otpService.check(OtpPurpose.DELIVERY, 1L, otp.getCode()));
+        assertEquals(OtpService.Result.EXPIRED, otpService.consume(OtpPurpose.DELIVERY, 1L, otp.getCode()));
+        assertFalse(otpService.find(OtpPurpose.DELIVERY, 1L).isPresent());
+    }
+
+    @Test
+    void codeIsInvalidatedAfterTooManyWrongAttempts() {
+        OtpService.Otp otp = otpService.issue(OtpPurpose.PASSWORD_RESET, 1L, VALIDITY);
+        String wrong = otp.getCode().equals("000000") ? "111111" : "000000";
+
+        for (int i = 1; i < MAX_ATTEMPTS; i++) {
+            assertEquals(OtpService.Result.INVALID, otpService.check(OtpPurpose.PASSWORD_RESET, 1L, wrong));
+        }
+        assertEquals(OtpService.Result.TOO_MANY_ATTEMPTS, otpService.consume(OtpPurpose.PASSWORD_RESET, 1L, wrong));
+
+        // The right code no longer works either; a new one has to be requested
+        assertEquals(OtpService.Result.NOT_FOUND, otpService.consume(OtpPurpose.PASSWORD_RESET, 1L, otp.getCode()));
+        assertTrue(rows.isEmpty());
+    }
+
+    @Test
+    void newCodeResetsAttempts() {
+        OtpService.Otp first = otpService.issue(OtpPurpose.DELIVERY, 1L, VALIDITY);
+        String wrong = first.getCode().equals("000000") ? "111111" : "000000";
+        for (int i = 1; i < MAX_ATTEMPTS; i++) {
+            otpService.check(OtpPurpose.DELIVERY, 1L, wrong);
+        }
+
+        OtpService.Otp second = otpService.issue(OtpPurpose.DELIVERY, 1L, VALIDITY);
+
+        assertEquals(OtpService.Result.VALID, otpService.consume(OtpPurpose.DELIVERY, 1L, second.getCode()));
+    }
+
+    @Test
+    void consumeSeesCodeIssuedElsewhereDespiteCachedMiss() {
+        // This node cached "no code" for the subject...
+        assertFalse(otpService.find(OtpPurpose.DELIVERY, 1L).isPresent());
+        // ...then another node issued one
+        store(OtpPurpose.DELIVERY, 1L, "123456", LocalDateTime.now(), LocalDateTime.now().plus(VALIDITY));
+
+        assertEquals(OtpService.Result.VALID, otpService.consume(OtpPurpose.DELIVERY, 1L, "123456"));
+    }
+
+    private void store(OtpPurpose purpose, Long subjectId, String code, LocalDateTime createdAt,
+            LocalDateTime expiresAt) {
+        OneTimePassword row = new OneTimePassword();
+        row.setPurpose(purpose);
+        row.setSubjectId(subjectId);
+        row.setCode(code);
+        row.setAttempts(0);
+        row.setCreatedAt(createdAt);
+        row.setExpiresAt(expiresAt);
+        rows.put(key(purpose, subjectId), row);
+    }
+
+    private static String key(OtpPurpose purpose, Long subjectId) {
+        return purpose + ":" + subjectId;
+    }
+}
@@ -0,0 +1,152 @@
+package com.cooktodor.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.cooktodor.repository.NotificationRepository;
+
+/**
+ * Opens and closes 100k SSE sessions while events flow, and checks that nothing grows with the number
+ * of sessions ever opened: the heartbeat timer holds one task, the session map only holds live
+ * sessions, closed sessions drop their queued events, and replay buffers are per user and go away
+ * once the user has been gone for the retention period.
+ */
+class SseEventServiceSoakTest {
+
+    private static final int USERS = 1_000;
+    private static final int ROUNDS = 100; // USERS * ROUNDS = 100k sessions
+    private static final int MAX_SESSIONS_PER_USER = 5;
+    private static final int REPLAY_BUFFER_SIZE = 100;
+    private static final int EVENTS_PER_ROUND = 3;
+
+    private SseEventService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new SseEventService();
+        ReflectionTestUtils.setField(service, "notificationRepository", mock(NotificationRepository.class));
+        ReflectionTestUtils.setField(service, "clusterBus", mock(SseClusterBus.class));
+        ReflectionTestUtils.setField(service, "maxSessionsPerUser", MAX_SESSIONS_PER_USER);
+        ReflectionTestUtils.setField(service, "sessionQueueCapacity", 256);
+        ReflectionTestUtils.setField(service, "maxLagSeconds", 60L);
+        ReflectionTestUtils.setField(service, "writerThreads", 4);
+        ReflectionTestUtils.setField(service, "replayBufferSize", REPLAY_BUFFER_SIZE);
+        ReflectionTestUtils.setField(service, "replayRetentionMinutes", 30L);
+        ReflectionTestUtils.setField(service, "heartbeatIntervalSeconds", 30L);
+        service.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    void sessionChurnLeavesNoPerSessionOrPerUserState() throws InterruptedException {
+        ScheduledThreadPoolExecutor heartbeatScheduler =
+                (ScheduledThreadPoolExecutor) ReflectionTestUtils.getField(service, "heartbeatScheduler");
+        ThreadPoolExecutor writerPool = (ThreadPoolExecutor) ReflectionTestUtils.getField(service, "writerPool");
+        Map<Long, Set<?>> sessions = field("sessions");
+        Map<Long, ?> replayBuffers = field("replayBuffers");
+        int scheduledTasks = heartbeatScheduler.getQueue().size();
+
+        for (int round = 0; round < ROUNDS; round++) {
+            for (long userId = 0; userId < USERS; userId++) {
+                // Every other round reconnects with Last-Event-ID, so the replay path runs too
+                Long lastEventId = round % 2 == 1 ? latestEventId(replayBuffers.get(userId)) : null;
+                assertNotNull(service.createConnection(userId, lastEventId));
+                for (int i = 0; i < EVENTS_PER_ROUND; i++) {
+                    service.sendNotification(userId, "notification", "round " + round);
+                }
+            }
+            // Every third round closes everything; in between, the per-user limit closes the oldest sessions
+            if (round % 3 == 2) {
+                List<Object> closed = liveSessions(sessions);
+                for (long userId = 0; userId < USERS; userId++) {
+                    service.removeConnection(userId);
+                }
+                for (Object session : closed) {
+                    assertTrue(queue(session).isEmpty(), "closed session still holds queued events");
+                }
+            }
+            service.sweepHeartbeats();
+
+            assertEquals(scheduledTasks, heartbeatScheduler.getQueue().size());
+            assertTrue(sessions.size() <= USERS);
+            assertTrue(service.getActiveConnectionsCount() <= USERS * MAX_SESSIONS_PER_USER);
+            // One replay buffer per user, however many sessions it had, each capped at the configured size
+            assertTrue(replayBuffers.size() <= USERS);
+            for (Object buffer : replayBuffers.values()) {
+                assertTrue((int) ReflectionTestUtils.getField(buffer, "size") <= REPLAY_BUFFER_SIZE);
+            }
+            // At most one drain task per live session
+            assertTrue(writerPool.getQueue().size() <= USERS * MAX_SESSIONS_PER_USER);
+        }
+
+        List<Object> closed = liveSessions(sessions);
+        for (long userId = 0; userId < USERS; userId++) {
+            service.removeConnection(userId);
+        }
+        // Retention elapses, so the next sweep drops the buffers of the users who left
+        ReflectionTestUtils.setField(service, "replayRetentionMinutes", 0L);
+        Thread.sleep(5);
+        service.sweepHeartbeats();
+
+        assertEquals(0, sessions.size());
+        assertEquals(0, service.getActiveConnectionsCount());
+        assertEquals(0, replayBuffers.size());
+        for (Object session : closed) {
+            assertTrue(queue(session).isEmpty(), "closed session still holds queued events");
+        }
+        assertEquals(scheduledTasks, heartbeatScheduler.getQueue().size());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while ((!writerPool.getQueue().isEmpty() || writerPool.getActiveCount() > 0) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, writerPool.getQueue().size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T field(String name) {
+        return (T) ReflectionTestUtils.getField(service, name);
+    }
+
+    private static List<Object> liveSessions(Map<Long, Set<?>> sessions) {
+        List<Object> live = new ArrayList<>();
+        for (Set<?> userSessions : sessions.values()) {
+            live.addAll(userSessions);
+        }
+        return live;
+    }
+
+    private static Long latestEventId(Object buffer) {
+        if (buffer == null) {
+            return null;
+        }
+        synchronized (buffer) {
+            return (Long) ReflectionTestUtils.getField(buffer, "latestId");
+        }
+    }
+
+    private static Collection<?> queue(Object session) {
+        synchronized (session) {
+            return new ArrayList<>((Collection<?>) ReflectionTestUtils.getField(session, "queue"));
+        }
+    }
+}
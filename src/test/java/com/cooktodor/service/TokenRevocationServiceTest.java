@@ -0,0 +1,113 @@
+package com.cooktodor.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.cooktodor.repository.RevokedTokenRepository;
+import com.cooktodor.repository.UserTokenRevocationRepository;
+
+class TokenRevocationServiceTest {
+
+    private TokenRevocationService service;
+
+    @BeforeEach
+    void setUp() {
+        // Repository mocks return empty lists and 0 rows, so only the in-memory side is exercised
+        service = new TokenRevocationService(mock(RevokedTokenRepository.class),
+                mock(UserTokenRevocationRepository.class), mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "bloomCapacity", 1_000);
+        ReflectionTestUtils.setField(service, "syncIntervalSeconds", 3_600L);
+        ReflectionTestUtils.setField(service, "sweepIntervalMinutes", 60L);
+        ReflectionTestUtils.setField(service, "maxTokenLifetimeMillis", 60_000L);
+        service.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    void bloomFilterHasNoFalseNegatives() {
+        TokenRevocationService.BloomFilter filter = new TokenRevocationService.BloomFilter(10_000);
+        List<String> added = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            String jti = UUID.randomUUID().toString();
+            filter.add(jti);
+            added.add(jti);
+        }
+
+        for (String jti : added) {
+            assertTrue(filter.mightContain(jti));
+        }
+    }
+
+    @Test
+    void bloomFilterFalsePositiveRateStaysLowAtCapacity() {
+        TokenRevocationService.BloomFilter filter = new TokenRevocationService.BloomFilter(10_000);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add(UUID.randomUUID().toString());
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+        // Sized for about 1%
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void revokedTokenIsRejected() {
+        service.revoke("jti-1", 7L, new Date(System.currentTimeMillis() + 60_000));
+
+        assertTrue(service.isRevoked("jti-1"));
+        assertFalse(service.isRevoked("jti-2"));
+    }
+
+    @Test
+    void sweepRebuildsFilterWithoutExpiredTokens() throws InterruptedException {
+        service.revoke("short-lived", 7L, new Date(System.currentTimeMillis() + 200));
+        service.revoke("long-lived", 7L, new Date(System.currentTimeMillis() + 60_000));
+        Object filterBefore = ReflectionTestUtils.getField(service, "filter");
+
+        Thread.sleep(300);
+        ReflectionTestUtils.invokeMethod(service, "sweepSafely");
+
+        TokenRevocationService.BloomFilter filterAfter =
+                (TokenRevocationService.BloomFilter) ReflectionTestUtils.getField(service, "filter");
+        assertNotSame(filterBefore, filterAfter);
+        assertFalse(filterAfter.mightContain("short-lived"));
+        assertFalse(service.isRevoked("short-lived"));
+        assertTrue(filterAfter.mightContain("long-lived"));
+        assertTrue(service.isRevoked("long-lived"));
+    }
+
+    @Test
+    void userRevocationRejectsTokensIssuedBeforeTheCutoff() throws InterruptedException {
+        Date issuedBefore = new Date(System.currentTimeMillis() - 5_000);
+        service.revokeAllForUser(7L);
+        Thread.sleep(1_100);
+        // iat has second precision
+        Date issuedAfter = new Date(System.currentTimeMillis() / 1000 * 1000);
+
+        assertTrue(service.isRevoked("any", 7L, issuedBefore));
+        assertFalse(service.isRevoked("any", 7L, issuedAfter));
+        assertFalse(service.isRevoked("any", 8L, issuedBefore));
+    }
+}